@@ -64,8 +64,8 @@
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Taggable;
 import org.weasis.core.api.service.WProperties;
-import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.GzipManager;
+import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.ui.editor.image.ViewCanvas;
@@ -718,10 +718,11 @@ private static byte[] getURIContent(URI uri) {
     try {
       URL url = Objects.requireNonNull(uri).toURL();
       LOGGER.debug("Download from URL: {}", url);
-      ClosableURLConnection urlConnection = NetworkUtil.getUrlConnection(url, new URLParameters());
       // note: fastest way to convert inputStream to string according to :
       // http://stackoverflow.com/questions/309424/read-convert-an-inputstream-to-a-string
-      try (InputStream inputStream = urlConnection.getInputStream()) {
+      try (HttpResponse response =
+              NetworkUtil.getHttpResponse(url.toString(), new URLParameters(), null);
+          InputStream inputStream = response.getInputStream()) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         byte[] buffer = new byte[1024];
         int length;
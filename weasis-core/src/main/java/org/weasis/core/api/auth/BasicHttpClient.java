@@ -35,6 +35,8 @@
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.HttpTransport;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.util.FileUtil;
 
@@ -201,6 +203,10 @@ private Response doExecute(
       BodyType bodyType,
       Object bodyContents)
       throws IOException {
+    HttpTransport transport = NetworkUtil.getHttpTransport();
+    if (transport != null && httpVerb == Verb.GET) {
+      return executeWithTransport(transport, userAgent, headers, completeUrl);
+    }
     final URL url = new URL(completeUrl);
     final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
@@ -228,6 +234,22 @@ private Response doExecute(
     }
   }
 
+  private static Response executeWithTransport(
+      HttpTransport transport, String userAgent, Map<String, String> headers, String completeUrl)
+      throws IOException {
+    Map<String, String> map = new HashMap<>(headers);
+    if (userAgent != null) {
+      map.put(OAuthConstants.USER_AGENT_HEADER_NAME, userAgent);
+    }
+    HttpResponse response = transport.get(completeUrl, map, NetworkUtil.getUrlReadTimeout());
+    // Closing the stream of the response releases the connection
+    return new Response(
+        response.getResponseCode(),
+        response.getResponseMessage(),
+        response.getHeaderFields(),
+        response.getInputStream());
+  }
+
   private enum BodyType {
     BYTE_ARRAY {
       @Override
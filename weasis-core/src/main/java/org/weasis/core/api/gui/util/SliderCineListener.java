@@ -9,7 +9,6 @@
  */
 package org.weasis.core.api.gui.util;
 
-import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.Timer;
 import javax.swing.UIManager;
@@ -33,10 +32,10 @@ public enum TIME {
   protected volatile boolean sweeping = false;
   private volatile boolean backward = false;
 
-  private volatile long startTime;
-  private volatile long spentTime;
-
-  private final AtomicInteger iteration = new AtomicInteger(0);
+  // Measured display of the frames, see frameDisplayed()
+  private volatile long lastDisplay;
+  private volatile double frameRate;
+  private volatile long frameTime = -1L;
 
   private final TIME time;
   private final SpinnerNumberModel speedModel;
@@ -45,19 +44,6 @@ public enum TIME {
       new Timer(
           1000 / 20,
           _ -> {
-            int step = (int) (getSpeed() / 5);
-            if (step <= 0) {
-              step = 1;
-            }
-            if (iteration.getAndIncrement() % step == 0) {
-              long prevStartTime = startTime;
-              startTime = System.currentTimeMillis();
-              if (iteration.get() > step) {
-                spentTime = (System.currentTimeMillis() - prevStartTime) / 1000;
-              } else {
-                spentTime = 0;
-              }
-            }
             int offset = backward ? -1 : 1;
             int frameIndex = getSliderValue() + offset;
             if (frameIndex > getSliderMax()) {
@@ -97,7 +83,8 @@ protected SliderCineListener(
   public void start() {
     if (!timer.isRunning() && getSliderMax() - getSliderMin() > 0) {
       timer.setDelay((int) (1000 / getSpeed()));
-      iteration.set(0);
+      lastDisplay = 0L;
+      frameRate = 0.0;
       timer.start();
     }
   }
@@ -134,6 +121,12 @@ public void updateSliderProperties(JSliderW slider) {
         } else if (TIME.HOUR.equals(time)) {
           buffer.append(Messages.getString("SliderCineListener.fph"));
         }
+        double ms = getFrameTime();
+        if (ms >= 0) {
+          buffer.append(", ");
+          buffer.append(DecFormatter.oneDecimal(ms));
+          buffer.append(" ms"); // NON-NLS
+        }
         buffer.append(")");
       }
       titledBorder.setTitleColor(
@@ -147,24 +140,51 @@ public void updateSliderProperties(JSliderW slider) {
     }
   }
 
+  /**
+   * @return the number of frames displayed by second during the cine, or 0 when the cine is stopped
+   */
   public double getCurrentCineRate() {
     if (isCining()) {
-      double time = spentTime;
-      if (time == 0) {
+      double rate = frameRate;
+      if (rate <= 0.0) {
         return 1000.0 / timer.getDelay();
       }
-      return spentTime;
+      return rate;
     }
     return 0.0;
   }
 
+  /**
+   * @return the time in milliseconds between the request and the display of the last frame, or -1
+   */
+  public double getFrameTime() {
+    long t = frameTime;
+    return t < 0 ? -1.0 : t / 1.0e6;
+  }
+
+  /**
+   * Records the display of a frame by the selected view, for measuring the rate of the cine.
+   *
+   * @param frameTime the time in nanoseconds between the request of the frame and its display
+   */
+  public void frameDisplayed(long frameTime) {
+    long now = System.nanoTime();
+    long previous = lastDisplay;
+    if (isCining() && previous > 0) {
+      double rate = 1.0e9 / Math.max(1L, now - previous);
+      frameRate = frameRate <= 0.0 ? rate : 0.8 * frameRate + 0.2 * rate;
+    }
+    lastDisplay = now;
+    this.frameTime = frameTime;
+  }
+
   public void setSpeed(double speed) {
     speedModel.setValue(Math.max(DEFAULT_MIN, Math.min(speed, DEFAULT_MAX)));
   }
 
   protected void updateSpeed() {
     if (timer.isRunning()) {
-      iteration.set(0);
+      frameRate = 0.0;
       timer.setDelay((int) (1000 / getSpeed()));
     }
   }
@@ -12,10 +12,12 @@
 import java.util.HashMap;
 import java.util.Map;
 import org.weasis.core.util.LangUtil;
+import org.weasis.opencv.data.PlanarImage;
 
 public abstract class AbstractOp implements ImageOpNode {
 
   protected HashMap<String, Object> params;
+  private long modificationCount;
 
   protected AbstractOp() {
     params = new HashMap<>();
@@ -29,6 +31,7 @@ protected AbstractOp(AbstractOp op) {
   @Override
   public void clearParams() {
     params.clear();
+    modificationCount++;
   }
 
   @Override
@@ -38,6 +41,12 @@ public void clearIOCache() {
         params.put(key, null);
       }
     }
+    modificationCount++;
+  }
+
+  @Override
+  public long getModificationCount() {
+    return modificationCount;
   }
 
   @Override
@@ -51,7 +60,10 @@ public Object getParam(String key) {
   @Override
   public void setParam(String key, Object value) {
     if (key != null) {
-      params.put(key, value);
+      Object previous = params.put(key, value);
+      if (!Param.OUTPUT_IMG.equals(key) && !isSameValue(previous, value)) {
+        modificationCount++;
+      }
     }
   }
 
@@ -59,13 +71,15 @@ public void setParam(String key, Object value) {
   public void setAllParameters(Map<String, Object> map) {
     if (map != null) {
       params.putAll(map);
+      modificationCount++;
     }
   }
 
   @Override
   public void removeParam(String key) {
-    if (key != null) {
+    if (key != null && params.containsKey(key)) {
       params.remove(key);
+      modificationCount++;
     }
   }
 
@@ -76,7 +90,7 @@ public boolean isEnabled() {
 
   @Override
   public void setEnabled(boolean enabled) {
-    params.put(Param.ENABLE, enabled);
+    setParam(Param.ENABLE, enabled);
   }
 
   @Override
@@ -93,4 +107,25 @@ public void setName(String name) {
 
   @Override
   public void handleImageOpEvent(ImageOpEvent event) {}
+
+  // The images are never modified once produced, the other objects can be modified and set again
+  private static boolean isSameValue(Object previous, Object value) {
+    if (previous == null || value == null) {
+      return previous == value;
+    }
+    if (previous == value) {
+      return previous instanceof PlanarImage || isImmutable(previous);
+    }
+    return isImmutable(previous) && previous.equals(value);
+  }
+
+  private static boolean isImmutable(Object value) {
+    return value instanceof String
+        || value instanceof Boolean
+        || value instanceof Integer
+        || value instanceof Long
+        || value instanceof Double
+        || value instanceof Float
+        || value instanceof Enum<?>;
+  }
 }
@@ -41,6 +41,8 @@ public class AffineTransformOp extends AbstractOp {
 
   public static final String P_DST_BOUNDS = "dest.bounds";
 
+  private final LutWarpKernel lutKernel = new LutWarpKernel();
+
   public AffineTransformOp() {
     setName(OP_NAME);
   }
@@ -85,4 +87,31 @@ public void process() throws Exception {
 
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  /**
+   * Applies a lookup table to the source and this transformation in one pass, see {@link
+   * SimpleOpManager#process()}.
+   *
+   * @param source the image before applying the lookup table
+   * @param table the lookup table, see {@link WindowOp#getLookupTable(PlanarImage)}
+   * @return the transformed image, or null when it cannot be processed in one pass
+   */
+  PlanarImage processWithLut(PlanarImage source, byte[] table) {
+    List<Double> matrix = (List<Double>) params.get(P_AFFINE_MATRIX);
+    Rectangle2D bound = (Rectangle2D) params.get(P_DST_BOUNDS);
+    if (bound == null
+        || matrix == null
+        || bound.getWidth() < 1
+        || bound.getHeight() < 1
+        || !LutWarpKernel.isSupported(source)) {
+      return null;
+    }
+    return lutKernel.apply(
+        source,
+        table,
+        matrix.stream().mapToDouble(Double::doubleValue).toArray(),
+        (int) bound.getWidth(),
+        (int) bound.getHeight(),
+        (ZoomOp.Interpolation) params.get(P_INTERPOLATION));
+  }
 }
@@ -48,5 +48,20 @@ private Param() {}
   /** Clear all the parameter values starting by "op.input" or "op.output" */
   void clearIOCache();
 
+  /**
+   * @return a number changed each time a parameter that can modify the output image is changed, or
+   *     -1 when the operation must be processed each time
+   */
+  default long getModificationCount() {
+    return -1L;
+  }
+
+  /**
+   * @return true when the operation returns its input image with the current parameters
+   */
+  default boolean isPassThrough() {
+    return !isEnabled();
+  }
+
   void handleImageOpEvent(ImageOpEvent event);
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import java.awt.Rectangle;
+import java.util.stream.IntStream;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.weasis.core.api.image.ZoomOp.Interpolation;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Applies a lookup table and an affine transformation in one pass: each pixel of the destination is
+ * interpolated from the lookup values of its neighbors in the source. Only the source pixels shown
+ * in the destination are read, which avoids applying the table to the whole image when it is
+ * displayed with a small zoom or only in part.
+ *
+ * <p>The result is the same as applying the table and then {@code warpAffine} with a constant
+ * border of 0. The pixels of the visible region of the source are kept while the image and the
+ * region do not change, so that changing only the table (e.g. window/level) does not read the image
+ * again. This class is not synchronized.
+ */
+final class LutWarpKernel {
+  // Minimum number of destination pixels for processing the rows in parallel
+  private static final int PARALLEL_THRESHOLD = 128 * 128;
+  private static final int ROWS_BY_TASK = 16;
+  private static final double CUBIC_A = -0.75;
+
+  private PlanarImage source;
+  private Rectangle region;
+  // Index in the table of the source pixels of the region
+  private short[] data;
+
+  /**
+   * @return true when the type of the image is supported
+   */
+  static boolean isSupported(PlanarImage image) {
+    int type = image.type();
+    return type == CvType.CV_8UC1 || type == CvType.CV_16UC1 || type == CvType.CV_16SC1;
+  }
+
+  /**
+   * @return the size of the lookup table for the type of the image
+   */
+  static int getTableLength(PlanarImage image) {
+    return image.type() == CvType.CV_8UC1 ? 256 : 65536;
+  }
+
+  /**
+   * @param image the source image, see {@link #isSupported(PlanarImage)}
+   * @param table the 8-bit value of each pixel value, shifted by 32768 for signed 16-bit images
+   * @param matrix the affine transformation from the source to the destination (length of 6)
+   * @param width the width of the destination
+   * @param height the height of the destination
+   * @param interpolation the interpolation, null for bilinear
+   * @return the 8-bit destination image, or null when the transformation or the interpolation is
+   *     not supported
+   */
+  ImageCV apply(
+      PlanarImage image,
+      byte[] table,
+      double[] matrix,
+      int width,
+      int height,
+      Interpolation interpolation) {
+    Interpolation inter = interpolation == null ? Interpolation.BILINEAR : interpolation;
+    if (inter == Interpolation.LANCZOS || table.length != getTableLength(image)) {
+      return null;
+    }
+    double det = matrix[0] * matrix[4] - matrix[1] * matrix[3];
+    if (Math.abs(det) < 1.0e-12) {
+      return null;
+    }
+    // Inverse transformation, from the destination to the source
+    double[] inv = new double[6];
+    inv[0] = matrix[4] / det;
+    inv[1] = -matrix[1] / det;
+    inv[3] = -matrix[3] / det;
+    inv[4] = matrix[0] / det;
+    inv[2] = -(inv[0] * matrix[2] + inv[1] * matrix[5]);
+    inv[5] = -(inv[3] * matrix[2] + inv[4] * matrix[5]);
+
+    updateRegion(image, getSourceBounds(image, inv, width, height));
+
+    byte[] dst = new byte[width * height];
+    if (!region.isEmpty()) {
+      int tasks = (height + ROWS_BY_TASK - 1) / ROWS_BY_TASK;
+      IntStream stream = IntStream.range(0, tasks);
+      if ((long) width * height >= PARALLEL_THRESHOLD) {
+        stream = stream.parallel();
+      }
+      stream.forEach(
+          t -> {
+            int end = Math.min(height, (t + 1) * ROWS_BY_TASK);
+            for (int y = t * ROWS_BY_TASK; y < end; y++) {
+              renderRow(dst, y, width, table, inv, inter);
+            }
+          });
+    }
+    ImageCV result = new ImageCV(height, width, CvType.CV_8UC1);
+    result.put(0, 0, dst);
+    return result;
+  }
+
+  // Bounds of the source pixels used for the destination, with the interpolation neighbors
+  private static Rectangle getSourceBounds(PlanarImage image, double[] inv, int width, int height) {
+    double minX = Double.MAX_VALUE;
+    double minY = Double.MAX_VALUE;
+    double maxX = -Double.MAX_VALUE;
+    double maxY = -Double.MAX_VALUE;
+    for (int corner = 0; corner < 4; corner++) {
+      double x = (corner & 1) == 0 ? 0 : width;
+      double y = (corner & 2) == 0 ? 0 : height;
+      double sx = inv[0] * x + inv[1] * y + inv[2];
+      double sy = inv[3] * x + inv[4] * y + inv[5];
+      minX = Math.min(minX, sx);
+      minY = Math.min(minY, sy);
+      maxX = Math.max(maxX, sx);
+      maxY = Math.max(maxY, sy);
+    }
+    int x0 = (int) Math.max(0, Math.floor(minX) - 2);
+    int y0 = (int) Math.max(0, Math.floor(minY) - 2);
+    int x1 = (int) Math.min(image.width(), Math.ceil(maxX) + 3);
+    int y1 = (int) Math.min(image.height(), Math.ceil(maxY) + 3);
+    return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+  }
+
+  private void updateRegion(PlanarImage image, Rectangle bounds) {
+    if (image == source && region != null && region.contains(bounds)) {
+      return;
+    }
+    source = image;
+    region = bounds;
+    data = new short[bounds.width * bounds.height];
+    if (bounds.isEmpty()) {
+      return;
+    }
+    Mat mat =
+        image.toMat().submat(bounds.y, bounds.y + bounds.height, bounds.x, bounds.x + bounds.width);
+    int type = image.type();
+    if (type == CvType.CV_8UC1) {
+      byte[] bytes = new byte[data.length];
+      mat.get(0, 0, bytes);
+      for (int i = 0; i < bytes.length; i++) {
+        data[i] = (short) (bytes[i] & 0xFF);
+      }
+    } else {
+      mat.get(0, 0, data);
+      if (type == CvType.CV_16SC1) {
+        for (int i = 0; i < data.length; i++) {
+          data[i] = (short) (data[i] + 32768);
+        }
+      }
+    }
+  }
+
+  private void renderRow(
+      byte[] dst, int y, int width, byte[] table, double[] inv, Interpolation inter) {
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      double sx = inv[0] * x + inv[1] * y + inv[2];
+      double sy = inv[3] * x + inv[4] * y + inv[5];
+      double val =
+          switch (inter) {
+            case NEAREST_NEIGHBOUR ->
+                sample(table, (int) Math.floor(sx + 0.5), (int) Math.floor(sy + 0.5));
+            case BICUBIC -> bicubic(table, sx, sy);
+            default -> bilinear(table, sx, sy);
+          };
+      dst[offset + x] = (byte) Math.clamp(Math.round(val), 0, 255);
+    }
+  }
+
+  private int sample(byte[] table, int x, int y) {
+    Rectangle r = region;
+    int px = x - r.x;
+    int py = y - r.y;
+    if (px < 0 || py < 0 || px >= r.width || py >= r.height) {
+      return 0;
+    }
+    return table[data[py * r.width + px] & 0xFFFF] & 0xFF;
+  }
+
+  private double bilinear(byte[] table, double sx, double sy) {
+    int x0 = (int) Math.floor(sx);
+    int y0 = (int) Math.floor(sy);
+    double fx = sx - x0;
+    double fy = sy - y0;
+    double top = (1.0 - fx) * sample(table, x0, y0) + fx * sample(table, x0 + 1, y0);
+    double bottom = (1.0 - fx) * sample(table, x0, y0 + 1) + fx * sample(table, x0 + 1, y0 + 1);
+    return (1.0 - fy) * top + fy * bottom;
+  }
+
+  private double bicubic(byte[] table, double sx, double sy) {
+    int x0 = (int) Math.floor(sx);
+    int y0 = (int) Math.floor(sy);
+    double[] wx = cubicWeights(sx - x0);
+    double[] wy = cubicWeights(sy - y0);
+    double val = 0.0;
+    for (int j = 0; j < 4; j++) {
+      double row = 0.0;
+      for (int i = 0; i < 4; i++) {
+        row += wx[i] * sample(table, x0 - 1 + i, y0 - 1 + j);
+      }
+      val += wy[j] * row;
+    }
+    return val;
+  }
+
+  // Weights of the cubic convolution used by OpenCV
+  private static double[] cubicWeights(double t) {
+    double a = CUBIC_A;
+    double[] w = new double[4];
+    w[0] = ((a * (t + 1) - 5 * a) * (t + 1) + 8 * a) * (t + 1) - 4 * a;
+    w[1] = ((a + 2) * t - (a + 3)) * t * t + 1;
+    w[2] = ((a + 2) * (1 - t) - (a + 3)) * (1 - t) * (1 - t) + 1;
+    w[3] = 1.0 - w[0] - w[1] - w[2];
+    return w;
+  }
+}
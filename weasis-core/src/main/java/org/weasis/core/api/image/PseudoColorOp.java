@@ -48,6 +48,15 @@ public PseudoColorOp copy() {
     return new PseudoColorOp(this);
   }
 
+  @Override
+  public boolean isPassThrough() {
+    ByteLut lutTable = (ByteLut) params.get(P_LUT);
+    return super.isPassThrough()
+        || lutTable == null
+        || (lutTable.lutTable() == null
+            && !LangUtil.getNULLtoFalse((Boolean) params.get(P_LUT_INVERSE)));
+  }
+
   @Override
   public void process() throws Exception {
     PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
@@ -11,7 +11,9 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -32,7 +34,10 @@ public enum Position {
 
   private final HashMap<String, ImageOpNode> nodes;
   private final List<ImageOpNode> operations;
+  // State of the last processing of each node
+  private final Map<ImageOpNode, NodeState> states = new IdentityHashMap<>();
   private String name;
+  private boolean lutFusion = true;
 
   public SimpleOpManager() {
     this(IMAGE_OP_NAME);
@@ -48,6 +53,7 @@ public SimpleOpManager(SimpleOpManager som) {
     this.operations = new ArrayList<>();
     this.nodes = new HashMap<>();
     setName(som.name);
+    this.lutFusion = som.lutFusion;
 
     som.nodes.forEach(
         (key, value) ->
@@ -113,6 +119,7 @@ public void addImageOperationAction(ImageOpNode action, Position pos, ImageOpNod
 
   public void removeImageOperationAction(ImageOpNode action) {
     if (action != null) {
+      states.remove(action);
       boolean remove = operations.remove(action);
       if (nodes.remove(action.getName()) == null && remove) {
         for (Entry<String, ImageOpNode> entry : nodes.entrySet()) {
@@ -130,6 +137,7 @@ public void removeAllImageOperationAction() {
     clearNodeParams();
     operations.clear();
     nodes.clear();
+    states.clear();
   }
 
   @Override
@@ -205,25 +213,31 @@ public void resetLastNodeOutputImage() {
     }
   }
 
+  /**
+   * Processes the operations. An operation is processed again only when one of its parameters or
+   * its input image has changed since its last processing, otherwise its previous output image is
+   * kept. So changing the parameters of the last operations does not process the first ones.
+   *
+   * <p>When the last operation is an {@link AffineTransformOp} preceded by a {@link WindowOp} and
+   * the operations between them do not modify the image, the lookup table of the window operation
+   * and the transformation are applied in one pass on the displayed pixels (see {@link
+   * #setLutFusion(boolean)}). The images of the intermediate operations are not built in this case,
+   * they are replaced by the input image of the window operation.
+   *
+   * @return the output image of the last operation
+   */
   @Override
   public PlanarImage process() {
     PlanarImage source = getFirstNodeInputImage();
     if (source != null && source.width() > 0) {
-      for (int i = 0; i < operations.size(); i++) {
-        ImageOpNode op = operations.get(i);
-        try {
-          if (i > 0) {
-            op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
-          }
-          if (op.isEnabled()) {
-            op.process();
-          } else {
-            // Skip this operation
-            op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
-          }
-        } catch (Exception e) {
-          LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
-          op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
+      int fusedStart = lutFusion ? getFusedStart() : -1;
+      int end = fusedStart < 0 ? operations.size() : fusedStart;
+      for (int i = 0; i < end; i++) {
+        processNode(i);
+      }
+      if (fusedStart >= 0 && !processFused(fusedStart)) {
+        for (int i = fusedStart; i < operations.size(); i++) {
+          processNode(i);
         }
       }
     } else {
@@ -232,6 +246,149 @@ public PlanarImage process() {
     return getLastNodeOutputImage();
   }
 
+  private void processNode(int index) {
+    ImageOpNode op = operations.get(index);
+    NodeState state = states.computeIfAbsent(op, _ -> new NodeState());
+    try {
+      if (index > 0) {
+        op.setParam(Param.INPUT_IMG, operations.get(index - 1).getParam(Param.OUTPUT_IMG));
+      }
+      long count = op.getModificationCount();
+      if (count >= 0
+          && count == state.modificationCount
+          && !state.fused
+          && op.getParam(Param.OUTPUT_IMG) != null) {
+        return;
+      }
+      long start = System.nanoTime();
+      if (op.isEnabled()) {
+        op.process();
+      } else {
+        // Skip this operation
+        op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
+      }
+      state.processingTime = System.nanoTime() - start;
+      state.modificationCount = op.getModificationCount();
+      state.fused = false;
+      if (LOGGER.isTraceEnabled()) {
+        LOGGER.trace("{} processed in {} ms", op.getName(), state.processingTime / 1.0e6);
+      }
+    } catch (Exception e) {
+      LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
+      op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
+      state.modificationCount = -1L;
+    }
+  }
+
+  // Index of the window operation that can be applied with the last operation, or -1
+  private int getFusedStart() {
+    int last = operations.size() - 1;
+    if (last < 1 || !(operations.get(last) instanceof AffineTransformOp op) || !op.isEnabled()) {
+      return -1;
+    }
+    for (int i = last - 1; i >= 0; i--) {
+      ImageOpNode node = operations.get(i);
+      if (node instanceof WindowOp) {
+        return node.isEnabled() ? i : -1;
+      }
+      if (!node.isPassThrough()) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return false when the operations must be processed one by one
+   */
+  private boolean processFused(int start) {
+    int last = operations.size() - 1;
+    WindowOp window = (WindowOp) operations.get(start);
+    AffineTransformOp affine = (AffineTransformOp) operations.get(last);
+    if (start > 0) {
+      window.setParam(Param.INPUT_IMG, operations.get(start - 1).getParam(Param.OUTPUT_IMG));
+    }
+    PlanarImage input = (PlanarImage) window.getParam(Param.INPUT_IMG);
+    if (input == null) {
+      return false;
+    }
+    if (isFusedUpToDate(start, last) && affine.getParam(Param.OUTPUT_IMG) != null) {
+      return true;
+    }
+
+    long begin = System.nanoTime();
+    PlanarImage result;
+    try {
+      byte[] table = window.getLookupTable(input);
+      result = table == null ? null : affine.processWithLut(input, table);
+    } catch (Exception e) {
+      LOGGER.error("Cannot apply {} with {}", window.getName(), affine.getName(), e);
+      result = null;
+    }
+    if (result == null) {
+      return false;
+    }
+    long time = System.nanoTime() - begin;
+    /*
+     * Release the intermediate images, they are built again when the fusion is no longer possible.
+     * The input image is kept as a marker, so needProcessing() is false until the next change.
+     */
+    for (int i = start; i <= last; i++) {
+      ImageOpNode op = operations.get(i);
+      if (i > start) {
+        op.setParam(Param.INPUT_IMG, input);
+      }
+      op.setParam(Param.OUTPUT_IMG, i == last ? result : input);
+      NodeState state = states.computeIfAbsent(op, _ -> new NodeState());
+      state.modificationCount = op.getModificationCount();
+      state.processingTime = i == last ? time : 0L;
+      state.fused = true;
+    }
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace(
+          "{} and {} processed in {} ms", window.getName(), affine.getName(), time / 1.0e6);
+    }
+    return true;
+  }
+
+  private boolean isFusedUpToDate(int start, int last) {
+    for (int i = start; i <= last; i++) {
+      ImageOpNode op = operations.get(i);
+      NodeState state = states.get(op);
+      long count = op.getModificationCount();
+      if (state == null || !state.fused || count < 0 || count != state.modificationCount) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isLutFusion() {
+    return lutFusion;
+  }
+
+  /**
+   * Allows applying the window operation and the last affine transformation in one pass (see {@link
+   * #process()}). It must be disabled when the input image of the {@link AffineTransformOp} is
+   * required, as this image is not built otherwise.
+   *
+   * @param lutFusion true to allow the fusion, the default value
+   */
+  public void setLutFusion(boolean lutFusion) {
+    this.lutFusion = lutFusion;
+  }
+
+  /**
+   * @param opName the name of the operation
+   * @return the duration in nanoseconds of the last processing of the operation, or -1 when it has
+   *     never been processed
+   */
+  public long getProcessingTime(String opName) {
+    ImageOpNode node = getNode(opName);
+    NodeState state = node == null ? null : states.get(node);
+    return state == null ? -1L : state.processingTime;
+  }
+
   @Override
   public Object getParamValue(String opName, String param) {
     if (opName != null && param != null) {
@@ -276,4 +433,11 @@ public void handleImageOpEvent(ImageOpEvent event) {
   public SimpleOpManager copy() {
     return new SimpleOpManager(this);
   }
+
+  private static final class NodeState {
+    long modificationCount = -1L;
+    long processingTime = -1L;
+    // Processed with the lookup table of a window operation
+    boolean fused;
+  }
 }
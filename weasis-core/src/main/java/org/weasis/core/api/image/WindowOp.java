@@ -9,12 +9,16 @@
  */
 package org.weasis.core.api.image;
 
+import java.util.HashMap;
+import java.util.Map;
+import org.opencv.core.CvType;
 import org.weasis.core.Messages;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.image.ImageOpEvent.OpEvent;
 import org.weasis.core.api.image.util.WindLevelParameters;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.util.LangUtil;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.lut.DefaultWlPresentation;
 import org.weasis.opencv.op.lut.PresentationStateLut;
@@ -29,6 +33,10 @@ public class WindowOp extends AbstractOp {
   public static final String P_APPLY_WL_COLOR = "weasis.color.wl.apply";
   public static final String P_INVERSE_LEVEL = "weasis.level.inverse";
 
+  // Rendering of all the pixel values, for the rendering parameters in lookupKey
+  private byte[] lookupTable;
+  private Map<String, Object> lookupKey;
+
   public WindowOp() {
     setName(OP_NAME);
   }
@@ -78,6 +86,75 @@ public void process() throws Exception {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  /**
+   * Returns the rendering of this operation for each possible value of the source, which allows
+   * applying it only to the displayed pixels (see {@link SimpleOpManager#process()}). The table is
+   * built by rendering an image containing all the values, so it gives the same result as {@link
+   * #process()} for any rendering applied independently to each pixel.
+   *
+   * @param source the input image
+   * @return the 8-bit value of each pixel value (shifted by 32768 for signed 16-bit images), or
+   *     null when the rendering of this image cannot be a lookup table
+   */
+  public byte[] getLookupTable(PlanarImage source) {
+    ImageElement imageElement = (ImageElement) params.get(P_IMAGE_ELEMENT);
+    if (imageElement == null
+        || source == null
+        || !LutWarpKernel.isSupported(source)
+        || params.get(ActionW.WINDOW.cmd()) == null
+        || params.get(ActionW.LEVEL.cmd()) == null) {
+      return null;
+    }
+    int length = LutWarpKernel.getTableLength(source);
+    Map<String, Object> key = getLookupKey(imageElement);
+    if (lookupTable != null && lookupTable.length == length && key.equals(lookupKey)) {
+      return lookupTable;
+    }
+
+    ImageCV values = new ImageCV(1, length, source.type());
+    if (source.type() == CvType.CV_8UC1) {
+      byte[] data = new byte[length];
+      for (int i = 0; i < length; i++) {
+        data[i] = (byte) i;
+      }
+      values.put(0, 0, data);
+    } else {
+      int offset = source.type() == CvType.CV_16SC1 ? Short.MIN_VALUE : 0;
+      short[] data = new short[length];
+      for (int i = 0; i < length; i++) {
+        data[i] = (short) (i + offset);
+      }
+      values.put(0, 0, data);
+    }
+    PlanarImage result = imageElement.getRenderedImage(values, params);
+    if (result == null
+        || result.type() != CvType.CV_8UC1
+        || result.width() != length
+        || result.height() != 1) {
+      return null;
+    }
+    byte[] table = new byte[length];
+    result.get(0, 0, table);
+    lookupTable = table;
+    lookupKey = key;
+    return table;
+  }
+
+  // The images are not part of the key, so the table is kept for the frames of a cine loop
+  private Map<String, Object> getLookupKey(ImageElement imageElement) {
+    Map<String, Object> key = new HashMap<>();
+    params.forEach(
+        (k, v) -> {
+          if (!k.startsWith("op.input") // NON-NLS
+              && !k.startsWith("op.output") // NON-NLS
+              && !P_IMAGE_ELEMENT.equals(k)) {
+            key.put(k, v);
+          }
+        });
+    key.put(P_IMAGE_ELEMENT, imageElement.getRenderingKey());
+    return key;
+  }
+
   public WlPresentation getWlPresentation() {
     boolean pixelPadding =
         LangUtil.getNULLtoTrue((Boolean) getParam(ActionW.IMAGE_PIX_PADDING.cmd()));
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memory efficient tag map for the media elements and the series.
+ *
+ * <ul>
+ *   <li>The keys and their position are stored in a layout shared by all the maps having the same
+ *       tags (e.g. all the instances of a series). A map only holds the arrays of its values.
+ *   <li>The Integer, Long, Float and Double values are stored in a primitive array and boxed again
+ *       when they are read.
+ *   <li>The strings are deduplicated, the values repeated in all the instances (modality,
+ *       manufacturer, series description...) are mostly stored only once.
+ * </ul>
+ *
+ * <p>Like {@link HashMap}, this class accepts null values but not null keys, and the modifications
+ * are not synchronized. However, the map can be read while another thread modifies it: the layout
+ * and the values are a state replaced at each modification, so a reader always gets a consistent
+ * (possibly outdated) value. The arrays of values have free slots at their end, a new key is
+ * written in place in the next free slot, which is not visible from the previous states.
+ */
+public final class CompactTagMap extends AbstractMap<TagW, Object> {
+
+  private static final byte REF = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte FLOAT = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte REMOVED = -1;
+
+  private static final int MAX_INTERNED_LENGTH = 256;
+  // Lossy table of the strings: a slot keeps the last string having its hash
+  private static final int STRINGS_SIZE = 8192;
+  private static final AtomicReferenceArray<String> STRINGS =
+      new AtomicReferenceArray<>(STRINGS_SIZE);
+
+  private static final Object[] EMPTY_REFS = {};
+  private static final long[] EMPTY_NUMBERS = {};
+
+  private volatile State state;
+  private int modCount;
+
+  public CompactTagMap() {
+    this.state = State.EMPTY;
+  }
+
+  public CompactTagMap(Map<? extends TagW, ?> map) {
+    if (map instanceof CompactTagMap other) {
+      // The state can be shared when its free slots cannot be written by both maps
+      this.state = other.state.trim();
+    } else {
+      this.state = State.EMPTY;
+      putAll(map);
+    }
+  }
+
+  @Override
+  public Object get(Object key) {
+    State st = state;
+    int i = st.layout.indexOf(key);
+    return i < 0 ? null : st.valueAt(i);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return state.layout.indexOf(key) >= 0;
+  }
+
+  @Override
+  public Object put(TagW key, Object value) {
+    Objects.requireNonNull(key);
+    byte kind = kindOf(value);
+    Object val = intern(value);
+    State st = state;
+    int i = st.layout.indexOf(key);
+    if (i < 0) {
+      state = st.with(key, kind, val);
+      modCount++;
+      return null;
+    }
+    Object previous = st.valueAt(i);
+    if (st.layout.kinds[i] == kind) {
+      state = st.replace(i, val);
+    } else {
+      // Another type of value: move the key to a slot of the new type
+      state = st.relayout(st.layout.without(i)).with(key, kind, val);
+    }
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    State st = state;
+    int i = st.layout.indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    Object previous = st.valueAt(i);
+    state = st.relayout(st.layout.without(i));
+    modCount++;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    state = State.EMPTY;
+    modCount++;
+  }
+
+  @Override
+  public int size() {
+    return state.layout.keys.length;
+  }
+
+  @Override
+  public Set<Entry<TagW, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<TagW, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return CompactTagMap.this.size();
+      }
+    };
+  }
+
+  static int getCachedLayoutCount() {
+    return Layout.LAYOUT_COUNT.get();
+  }
+
+  private static byte kindOf(Object value) {
+    if (value instanceof Integer) {
+      return INT;
+    } else if (value instanceof Long) {
+      return LONG;
+    } else if (value instanceof Float) {
+      return FLOAT;
+    } else if (value instanceof Double) {
+      return DOUBLE;
+    }
+    return REF;
+  }
+
+  private static Object intern(Object value) {
+    if (value instanceof String s && s.length() <= MAX_INTERNED_LENGTH) {
+      int h = s.hashCode();
+      int slot = (h ^ (h >>> 16)) & (STRINGS_SIZE - 1);
+      String val = STRINGS.get(slot);
+      if (s.equals(val)) {
+        return val;
+      }
+      STRINGS.set(slot, s);
+    }
+    return value;
+  }
+
+  /** Layout and values of a map, only the free slots of the arrays can be written. */
+  private static final class State {
+    static final State EMPTY = new State(Layout.EMPTY, EMPTY_REFS, EMPTY_NUMBERS);
+
+    final Layout layout;
+    final Object[] refs;
+    final long[] numbers;
+
+    State(Layout layout, Object[] refs, long[] numbers) {
+      this.layout = layout;
+      this.refs = refs;
+      this.numbers = numbers;
+    }
+
+    Object valueAt(int i) {
+      int slot = layout.slots[i];
+      return switch (layout.kinds[i]) {
+        case INT -> Integer.valueOf((int) numbers[slot]);
+        case LONG -> Long.valueOf(numbers[slot]);
+        case FLOAT -> Float.valueOf(Float.intBitsToFloat((int) numbers[slot]));
+        case DOUBLE -> Double.valueOf(Double.longBitsToDouble(numbers[slot]));
+        default -> refs[slot];
+      };
+    }
+
+    State with(TagW key, byte kind, Object value) {
+      Layout next = layout.with(key, kind);
+      Object[] r = refs;
+      long[] n = numbers;
+      // Write in the next free slot, the arrays grow by half when they are full
+      if (kind == REF) {
+        if (next.refCount > refs.length) {
+          r = Arrays.copyOf(refs, capacity(next.refCount));
+        }
+      } else if (next.numberCount > numbers.length) {
+        n = Arrays.copyOf(numbers, capacity(next.numberCount));
+      }
+      write(next, r, n, next.keys.length - 1, value);
+      return new State(next, r, n);
+    }
+
+    State trim() {
+      if (refs.length == layout.refCount && numbers.length == layout.numberCount) {
+        return this;
+      }
+      return new State(
+          layout,
+          layout.refCount == 0 ? EMPTY_REFS : Arrays.copyOf(refs, layout.refCount),
+          layout.numberCount == 0 ? EMPTY_NUMBERS : Arrays.copyOf(numbers, layout.numberCount));
+    }
+
+    private static int capacity(int size) {
+      return Math.max(4, size + (size >> 1));
+    }
+
+    State replace(int i, Object value) {
+      Object[] r = refs;
+      long[] n = numbers;
+      if (layout.kinds[i] == REF) {
+        r = refs.clone();
+      } else {
+        n = numbers.clone();
+      }
+      write(layout, r, n, i, value);
+      return new State(layout, r, n);
+    }
+
+    State relayout(Layout next) {
+      Object[] r = next.refCount == 0 ? EMPTY_REFS : new Object[next.refCount];
+      long[] n = next.numberCount == 0 ? EMPTY_NUMBERS : new long[next.numberCount];
+      for (int j = 0; j < next.keys.length; j++) {
+        int old = layout.indexOf(next.keys[j]);
+        if (next.kinds[j] == REF) {
+          r[next.slots[j]] = refs[layout.slots[old]];
+        } else {
+          n[next.slots[j]] = numbers[layout.slots[old]];
+        }
+      }
+      return new State(next, r, n);
+    }
+
+    private static void write(Layout layout, Object[] refs, long[] numbers, int i, Object value) {
+      int slot = layout.slots[i];
+      switch (layout.kinds[i]) {
+        case INT -> numbers[slot] = (Integer) value;
+        case LONG -> numbers[slot] = (Long) value;
+        case FLOAT -> numbers[slot] = Float.floatToRawIntBits((Float) value);
+        case DOUBLE -> numbers[slot] = Double.doubleToRawLongBits((Double) value);
+        default -> refs[slot] = value;
+      }
+    }
+  }
+
+  /**
+   * Immutable list of keys with the type and the position of their value. The layouts are reached
+   * from {@link #EMPTY} by adding or removing keys, the transitions are cached so that the maps
+   * built in the same way share the same layout. When the cache is full, the transitions of {@link
+   * #EMPTY} are removed and a new tree is built, the layouts in use are kept by their maps.
+   */
+  private static final class Layout {
+    static final Layout EMPTY = new Layout(new TagW[0], new byte[0], new int[0], 0, 0);
+    // Limit the number of cached layouts when the tags are not built in the same order
+    private static final int MAX_TRANSITIONS = 64;
+    private static final int MAX_LAYOUTS = 4096;
+    private static final AtomicInteger LAYOUT_COUNT = new AtomicInteger();
+
+    final TagW[] keys;
+    final byte[] kinds;
+    final int[] slots;
+    final int refCount;
+    final int numberCount;
+    private final Map<TagW, Integer> index;
+    private final Map<Transition, Layout> transitions = new ConcurrentHashMap<>();
+
+    Layout(TagW[] keys, byte[] kinds, int[] slots, int refCount, int numberCount) {
+      this.keys = keys;
+      this.kinds = kinds;
+      this.slots = slots;
+      this.refCount = refCount;
+      this.numberCount = numberCount;
+      this.index = HashMap.newHashMap(keys.length);
+      for (int i = 0; i < keys.length; i++) {
+        index.put(keys[i], i);
+      }
+    }
+
+    int indexOf(Object key) {
+      Integer i = index.get(key);
+      return i == null ? -1 : i;
+    }
+
+    Layout with(TagW key, byte kind) {
+      Transition transition = new Transition(key, kind);
+      Layout next = transitions.get(transition);
+      if (next == null) {
+        int n = keys.length;
+        TagW[] k = Arrays.copyOf(keys, n + 1);
+        byte[] kd = Arrays.copyOf(kinds, n + 1);
+        int[] s = Arrays.copyOf(slots, n + 1);
+        k[n] = key;
+        kd[n] = kind;
+        boolean ref = kind == REF;
+        s[n] = ref ? refCount : numberCount;
+        next = new Layout(k, kd, s, refCount + (ref ? 1 : 0), numberCount + (ref ? 0 : 1));
+        next = cache(transition, next);
+      }
+      return next;
+    }
+
+    Layout without(int i) {
+      Transition transition = new Transition(keys[i], REMOVED);
+      Layout next = transitions.get(transition);
+      if (next == null) {
+        int n = keys.length - 1;
+        TagW[] k = new TagW[n];
+        byte[] kd = new byte[n];
+        int[] s = new int[n];
+        int nbRefs = 0;
+        int nbNumbers = 0;
+        for (int j = 0, m = 0; j < keys.length; j++) {
+          if (j != i) {
+            k[m] = keys[j];
+            kd[m] = kinds[j];
+            s[m] = kinds[j] == REF ? nbRefs++ : nbNumbers++;
+            m++;
+          }
+        }
+        next = cache(transition, new Layout(k, kd, s, nbRefs, nbNumbers));
+      }
+      return next;
+    }
+
+    private Layout cache(Transition transition, Layout next) {
+      if (transitions.size() < MAX_TRANSITIONS) {
+        Layout previous = transitions.putIfAbsent(transition, next);
+        if (previous != null) {
+          return previous;
+        }
+        if (LAYOUT_COUNT.incrementAndGet() > MAX_LAYOUTS) {
+          LAYOUT_COUNT.set(0);
+          EMPTY.transitions.clear();
+        }
+      }
+      return next;
+    }
+  }
+
+  private record Transition(TagW key, byte kind) {}
+
+  /** Iterates over the state at the creation of the iterator. */
+  private final class EntryIterator implements Iterator<Entry<TagW, Object>> {
+    private final State snapshot = state;
+    private final TagW[] keys = snapshot.layout.keys;
+    private int expectedModCount = modCount;
+    private int index;
+    private TagW last;
+
+    @Override
+    public boolean hasNext() {
+      return index < keys.length;
+    }
+
+    @Override
+    public Entry<TagW, Object> next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = keys[index];
+      return new CompactEntry(last, snapshot.valueAt(index++));
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      CompactTagMap.this.remove(last);
+      expectedModCount = modCount;
+      last = null;
+    }
+  }
+
+  /** Entry writing its new value in the map. */
+  private final class CompactEntry extends SimpleEntry<TagW, Object> {
+    CompactEntry(TagW key, Object value) {
+      super(key, value);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      put(getKey(), value);
+      return super.setValue(value);
+    }
+  }
+}
@@ -15,7 +15,8 @@
 import java.awt.image.RenderedImage;
 import java.net.URI;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -51,8 +52,18 @@ public class ImageElement extends MediaElement {
   public static final ExecutorService IMAGE_LOADER =
       ThreadUtil.newManagedImageIOThreadPool("ImageLoader");
 
+  private static final Object LOAD_LOCK = new Object();
+
+  private static final long MAX_CACHE_MEMORY = Runtime.getRuntime().maxMemory() / 2;
+
+  // A series cannot keep more than half of the cache when the images of other series are cached
   private static final NativeCache<ImageElement, PlanarImage> mCache =
-      new NativeCache<>(Runtime.getRuntime().maxMemory() / 2) {
+      new NativeCache<>(MAX_CACHE_MEMORY, MAX_CACHE_MEMORY / 2) {
+
+        @Override
+        protected Object getGroup(ImageElement key) {
+          return key.getTagValue(TagW.get("SeriesInstanceUID")); // NON-NLS
+        }
 
         @Override
         protected void afterEntryRemove(ImageElement key, PlanarImage img) {
@@ -81,6 +92,9 @@ protected void afterEntryRemove(ImageElement key, PlanarImage img) {
   protected Double minPixelValue;
   protected Double maxPixelValue;
 
+  // Reading in progress, guarded by LOAD_LOCK
+  private PendingLoad pendingLoad;
+
   public ImageElement(MediaReader mediaIO, Object key) {
     super(mediaIO, key);
   }
@@ -89,6 +103,10 @@ public static int getNumberOfImagesInCache() {
     return mCache.size();
   }
 
+  public static NativeCache.Statistics getCacheStatistics() {
+    return mCache.getStatistics();
+  }
+
   protected void findMinMaxValues(PlanarImage img, boolean exclude8bitImage)
       throws OutOfMemoryError {
     // This function can be called several times from the inner class Load.
@@ -246,13 +264,25 @@ public MeasurementsAdapter getMeasurementAdapter(Unit displayUnit, Point offset)
   }
 
   public boolean isImageInCache() {
-    return mCache.get(this) != null;
+    return mCache.containsKey(this);
   }
 
   public void removeImageFromCache() {
     mCache.remove(this);
   }
 
+  /**
+   * Keeps the image in the cache (e.g. while it is displayed). Each call must be followed by a call
+   * to {@link #unpinImage()}.
+   */
+  public void pinImage() {
+    mCache.pin(this);
+  }
+
+  public void unpinImage() {
+    mCache.unpin(this);
+  }
+
   public boolean hasSameSize(ImageElement image) {
     if (image != null) {
       PlanarImage img = getImage();
@@ -274,6 +304,38 @@ public PlanarImage getRenderedImage(final PlanarImage imageSource) {
     return getRenderedImage(imageSource, null);
   }
 
+  /**
+   * Returns the rendered image for building a thumbnail. A subclass can decode the image at a
+   * reduced resolution when it is not already in memory.
+   *
+   * @param size the maximum size of the thumbnail
+   * @param manager the operations to apply to the image, can be null
+   * @return the rendered image, or null when the image cannot be read
+   */
+  public PlanarImage getThumbnailImage(int size, OpManager manager) {
+    PlanarImage img = getImage(manager);
+    return img == null ? null : getRenderedImage(img);
+  }
+
+  /**
+   * @param size the maximum size of the thumbnail
+   * @return the key identifying the thumbnail of this image between sessions, or null when the
+   *     thumbnail must not be kept (e.g. the image can be modified). The key must change when the
+   *     thumbnail is rendered differently (see {@link #getThumbnailImage(int, OpManager)}).
+   */
+  public String getThumbnailStoreKey(int size) {
+    return null;
+  }
+
+  /**
+   * @return a key that is equal for the images rendered the same way by {@link
+   *     #getRenderedImage(PlanarImage, Map)} with the same parameters (e.g. the frames of a
+   *     multi-frame image), so a rendering can be shared between them
+   */
+  public Object getRenderingKey() {
+    return this;
+  }
+
   /**
    * @param imageSource is the RenderedImage upon which transformation is done
    * @param params rendering parameters
@@ -381,7 +443,7 @@ public String toString() {
     return uri.toString();
   }
 
-  public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax) {
+  public PlanarImage getImage(OpManager manager, boolean findMinMax) {
     try {
       return getCacheImage(startImageLoading(), manager, findMinMax);
     } catch (OutOfMemoryError e1) {
@@ -397,7 +459,9 @@ public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax)
     }
   }
 
-  private PlanarImage getCacheImage(PlanarImage cacheImage, OpManager manager, boolean findMinMax) {
+  // The reading is outside the lock, only the processing of the loaded image is synchronized
+  private synchronized PlanarImage getCacheImage(
+      PlanarImage cacheImage, OpManager manager, boolean findMinMax) {
     if (findMinMax) {
       try {
         findMinMaxValues(cacheImage, true);
@@ -430,49 +494,136 @@ public PlanarImage getImage() {
 
   private PlanarImage startImageLoading() throws OutOfMemoryError {
     PlanarImage cacheImage;
-    if ((cacheImage = mCache.get(this)) == null && readable && setAsLoading()) {
+    if ((cacheImage = mCache.get(this)) == null && readable) {
       LOGGER.debug("Asking for reading image: {}", this);
-      Load ref = new Load();
-      Future<PlanarImage> future = IMAGE_LOADER.submit(ref);
-      PlanarImage img = null;
+      PendingLoad pending = acquireLoad();
       try {
-        img = future.get(45, TimeUnit.SECONDS);
-      } catch (InterruptedException | TimeoutException e) {
+        cacheImage = pending.result.get(45, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
         // Re-assert the thread's interrupted status
         Thread.currentThread().interrupt();
-        // We don't need the result, so cancel the task too
-        future.cancel(true);
+      } catch (TimeoutException | CancellationException e) {
+        LOGGER.warn("Reading pixel data has been aborted: {}", this);
       } catch (ExecutionException e) {
         if (e.getCause() instanceof OutOfMemoryError memoryError) {
-          setAsLoaded();
           throw memoryError;
-        } else {
-          readable = false;
-          LOGGER.error("Cannot read pixel data!: {}", this, e);
         }
+      } finally {
+        // The reading is cancelled when nobody else is waiting for it
+        releaseLoad(pending);
       }
+    }
+    return cacheImage;
+  }
+
+  /**
+   * Reads the original image without blocking the caller. The requests made while the image is
+   * being read share the same reading.
+   *
+   * <p>Cancelling the returned future does not affect the other requests, the reading is cancelled
+   * only when all the requests are cancelled before it starts. When the future is completed, the
+   * image is in the cache and {@link #getImage(OpManager)} returns without reading the image.
+   *
+   * @return the future of the original image, completed with null when the image cannot be read
+   */
+  public CompletableFuture<PlanarImage> getImageAsync() {
+    PlanarImage cacheImage = mCache.get(this);
+    if (cacheImage != null || !readable) {
+      return CompletableFuture.completedFuture(cacheImage);
+    }
+    PendingLoad pending = acquireLoad();
+    CompletableFuture<PlanarImage> result = pending.result.copy();
+    result.whenComplete((_, _) -> releaseLoad(pending));
+    return result;
+  }
+
+  private PendingLoad acquireLoad() {
+    PendingLoad pending;
+    boolean start = false;
+    synchronized (LOAD_LOCK) {
+      pending = pendingLoad;
+      if (pending == null) {
+        pending = new PendingLoad();
+        pendingLoad = pending;
+        setAsLoading();
+        start = true;
+      }
+      pending.waiters++;
+    }
+    if (start) {
+      // Submit outside the lock, the task can be run by the caller when the queue is full
+      PendingLoad p = pending;
+      Future<?> task = IMAGE_LOADER.submit(() -> load(p));
+      synchronized (LOAD_LOCK) {
+        p.task = task;
+      }
+    }
+    return pending;
+  }
+
+  private void releaseLoad(PendingLoad pending) {
+    Future<?> task;
+    synchronized (LOAD_LOCK) {
+      pending.waiters--;
+      if (pending.waiters > 0 || pending.result.isDone()) {
+        return;
+      }
+      // Nobody is waiting for the image, the next request will start a new reading
+      task = pending.task;
+      if (pendingLoad == pending) {
+        pendingLoad = null;
+        setAsLoaded();
+      }
+    }
+    // Do not interrupt a reading in progress, the image will be in the cache
+    if (task != null) {
+      task.cancel(false);
+    }
+    pending.result.cancel(false);
+  }
+
+  private void endLoad(PendingLoad pending) {
+    synchronized (LOAD_LOCK) {
+      if (pendingLoad == pending) {
+        pendingLoad = null;
+        setAsLoaded();
+      }
+    }
+  }
+
+  private void load(PendingLoad pending) {
+    if (pending.result.isDone()) {
+      return;
+    }
+    try {
+      PlanarImage img = loadImage();
       if (img != null) {
         readable = img.width() > 0;
         if (readable) {
           mCache.put(this, img);
-          cacheImage = img;
           this.setTag(TagW.ImageCache, true);
         }
       }
-      setAsLoaded();
+      pending.result.complete(readable ? img : null);
+    } catch (OutOfMemoryError e) {
+      pending.result.completeExceptionally(e);
+    } catch (Exception e) {
+      readable = false;
+      LOGGER.error("Cannot read pixel data!: {}", this, e);
+      pending.result.complete(null);
+    } finally {
+      endLoad(pending);
     }
-    return cacheImage;
   }
 
   public boolean isReadable() {
     return readable;
   }
 
-  class Load implements Callable<PlanarImage> {
-
-    @Override
-    public PlanarImage call() throws Exception {
-      return loadImage();
-    }
+  /** Reading of the image shared by all the requests made in the meantime. */
+  private static final class PendingLoad {
+    final CompletableFuture<PlanarImage> result = new CompletableFuture<>();
+    Future<?> task;
+    int waiters;
   }
 }
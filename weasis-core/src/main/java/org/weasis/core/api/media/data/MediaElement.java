@@ -12,12 +12,12 @@
 import java.io.File;
 import java.net.URI;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.weasis.core.util.FileUtil;
 
 public class MediaElement implements Taggable {
@@ -29,12 +29,13 @@ public class MediaElement implements Taggable {
   // Key to identify the media (the URI passed to the Reader can contain several media elements)
   protected final Object key;
 
-  private volatile boolean loading = false;
+  private final AtomicBoolean loading = new AtomicBoolean(false);
 
   public <E extends MediaElement> MediaElement(MediaReader<E> mediaIO, Object key) {
     this.mediaIO = Objects.requireNonNull(mediaIO);
     this.key = key;
-    this.tags = Optional.ofNullable(mediaIO.getMediaFragmentTags(key)).orElseGet(HashMap::new);
+    this.tags =
+        Optional.ofNullable(mediaIO.getMediaFragmentTags(key)).orElseGet(CompactTagMap::new);
   }
 
   public MediaReader<? extends MediaElement> getMediaReader() {
@@ -139,19 +140,15 @@ public String getMimeType() {
     return mediaIO.getMediaFragmentMimeType();
   }
 
-  protected final synchronized boolean setAsLoading() {
-    if (!loading) {
-      loading = true;
-      return loading;
-    }
-    return false;
+  protected final boolean setAsLoading() {
+    return loading.compareAndSet(false, true);
   }
 
-  protected final synchronized void setAsLoaded() {
-    loading = false;
+  protected final void setAsLoaded() {
+    loading.set(false);
   }
 
-  public final synchronized boolean isLoading() {
-    return loading;
+  public final boolean isLoading() {
+    return loading.get();
   }
 }
@@ -10,57 +10,113 @@
 package org.weasis.core.api.media.data;
 
 import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Cache of images limited by the size of their native memory.
+ *
+ * <p>The replacement policy is W-TinyLFU: a new image enters a small LRU window, then it must be
+ * used at least as frequently as the least recently used image of the main space to be kept. The
+ * main space is a segmented LRU (probation and protected), an image used again in probation is
+ * promoted to protected. The frequencies are estimated by a count-min sketch which is periodically
+ * halved, so one scroll through a long series does not flush the images used repeatedly by the
+ * other views.
+ *
+ * <p>The entries can be grouped (e.g. by series, see {@link #getGroup(Object)}): when the cache is
+ * full, the images of a group exceeding its budget are removed first. The pinned entries (e.g. the
+ * displayed images) are never removed by the replacement policy.
+ *
+ * <p>The values are read without locking; the policy is updated under a lock, and the reordering
+ * after a read is skipped when the lock is busy.
+ */
 public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<K, V> {
 
-  protected final Map<K, V> hash;
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.8;
+
+  private final Map<K, Node<K, V>> data;
+  private final Map<K, Integer> pins;
+  private final ReentrantLock policyLock;
+  private final AccessQueue<K, V> window;
+  private final AccessQueue<K, V> probation;
+  private final AccessQueue<K, V> protectedQueue;
+  private final FrequencySketch sketch;
+  private final Map<Object, Long> groupMemory;
+
   private final long maxNativeMemory;
+  private final long maxGroupMemory;
   private final AtomicLong useNativeMemory;
 
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder evictedBytes = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+
   protected NativeCache(long maxNativeMemory) {
+    this(maxNativeMemory, maxNativeMemory);
+  }
+
+  /**
+   * @param maxNativeMemory the maximum size of the images in bytes
+   * @param maxGroupMemory the size in bytes above which the images of a group are removed first
+   */
+  protected NativeCache(long maxNativeMemory, long maxGroupMemory) {
     this.maxNativeMemory = maxNativeMemory;
+    this.maxGroupMemory = maxGroupMemory;
     this.useNativeMemory = new AtomicLong(0);
-    this.hash = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true));
+    this.data = new ConcurrentHashMap<>(64);
+    this.pins = new ConcurrentHashMap<>();
+    this.policyLock = new ReentrantLock();
+    this.window = new AccessQueue<>();
+    this.probation = new AccessQueue<>();
+    this.protectedQueue = new AccessQueue<>();
+    this.sketch = new FrequencySketch(1024);
+    this.groupMemory = new HashMap<>();
   }
 
   @Override
   public V get(Object key) {
-    return hash.get(key);
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    if (policyLock.tryLock()) {
+      try {
+        sketch.increment(node.key);
+        onAccess(node);
+      } finally {
+        policyLock.unlock();
+      }
+    }
+    return node.value;
   }
 
   public boolean isMemoryAvailable() {
     return useNativeMemory.get() < maxNativeMemory;
   }
 
+  /** Removes 5% of the maximum memory plus the overflow, the pinned images are kept. */
   public void expungeStaleEntries() {
     if (!isMemoryAvailable()) {
-      synchronized (hash) {
-        List<K> remKeys = new ArrayList<>();
-        // 5% of max memory + diff
-        long maxfreeSize = maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory);
-        long freeSize = 0;
-
-        for (Map.Entry<K, V> e : hash.entrySet()) {
-          freeSize += physicalBytes(e.getValue());
-          if (freeSize > maxfreeSize) {
-            break;
-          }
-          remKeys.add(e.getKey());
-        }
-
-        for (K key : remKeys) {
-          V val = hash.remove(key);
-          useNativeMemory.addAndGet(-physicalBytes(val));
-          afterEntryRemove(key, val);
-        }
+      policyLock.lock();
+      try {
+        evict(maxNativeMemory - maxNativeMemory / 20, null);
+      } finally {
+        policyLock.unlock();
       }
     }
   }
@@ -74,53 +130,287 @@ private long physicalBytes(V val) {
 
   protected abstract void afterEntryRemove(K key, V val);
 
+  /**
+   * @param key the key of an entry
+   * @return the group of the entry for applying the group budget, or null
+   */
+  protected Object getGroup(K key) {
+    return null;
+  }
+
   @Override
   public V put(K key, V value) {
-    expungeStaleEntries();
-    V result = hash.put(key, value);
-    useNativeMemory.addAndGet(physicalBytes(value));
-    useNativeMemory.addAndGet(-physicalBytes(result));
-    return result;
+    Node<K, V> node = new Node<>(key, value, physicalBytes(value), getGroup(key));
+    Node<K, V> old = data.put(key, node);
+    policyLock.lock();
+    try {
+      if (old != null) {
+        unlink(old);
+      }
+      sketch.increment(key);
+      // Not linked when replaced or removed by another thread in the meantime
+      if (data.get(key) == node) {
+        link(window, node);
+        evict(maxNativeMemory, node);
+      }
+    } finally {
+      policyLock.unlock();
+    }
+    return old == null ? null : old.value;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public V remove(Object key) {
-    V val = hash.remove(key);
-    useNativeMemory.addAndGet(-physicalBytes(val));
-    afterEntryRemove((K) key, val);
-    return val;
+    Node<K, V> node = data.remove(key);
+    if (node == null) {
+      afterEntryRemove((K) key, null);
+      return null;
+    }
+    unlinkRemoved(node);
+    return node.value;
+  }
+
+  private boolean removeNode(Node<K, V> node) {
+    if (!data.remove(node.key, node)) {
+      return false;
+    }
+    unlinkRemoved(node);
+    return true;
+  }
+
+  private void unlinkRemoved(Node<K, V> node) {
+    policyLock.lock();
+    try {
+      unlink(node);
+    } finally {
+      policyLock.unlock();
+    }
+    afterEntryRemove(node.key, node.value);
   }
 
   @Override
   public void clear() {
-    hash.clear();
-    useNativeMemory.set(0);
+    policyLock.lock();
+    try {
+      data.clear();
+      window.clear();
+      probation.clear();
+      protectedQueue.clear();
+      groupMemory.clear();
+      useNativeMemory.set(0);
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /**
+   * Prevents the replacement policy from removing an entry, for instance while the image is
+   * displayed. The key can be pinned before its value is in the cache. Each call must be followed
+   * by a call to {@link #unpin(Object)}.
+   */
+  public void pin(K key) {
+    if (key != null) {
+      pins.merge(key, 1, Integer::sum);
+    }
+  }
+
+  public void unpin(K key) {
+    if (key != null) {
+      pins.computeIfPresent(key, (_, v) -> v > 1 ? v - 1 : null);
+    }
+  }
+
+  public boolean isPinned(K key) {
+    return pins.containsKey(key);
+  }
+
+  public Statistics getStatistics() {
+    return new Statistics(
+        hitCount.sum(),
+        missCount.sum(),
+        evictionCount.sum(),
+        evictedBytes.sum(),
+        rejectedCount.sum(),
+        useNativeMemory.get(),
+        data.size(),
+        maxNativeMemory,
+        maxGroupMemory);
+  }
+
+  private void onAccess(Node<K, V> node) {
+    if (node.queue == null) {
+      return; // Removed in the meantime
+    }
+    if (node.queue == probation) {
+      // Used again, promote to the protected space
+      unlinkFromQueue(node);
+      linkToQueue(protectedQueue, node);
+      long maxProtected = (long) ((maxNativeMemory - getMaxWindow()) * PROTECTED_RATIO);
+      while (protectedQueue.bytes > maxProtected && protectedQueue.head != node) {
+        Node<K, V> demoted = protectedQueue.head;
+        unlinkFromQueue(demoted);
+        linkToQueue(probation, demoted);
+      }
+    } else {
+      node.queue.moveToTail(node);
+    }
+  }
+
+  private long getMaxWindow() {
+    return (long) (maxNativeMemory * WINDOW_RATIO);
+  }
+
+  private void link(AccessQueue<K, V> queue, Node<K, V> node) {
+    linkToQueue(queue, node);
+    useNativeMemory.addAndGet(node.bytes);
+    if (node.group != null) {
+      groupMemory.merge(node.group, node.bytes, Long::sum);
+    }
+  }
+
+  private void unlink(Node<K, V> node) {
+    if (node.queue == null) {
+      return;
+    }
+    unlinkFromQueue(node);
+    useNativeMemory.addAndGet(-node.bytes);
+    if (node.group != null) {
+      groupMemory.computeIfPresent(
+          node.group, (_, v) -> v - node.bytes > 0 ? v - node.bytes : null);
+    }
+  }
+
+  private void linkToQueue(AccessQueue<K, V> queue, Node<K, V> node) {
+    queue.addLast(node);
+    node.queue = queue;
+  }
+
+  private void unlinkFromQueue(Node<K, V> node) {
+    node.queue.remove(node);
+    node.queue = null;
+  }
+
+  private boolean isEvictable(Node<K, V> node, Node<K, V> added) {
+    return node != added && !pins.containsKey(node.key);
+  }
+
+  /**
+   * Moves the overflow of the window to probation, then removes the entries until the memory is
+   * below the limit. A candidate coming from the window is kept only when it is more frequent than
+   * the victim of probation.
+   *
+   * @param limit the maximum memory after eviction
+   * @param added the entry being added, it cannot be removed
+   */
+  private void evict(long limit, Node<K, V> added) {
+    Node<K, V> candidate = null;
+    long maxWindow = getMaxWindow();
+    while (window.bytes > maxWindow && window.head != null && window.head != added) {
+      Node<K, V> n = window.head;
+      unlinkFromQueue(n);
+      linkToQueue(probation, n);
+      if (candidate == null) {
+        candidate = n;
+      }
+    }
+
+    while (useNativeMemory.get() > limit) {
+      Node<K, V> victim = findOverBudgetVictim(added);
+      if (victim == null) {
+        Node<K, V> c = candidate;
+        Node<K, V> oldest = probation.first(n -> isEvictable(n, added) && n != c);
+        boolean hasCandidate = c != null && c.queue == probation && isEvictable(c, added);
+        if (hasCandidate && oldest != null) {
+          // On equality, the candidate replaces the victim (LRU order)
+          if (sketch.frequency(c.key) >= sketch.frequency(oldest.key)) {
+            victim = oldest;
+          } else {
+            victim = c;
+            rejectedCount.increment();
+          }
+        } else {
+          victim = oldest != null ? oldest : (hasCandidate ? c : null);
+        }
+        if (victim == null) {
+          victim = protectedQueue.first(n -> isEvictable(n, added));
+        }
+        if (victim == null) {
+          victim = window.first(n -> isEvictable(n, added));
+        }
+        if (victim == null) {
+          return; // Only pinned entries
+        }
+        if (victim == candidate) {
+          candidate = candidate.next;
+        }
+      } else if (victim == candidate) {
+        candidate = candidate.next;
+      }
+      evictNode(victim);
+    }
+  }
+
+  private Node<K, V> findOverBudgetVictim(Node<K, V> added) {
+    if (groupMemory.size() < 2) {
+      return null;
+    }
+    Object group = null;
+    for (Map.Entry<Object, Long> entry : groupMemory.entrySet()) {
+      if (entry.getValue() > maxGroupMemory) {
+        group = entry.getKey();
+        break;
+      }
+    }
+    if (group == null) {
+      return null;
+    }
+    Object g = group;
+    Node<K, V> victim = probation.first(n -> g.equals(n.group) && isEvictable(n, added));
+    if (victim == null) {
+      victim = window.first(n -> g.equals(n.group) && isEvictable(n, added));
+    }
+    if (victim == null) {
+      victim = protectedQueue.first(n -> g.equals(n.group) && isEvictable(n, added));
+    }
+    return victim;
+  }
+
+  private void evictNode(Node<K, V> node) {
+    unlink(node);
+    data.remove(node.key, node);
+    evictionCount.increment();
+    evictedBytes.add(node.bytes);
+    afterEntryRemove(node.key, node.value);
   }
 
   @Override
   public int size() {
-    return hash.size();
+    return data.size();
   }
 
+  /**
+   * Returns a view of the entries backed by the cache. Removing an entry from the view or from its
+   * iterator removes it from the cache. The entries do not support {@code setValue}.
+   */
   @Override
   public Set<Entry<K, V>> entrySet() {
-    return hash.entrySet();
+    return new EntrySet();
   }
 
   @Override
   public boolean containsKey(Object key) {
-    return hash.containsKey(key);
+    return data.containsKey(key);
   }
 
   @Override
   public boolean containsValue(Object value) {
-    return hash.containsValue(value);
+    return data.values().stream().anyMatch(n -> n.value.equals(value));
   }
 
   @Override
   public int hashCode() {
-    return hash.hashCode();
+    return data.hashCode();
   }
 
   @Override
@@ -130,6 +420,236 @@ public boolean equals(Object obj) {
     if (getClass() != obj.getClass()) return false;
     @SuppressWarnings("rawtypes")
     NativeCache other = (NativeCache) obj;
-    return hash.equals(other.hash);
+    return data.equals(other.data);
+  }
+
+  /**
+   * Counters of the cache since its creation.
+   *
+   * @param hitCount the number of reads returning a value
+   * @param missCount the number of reads without value
+   * @param evictionCount the number of entries removed by the replacement policy
+   * @param evictedBytes the size of the entries removed by the replacement policy
+   * @param rejectedCount the number of new entries removed because they were less frequent than the
+   *     existing ones
+   * @param residentBytes the current size of the entries
+   * @param size the current number of entries
+   * @param maxBytes the maximum size of the entries
+   * @param maxGroupBytes the size above which the entries of a group are removed first
+   */
+  public record Statistics(
+      long hitCount,
+      long missCount,
+      long evictionCount,
+      long evictedBytes,
+      long rejectedCount,
+      long residentBytes,
+      int size,
+      long maxBytes,
+      long maxGroupBytes) {
+
+    public double hitRate() {
+      long requests = hitCount + missCount;
+      return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      Iterator<Node<K, V>> nodes = data.values().iterator();
+      return new Iterator<>() {
+        private Node<K, V> last;
+
+        @Override
+        public boolean hasNext() {
+          return nodes.hasNext();
+        }
+
+        @Override
+        public Entry<K, V> next() {
+          last = nodes.next();
+          return new SimpleImmutableEntry<>(last.key, last.value);
+        }
+
+        @Override
+        public void remove() {
+          if (last == null) {
+            throw new IllegalStateException();
+          }
+          removeNode(last);
+          last = null;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return data.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof Entry<?, ?> e && getNode(e) != null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (o instanceof Entry<?, ?> e) {
+        Node<K, V> node = getNode(e);
+        return node != null && removeNode(node);
+      }
+      return false;
+    }
+
+    @Override
+    public void clear() {
+      NativeCache.this.clear();
+    }
+
+    private Node<K, V> getNode(Entry<?, ?> e) {
+      Node<K, V> node = data.get(e.getKey());
+      return node != null && Objects.equals(node.value, e.getValue()) ? node : null;
+    }
+  }
+
+  private static final class Node<K, V> {
+    final K key;
+    final V value;
+    final long bytes;
+    final Object group;
+    AccessQueue<K, V> queue;
+    Node<K, V> prev;
+    Node<K, V> next;
+
+    Node(K key, V value, long bytes, Object group) {
+      this.key = key;
+      this.value = value;
+      this.bytes = bytes;
+      this.group = group;
+    }
+  }
+
+  /** Doubly linked list of the entries, from the least to the most recently used. */
+  private static final class AccessQueue<K, V> {
+    Node<K, V> head;
+    Node<K, V> tail;
+    long bytes;
+
+    void addLast(Node<K, V> node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+      bytes += node.bytes;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node.prev == null) {
+        head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      bytes -= node.bytes;
+    }
+
+    void moveToTail(Node<K, V> node) {
+      if (tail != node) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    Node<K, V> first(Predicate<Node<K, V>> filter) {
+      for (Node<K, V> n = head; n != null; n = n.next) {
+        if (filter.test(n)) {
+          return n;
+        }
+      }
+      return null;
+    }
+
+    void clear() {
+      for (Node<K, V> n = head; n != null; ) {
+        Node<K, V> next = n.next;
+        n.prev = null;
+        n.next = null;
+        n.queue = null;
+        n = next;
+      }
+      head = null;
+      tail = null;
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Count-min sketch with 4 rows of 4-bit counters. All the counters are halved after a number of
+   * increments proportional to the width, so the old accesses are progressively forgotten.
+   */
+  static final class FrequencySketch {
+    private static final int[] SEEDS = {0x97cb3127, 0xb5ad4ece, 0x7a9c1f5d, 0xe3b1c4a9};
+    private static final int MAX_COUNT = 15;
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int width) {
+      int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+      this.table = new byte[SEEDS.length][size];
+      this.mask = size - 1;
+      this.sampleSize = 10 * size;
+    }
+
+    private int index(Object key, int row) {
+      int h = key.hashCode() * SEEDS[row];
+      h ^= h >>> 16;
+      return h & mask;
+    }
+
+    int frequency(Object key) {
+      int min = MAX_COUNT;
+      for (int i = 0; i < table.length; i++) {
+        min = Math.min(min, table[i][index(key, i)]);
+      }
+      return min;
+    }
+
+    void increment(Object key) {
+      boolean added = false;
+      for (int i = 0; i < table.length; i++) {
+        int idx = index(key, i);
+        if (table[i][idx] < MAX_COUNT) {
+          table[i][idx]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    private void reset() {
+      for (byte[] row : table) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = (byte) (row[i] >>> 1);
+        }
+      }
+      additions /= 2;
+    }
   }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Tag map storing only its own modifications on top of a base map shared by several elements (e.g.
+ * the frames of a multiframe object). The base map is never modified: the new values are stored in
+ * the overlay and the removed keys are hidden.
+ *
+ * <p>Like {@link HashMap}, this class is not synchronized and accepts null values.
+ */
+public final class OverlayTagMap extends AbstractMap<TagW, Object> {
+
+  private final Map<TagW, Object> base;
+  private final Map<TagW, Object> overlay;
+  private final Set<TagW> removed;
+  private boolean baseCleared;
+
+  /**
+   * @param base the shared tags, must not be modified afterward
+   */
+  public OverlayTagMap(Map<TagW, Object> base) {
+    this.base = Objects.requireNonNull(base);
+    this.overlay = new HashMap<>(8);
+    this.removed = new HashSet<>(4);
+  }
+
+  private boolean isInBase(Object key) {
+    return !baseCleared && !removed.contains(key) && base.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (overlay.containsKey(key)) {
+      return overlay.get(key);
+    }
+    return isInBase(key) ? base.get(key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return overlay.containsKey(key) || isInBase(key);
+  }
+
+  @Override
+  public Object put(TagW key, Object value) {
+    Object previous = get(key);
+    overlay.put(key, value);
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    Object previous = get(key);
+    overlay.remove(key);
+    if (!baseCleared && base.containsKey(key) && key instanceof TagW tag) {
+      removed.add(tag);
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    overlay.clear();
+    removed.clear();
+    baseCleared = true;
+  }
+
+  @Override
+  public int size() {
+    int size = overlay.size();
+    if (!baseCleared) {
+      for (TagW key : base.keySet()) {
+        if (!overlay.containsKey(key) && !removed.contains(key)) {
+          size++;
+        }
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public Set<Entry<TagW, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<TagW, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return OverlayTagMap.this.size();
+      }
+    };
+  }
+
+  /** Iterates over the overlay then over the visible entries of the base. */
+  private final class EntryIterator implements Iterator<Entry<TagW, Object>> {
+    private final List<Entry<TagW, Object>> entries;
+    private int index;
+    private Entry<TagW, Object> last;
+
+    EntryIterator() {
+      this.entries = new ArrayList<>(overlay.entrySet());
+      if (!baseCleared) {
+        for (Entry<TagW, Object> e : base.entrySet()) {
+          if (!overlay.containsKey(e.getKey()) && !removed.contains(e.getKey())) {
+            entries.add(e);
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < entries.size();
+    }
+
+    @Override
+    public Entry<TagW, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = new OverlayEntry(entries.get(index++));
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      OverlayTagMap.this.remove(last.getKey());
+      last = null;
+    }
+  }
+
+  /** Entry writing its new value in the overlay. */
+  private final class OverlayEntry extends SimpleEntry<TagW, Object> {
+    OverlayEntry(Entry<TagW, Object> entry) {
+      super(entry);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      put(getKey(), value);
+      return super.setValue(value);
+    }
+  }
+}
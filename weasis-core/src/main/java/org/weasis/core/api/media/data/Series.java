@@ -20,11 +20,14 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,7 +53,9 @@
 
   private PropertyChangeSupport propertyChange = null;
   protected final List<E> medias;
+  // Sorted lists for the comparators used by the views, guarded by sortedLock
   protected final Map<Comparator<E>, List<E>> sortedMedias = new HashMap<>(6);
+  protected final ReadWriteLock sortedLock = new ReentrantReadWriteLock();
   protected final Comparator<E> mediaOrder;
   protected SeriesImporter seriesLoader;
   private long fileSize;
@@ -91,9 +96,94 @@ private static DataFlavor createConstant(String mt, String prn) {
   }
 
   protected void resetSortedMediasMap() {
-    if (!sortedMedias.isEmpty()) {
-      sortedMedias.clear();
+    sortedLock.writeLock().lock();
+    try {
+      if (!sortedMedias.isEmpty()) {
+        sortedMedias.clear();
+      }
+    } finally {
+      sortedLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds medias and inserts them in the sorted lists. A sorted list is never modified, it is
+   * replaced by a new list so that the lists returned before remain consistent for their readers.
+   */
+  private void addMedias(Collection<? extends E> added, Runnable adding) {
+    sortedLock.writeLock().lock();
+    try {
+      synchronized (medias) {
+        adding.run();
+        if (!sortedMedias.isEmpty()) {
+          Map<E, Integer> positions = null;
+          for (Map.Entry<Comparator<E>, List<E>> entry : sortedMedias.entrySet()) {
+            List<E> sorted = new ArrayList<>(entry.getValue().size() + added.size());
+            sorted.addAll(entry.getValue());
+            for (E media : added) {
+              positions = insert(sorted, media, entry.getKey(), positions);
+            }
+            entry.setValue(sorted);
+          }
+        }
+      }
+    } finally {
+      sortedLock.writeLock().unlock();
+    }
+    mediasAdded(added);
+  }
+
+  /**
+   * Called after adding medias to the series, when the sorted lists already contain them.
+   *
+   * @param added the medias added to the series
+   */
+  protected void mediasAdded(Collection<? extends E> added) {
+    // Do nothing by default
+  }
+
+  /**
+   * Inserts a media at the position it would have after a stable sort of the media list: the
+   * elements still equal are ordered by their position in the media list.
+   *
+   * @return the positions in the media list, computed only when required
+   */
+  private Map<E, Integer> insert(
+      List<E> sorted, E media, Comparator<E> comparator, Map<E, Integer> positions) {
+    int low = lowerBound(sorted, media, comparator);
+    int high = low;
+    while (high < sorted.size() && comparator.compare(sorted.get(high), media) == 0) {
+      high++;
+    }
+    Map<E, Integer> pos = positions;
+    if (low < high) {
+      if (pos == null) {
+        pos = new IdentityHashMap<>(medias.size() * 2);
+        for (int i = 0; i < medias.size(); i++) {
+          pos.put(medias.get(i), i);
+        }
+      }
+      int index = pos.getOrDefault(media, Integer.MAX_VALUE);
+      while (low < high && pos.getOrDefault(sorted.get(low), Integer.MAX_VALUE) < index) {
+        low++;
+      }
     }
+    sorted.add(low, media);
+    return pos;
+  }
+
+  private static <E> int lowerBound(List<E> sorted, E media, Comparator<E> comparator) {
+    int low = 0;
+    int high = sorted.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(sorted.get(mid), media) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
   }
 
   /**
@@ -109,39 +199,52 @@ public void removeAllMedias() {
   public List<E> getSortedMedias(Comparator<E> comparator) {
     // Do not sort when it is the default order.
     if (comparator != null && !comparator.equals(mediaOrder)) {
-      return sortedMedias.computeIfAbsent(
-          comparator,
-          k -> {
-            List<E> sorted = new ArrayList<>(medias);
-            sorted.sort(comparator);
-            return sorted;
-          });
+      sortedLock.readLock().lock();
+      try {
+        List<E> sorted = sortedMedias.get(comparator);
+        if (sorted != null) {
+          return sorted;
+        }
+      } finally {
+        sortedLock.readLock().unlock();
+      }
+      sortedLock.writeLock().lock();
+      try {
+        return sortedMedias.computeIfAbsent(
+            comparator,
+            k -> {
+              List<E> sorted;
+              synchronized (medias) {
+                sorted = new ArrayList<>(medias);
+              }
+              sorted.sort(comparator);
+              return sorted;
+            });
+      } finally {
+        sortedLock.writeLock().unlock();
+      }
     }
     return medias;
   }
 
   @Override
   public void add(E media) {
-    medias.add(media);
-    resetSortedMediasMap();
+    addMedias(List.of(media), () -> medias.add(media));
   }
 
   @Override
   public void add(int index, E media) {
-    medias.add(index, media);
-    resetSortedMediasMap();
+    addMedias(List.of(media), () -> medias.add(index, media));
   }
 
   @Override
   public void addAll(Collection<? extends E> c) {
-    medias.addAll(c);
-    resetSortedMediasMap();
+    addMedias(c, () -> medias.addAll(c));
   }
 
   @Override
   public void addAll(int index, Collection<? extends E> c) {
-    medias.addAll(index, c);
-    resetSortedMediasMap();
+    addMedias(c, () -> medias.addAll(index, c));
   }
 
   @Override
@@ -278,16 +278,28 @@ private void loadThumbnail(
           }
         }
       }
+      // The thumbnails built with the default rendering are kept between sessions
+      String storeName = noPath && opManager == null ? ThumbnailStore.getFileName(media) : null;
+      if (storeName != null) {
+        File stored = ThumbnailStore.get(storeName);
+        if (stored != null) {
+          file = stored;
+          noPath = false;
+          thumbnailPath = file;
+        }
+      }
       if (noPath) {
         if (media instanceof final ImageElement image) {
-          PlanarImage imgPl = image.getImage(opManager);
-          if (imgPl != null) {
-            PlanarImage img = image.getRenderedImage(imgPl);
+          PlanarImage img = image.getThumbnailImage(MAX_SIZE, opManager);
+          if (img != null) {
             final PlanarImage thumb = createThumbnail(img);
             if (thumb != null) {
               try {
                 file =
-                    File.createTempFile("tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR); // NON-NLS
+                    storeName == null
+                        ? File.createTempFile(
+                            "tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR) // NON-NLS
+                        : ThumbnailStore.createTempFile();
               } catch (IOException e) {
                 LOGGER.error("Cannot create file for thumbnail!", e);
               }
@@ -301,9 +313,14 @@ private void loadThumbnail(
                    *
                    * If writeImage returns false, it could be an out of memory exception.
                    */
-                  image.setTag(TagW.ThumbnailPath, file.getPath());
-                  thumbnailPath = file;
-                  return;
+                  if (storeName != null) {
+                    file = ThumbnailStore.put(file, storeName);
+                  }
+                  if (file != null) {
+                    image.setTag(TagW.ThumbnailPath, file.getPath());
+                    thumbnailPath = file;
+                    return;
+                  }
                 }
               }
 
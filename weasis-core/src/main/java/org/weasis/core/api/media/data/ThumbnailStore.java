@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * Persistent store of the thumbnails, kept between sessions in the Weasis directory. A thumbnail is
+ * identified by the key of the image (see {@link ImageElement#getThumbnailStoreKey(int)}), which
+ * includes the way the thumbnail is rendered, and by the size of the thumbnail.
+ *
+ * <p>The store is disabled by default. It is enabled by setting the maximum total size of the files
+ * in the preference {@link #MAX_SIZE}, the least recently used thumbnails are removed first.
+ */
+public final class ThumbnailStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailStore.class);
+
+  /** Maximum size (in MB) of the stored thumbnails, 0 (default) disables the store. */
+  public static final String MAX_SIZE = "explorer.thumbnail.store.size";
+
+  static final File STORE_DIR =
+      new File(AppProperties.WEASIS_PATH, "cache" + File.separator + "thumbnails"); // NON-NLS
+
+  // Version of the rendering, must be changed when the thumbnails are built differently
+  private static final int RENDERING_VERSION = 2;
+  private static final String EXTENSION = ".jpg"; // NON-NLS
+  private static final String TEMP_PREFIX = "tmp_"; // NON-NLS
+
+  // File name and size of the thumbnails, in access order
+  private static final Map<String, Long> ENTRIES = new LinkedHashMap<>(256, 0.75f, true);
+  private static long totalSize;
+  private static long maxSize = -1;
+
+  private ThumbnailStore() {}
+
+  private static synchronized long getMaxSize() {
+    if (maxSize < 0) {
+      maxSize =
+          GuiUtils.getUICore().getSystemPreferences().getIntProperty(MAX_SIZE, 0) * 1024L * 1024L;
+      if (maxSize > 0) {
+        loadEntries();
+      }
+    }
+    return maxSize;
+  }
+
+  private static void loadEntries() {
+    STORE_DIR.mkdirs();
+    File[] files = STORE_DIR.listFiles();
+    if (files != null) {
+      Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+      for (File f : files) {
+        String name = f.getName();
+        if (name.endsWith(EXTENSION) && !name.startsWith(TEMP_PREFIX)) {
+          ENTRIES.put(name, f.length());
+          totalSize += f.length();
+        } else {
+          // Incomplete file
+          FileUtil.delete(f);
+        }
+      }
+      evict(null);
+    }
+  }
+
+  /**
+   * @param media the media of the thumbnail
+   * @return the name of the thumbnail file, or null when the thumbnail must not be stored
+   */
+  static String getFileName(MediaElement media) {
+    if (!(media instanceof ImageElement image) || getMaxSize() <= 0) {
+      return null;
+    }
+    String id = image.getThumbnailStoreKey(Thumbnail.MAX_SIZE);
+    if (id == null) {
+      return null;
+    }
+    String key = id + "/" + Thumbnail.MAX_SIZE + "/" + RENDERING_VERSION;
+    return StringUtil.bytesToMD5(key.getBytes(StandardCharsets.UTF_8)) + EXTENSION;
+  }
+
+  /**
+   * @param name the name of the thumbnail file
+   * @return the stored thumbnail, or null when it is not in the store
+   */
+  static File get(String name) {
+    if (name == null) {
+      return null;
+    }
+    synchronized (ThumbnailStore.class) {
+      if (ENTRIES.get(name) == null) {
+        return null;
+      }
+    }
+    File file = new File(STORE_DIR, name);
+    if (file.canRead()) {
+      // Keep the access order for the next sessions
+      file.setLastModified(System.currentTimeMillis());
+      return file;
+    }
+    synchronized (ThumbnailStore.class) {
+      remove(name);
+    }
+    return null;
+  }
+
+  /**
+   * Creates the temporary file for writing a new thumbnail.
+   *
+   * @return the file, to pass to {@link #put(File, String)} after writing the thumbnail
+   * @throws IOException when the file cannot be created
+   */
+  static File createTempFile() throws IOException {
+    return Files.createTempFile(STORE_DIR.toPath(), TEMP_PREFIX, EXTENSION).toFile();
+  }
+
+  /**
+   * Adds a new thumbnail and removes the least recently used thumbnails if needed.
+   *
+   * @param tempFile the file written by the caller, it is moved into the store
+   * @param name the name of the thumbnail file
+   * @return the thumbnail file in the store, or null when it cannot be stored
+   */
+  static File put(File tempFile, String name) {
+    Path path = STORE_DIR.toPath().resolve(name);
+    try {
+      long size = Files.size(tempFile.toPath());
+      synchronized (ThumbnailStore.class) {
+        Files.move(tempFile.toPath(), path, StandardCopyOption.REPLACE_EXISTING);
+        Long previous = ENTRIES.put(name, size);
+        totalSize += size - (previous == null ? 0 : previous);
+        evict(name);
+      }
+      return path.toFile();
+    } catch (IOException e) {
+      LOGGER.warn("Cannot store the thumbnail {}: {}", path, e.getMessage());
+      FileUtil.delete(tempFile);
+      return null;
+    }
+  }
+
+  private static void evict(String keep) {
+    Iterator<Map.Entry<String, Long>> it = ENTRIES.entrySet().iterator();
+    while (totalSize > maxSize && it.hasNext()) {
+      Map.Entry<String, Long> entry = it.next();
+      if (!entry.getKey().equals(keep)) {
+        it.remove();
+        totalSize -= entry.getValue();
+        FileUtil.delete(new File(STORE_DIR, entry.getKey()));
+      }
+    }
+  }
+
+  private static void remove(String name) {
+    Long size = ENTRIES.remove(name);
+    if (size != null) {
+      totalSize -= size;
+    }
+    FileUtil.delete(new File(STORE_DIR, name));
+  }
+}
@@ -11,6 +11,8 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
 
 public interface HttpResponse extends AutoCloseable {
   InputStream getInputStream() throws IOException;
@@ -20,4 +22,8 @@ public interface HttpResponse extends AutoCloseable {
   String getHeaderField(String key);
 
   String getResponseMessage();
+
+  default Map<String, String> getHeaderFields() {
+    return Collections.emptyMap();
+  }
 }
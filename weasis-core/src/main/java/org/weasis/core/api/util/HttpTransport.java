@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Executes the HTTP GET requests of {@link NetworkUtil#getHttpResponse} and of the authenticated
+ * HTTP client. An implementation can be installed with {@link
+ * NetworkUtil#setHttpTransport(HttpTransport)}, otherwise a new {@link java.net.HttpURLConnection}
+ * is opened for each request.
+ */
+public interface HttpTransport extends AutoCloseable {
+
+  /**
+   * Executes a GET request.
+   *
+   * @param url the URL of the request
+   * @param headers the request headers
+   * @param timeout the maximum time in milliseconds to wait for the response headers
+   * @return the response, which must be closed to release the connection
+   * @throws IOException if the request cannot be executed
+   */
+  HttpResponse get(String url, Map<String, String> headers, int timeout) throws IOException;
+
+  @Override
+  void close();
+}
@@ -24,6 +24,10 @@
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -40,8 +44,31 @@ public class NetworkUtil {
 
   private static final int MAX_REDIRECTS = 3;
 
+  private static volatile HttpTransport httpTransport;
+
   private NetworkUtil() {}
 
+  /**
+   * @return the transport executing the HTTP GET requests, or null if a new HttpURLConnection is
+   *     opened for each request
+   */
+  public static HttpTransport getHttpTransport() {
+    return httpTransport;
+  }
+
+  /**
+   * Sets the transport executing the HTTP GET requests. The previous transport is closed.
+   *
+   * @param transport the new transport, null to open a new HttpURLConnection for each request
+   */
+  public static void setHttpTransport(HttpTransport transport) {
+    HttpTransport old = httpTransport;
+    httpTransport = transport;
+    if (old != null && old != transport) {
+      old.close();
+    }
+  }
+
   public static int getUrlConnectionTimeout() {
     return StringUtil.getInt(System.getProperty("UrlConnectionTimeout"), 5000);
   }
@@ -77,6 +104,10 @@ public static HttpResponse getHttpResponse(
       String url, URLParameters urlParameters, AuthMethod authMethod, OAuthRequest authRequest)
       throws IOException {
     if (authMethod == null || OAuth2ServiceFactory.noAuth.equals(authMethod)) {
+      HttpTransport transport = httpTransport;
+      if (transport != null && !urlParameters.isHttpPost() && url.startsWith("http")) { // NON-NLS
+        return prepareTransport(transport, url, urlParameters);
+      }
       return prepareConnection(new URL(url).openConnection(), urlParameters);
     }
     OAuthRequest request;
@@ -128,6 +159,32 @@ private static AuthResponse prepareAuthConnection(
     }
   }
 
+  private static HttpResponse prepareTransport(
+      HttpTransport transport, String url, URLParameters urlParameters) throws IOException {
+    Map<String, String> headers = new HashMap<>(urlParameters.getUnmodifiableHeaders());
+    headers.put("User-Agent", AppProperties.WEASIS_USER_AGENT); // NON-NLS
+    headers.put("Weasis-User", AppProperties.WEASIS_USER); // NON-NLS
+    if (urlParameters.getIfModifiedSince() > 0) {
+      headers.put(
+          "If-Modified-Since", // NON-NLS
+          DateTimeFormatter.RFC_1123_DATE_TIME.format(
+              Instant.ofEpochMilli(urlParameters.getIfModifiedSince()).atZone(ZoneOffset.UTC)));
+    }
+    HttpResponse response = transport.get(url, headers, urlParameters.getReadTimeout());
+    int code = response.getResponseCode();
+    // Same behavior as readResponse(), the redirections are followed by the transport
+    if (code < HttpURLConnection.HTTP_OK || code >= HttpURLConnection.HTTP_MULT_CHOICE) {
+      LOGGER.warn("http Status {} - {}", code, url);
+      try {
+        response.close();
+      } catch (Exception e) {
+        LOGGER.debug("Cannot close the response", e);
+      }
+      throw new StreamIOException("http Status " + code);
+    }
+    return response;
+  }
+
   private static ClosableURLConnection prepareConnection(
       URLConnection urlConnection, URLParameters urlParameters) throws StreamIOException {
     Map<String, String> headers = urlParameters.getUnmodifiableHeaders();
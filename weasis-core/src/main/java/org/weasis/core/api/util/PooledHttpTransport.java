@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.service.WProperties;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StreamIOException;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * HTTP transport sharing one {@link HttpClient} for all the requests. The client keeps the
+ * connections alive between the requests and multiplexes the requests on a single connection when
+ * the server supports HTTP/2, otherwise it falls back to HTTP/1.1 with a connection pool.
+ *
+ * <p>The number of requests executed simultaneously on the same host is limited, the other requests
+ * wait until a response is closed, during {@link #P_HTTP_POOL_ACQUIRE_TIMEOUT} at most. The timeout
+ * of the request is also applied to each read of the response body, like the read timeout of a
+ * socket.
+ *
+ * <p>The redirections are always followed, including from HTTPS to HTTP, like {@link
+ * NetworkUtil#readResponse} does with HttpURLConnection.
+ */
+public class PooledHttpTransport implements HttpTransport {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledHttpTransport.class);
+
+  public static final String P_HTTP_POOL = "weasis.http.pool";
+  public static final String P_HTTP_POOL_MAX_HOST = "weasis.http.pool.max.host.connections";
+  public static final String P_HTTP_POOL_ACQUIRE_TIMEOUT = "weasis.http.pool.acquire.timeout";
+  public static final String P_HTTP_POOL_KEEP_ALIVE = "weasis.http.pool.keepalive.timeout";
+  public static final String P_HTTP_VERSION = "weasis.http.version";
+
+  public static final int DEFAULT_MAX_HOST_CONNECTIONS = 6;
+  public static final int DEFAULT_ACQUIRE_TIMEOUT = 60;
+  public static final int DEFAULT_KEEP_ALIVE_TIMEOUT = 30;
+
+  // Headers that are set by the HTTP client and cannot be overridden
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade"); // NON-NLS
+
+  private final HttpClient client;
+  private final int maxHostConnections;
+  private final long acquireTimeout;
+  private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+  private final Set<Response> openResponses = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService readTimeoutChecker;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong http2Responses = new AtomicLong();
+  private final AtomicLong waitingTime = new AtomicLong();
+  private final AtomicInteger activeStreams = new AtomicInteger();
+  private final AtomicInteger peakStreams = new AtomicInteger();
+
+  /**
+   * @param version the preferred HTTP version
+   * @param maxHostConnections the maximum number of simultaneous requests to the same host
+   * @param acquireTimeout the maximum time in seconds waiting for the per-host limit
+   * @param connectTimeout the connection timeout in milliseconds
+   */
+  public PooledHttpTransport(
+      Version version, int maxHostConnections, int acquireTimeout, int connectTimeout) {
+    this.maxHostConnections = Math.max(1, maxHostConnections);
+    this.acquireTimeout = TimeUnit.SECONDS.toMillis(Math.max(1, acquireTimeout));
+    HttpClient.Builder builder =
+        HttpClient.newBuilder()
+            .version(version == null ? Version.HTTP_2 : version)
+            .followRedirects(Redirect.ALWAYS)
+            .connectTimeout(Duration.ofMillis(connectTimeout));
+    // Use the proxy configuration of the system properties like HttpURLConnection
+    ProxySelector proxySelector = ProxySelector.getDefault();
+    if (proxySelector != null) {
+      builder.proxy(proxySelector);
+    }
+    CookieHandler cookieHandler = CookieHandler.getDefault();
+    if (cookieHandler != null) {
+      builder.cookieHandler(cookieHandler);
+    }
+    Authenticator authenticator = Authenticator.getDefault();
+    if (authenticator != null) {
+      builder.authenticator(authenticator);
+    }
+    this.client = builder.build();
+    this.readTimeoutChecker =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadUtil.namedDaemonThreadFactory("HTTP Read Timeout", true)); // NON-NLS
+    readTimeoutChecker.scheduleWithFixedDelay(this::abortBlockedReads, 1, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Builds the transport from the preferences.
+   *
+   * @param preferences the system preferences
+   * @return the transport or null when the shared connection pool is disabled
+   */
+  public static PooledHttpTransport buildFromPreferences(WProperties preferences) {
+    if (!preferences.getBooleanProperty(P_HTTP_POOL, true)) {
+      return null;
+    }
+    // Read only once by the JDK when the first HTTP client is created
+    String keepAlive = "jdk.httpclient.keepalive.timeout"; // NON-NLS
+    if (System.getProperty(keepAlive) == null) {
+      System.setProperty(
+          keepAlive,
+          String.valueOf(
+              preferences.getIntProperty(P_HTTP_POOL_KEEP_ALIVE, DEFAULT_KEEP_ALIVE_TIMEOUT)));
+    }
+    Version version =
+        "1.1".equals(preferences.getProperty(P_HTTP_VERSION)) ? Version.HTTP_1_1 : Version.HTTP_2;
+    return new PooledHttpTransport(
+        version,
+        preferences.getIntProperty(P_HTTP_POOL_MAX_HOST, DEFAULT_MAX_HOST_CONNECTIONS),
+        preferences.getIntProperty(P_HTTP_POOL_ACQUIRE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT),
+        NetworkUtil.getUrlConnectionTimeout());
+  }
+
+  @Override
+  public HttpResponse get(String url, Map<String, String> headers, int timeout) throws IOException {
+    URI uri = URI.create(url);
+    HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+    if (timeout > 0) {
+      builder.timeout(Duration.ofMillis(timeout));
+    }
+    if (headers != null) {
+      for (Entry<String, String> entry : headers.entrySet()) {
+        if (entry.getValue() != null
+            && !RESTRICTED_HEADERS.contains(entry.getKey().toLowerCase(Locale.ENGLISH))) {
+          builder.setHeader(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    Semaphore permits = acquire(uri);
+    AtomicBoolean released = new AtomicBoolean(false);
+    Runnable release =
+        () -> {
+          if (released.compareAndSet(false, true)) {
+            activeStreams.decrementAndGet();
+            permits.release();
+          }
+        };
+    requests.incrementAndGet();
+    peakStreams.accumulateAndGet(activeStreams.incrementAndGet(), Math::max);
+    try {
+      java.net.http.HttpResponse<InputStream> response =
+          client.send(builder.build(), BodyHandlers.ofInputStream());
+      if (response.version() == Version.HTTP_2) {
+        http2Responses.incrementAndGet();
+      }
+      Response result = new Response(response, release, timeout);
+      if (timeout > 0) {
+        openResponses.add(result);
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failures.incrementAndGet();
+      release.run();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      failures.incrementAndGet();
+      release.run();
+      throw e instanceof IOException io ? io : new StreamIOException(e);
+    }
+  }
+
+  private Semaphore acquire(URI uri) throws IOException {
+    String host = uri.getHost() + ":" + uri.getPort();
+    Semaphore permits =
+        hostPermits.computeIfAbsent(host, k -> new Semaphore(maxHostConnections, true));
+    long start = System.nanoTime();
+    try {
+      boolean acquired = permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS);
+      waitingTime.addAndGet(System.nanoTime() - start);
+      if (!acquired) {
+        failures.incrementAndGet();
+        throw new HttpTimeoutException("Timeout while waiting a connection to " + host);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting a connection to " + host);
+    }
+    return permits;
+  }
+
+  private void abortBlockedReads() {
+    long now = System.nanoTime();
+    openResponses.removeIf(r -> r.isClosed() || r.abortBlockedRead(now));
+  }
+
+  public int getMaxHostConnections() {
+    return maxHostConnections;
+  }
+
+  public Statistics getStatistics() {
+    return new Statistics(
+        requests.get(),
+        failures.get(),
+        http2Responses.get(),
+        activeStreams.get(),
+        peakStreams.get(),
+        waitingTime.get() / 1_000_000L);
+  }
+
+  @Override
+  public void close() {
+    LOGGER.info("Close HTTP connection pool: {}", getStatistics());
+    readTimeoutChecker.shutdownNow();
+    // The requests in progress are completed
+    client.shutdown();
+  }
+
+  /**
+   * Usage statistics of the connection pool.
+   *
+   * @param requests the number of requests
+   * @param failures the number of requests without response
+   * @param http2Responses the number of responses received through a multiplexed HTTP/2 connection
+   * @param activeStreams the number of responses not yet closed
+   * @param peakStreams the maximum number of responses opened simultaneously
+   * @param waitingTime the total time in milliseconds waiting for the per-host connection limit
+   */
+  public record Statistics(
+      long requests,
+      long failures,
+      long http2Responses,
+      int activeStreams,
+      int peakStreams,
+      long waitingTime) {}
+
+  static class Response implements HttpResponse {
+    private final java.net.http.HttpResponse<InputStream> response;
+    private final InputStream inputStream;
+    private final Runnable release;
+    private final long readTimeout;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    // Start time of the read in progress, 0 when not reading
+    private volatile long readStart;
+    private volatile boolean timedOut;
+
+    Response(java.net.http.HttpResponse<InputStream> response, Runnable release, int timeout) {
+      this.response = response;
+      this.release = release;
+      this.readTimeout = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout));
+      this.inputStream =
+          new FilterInputStream(response.body()) {
+            @Override
+            public int read() throws IOException {
+              readStart = System.nanoTime();
+              try {
+                return super.read();
+              } catch (IOException e) {
+                throw readException(e);
+              } finally {
+                readStart = 0;
+              }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+              readStart = System.nanoTime();
+              try {
+                return super.read(b, off, len);
+              } catch (IOException e) {
+                throw readException(e);
+              } finally {
+                readStart = 0;
+              }
+            }
+
+            @Override
+            public void close() throws IOException {
+              try {
+                super.close();
+              } finally {
+                releaseOnce();
+              }
+            }
+          };
+    }
+
+    private IOException readException(IOException e) {
+      if (timedOut) {
+        SocketTimeoutException timeout = new SocketTimeoutException("Read timed out"); // NON-NLS
+        timeout.initCause(e);
+        return timeout;
+      }
+      return e;
+    }
+
+    private void releaseOnce() {
+      if (closed.compareAndSet(false, true)) {
+        release.run();
+      }
+    }
+
+    boolean isClosed() {
+      return closed.get();
+    }
+
+    /**
+     * Closes the response when a read is blocked for longer than the timeout. Closing the body
+     * unblocks the read, which throws a SocketTimeoutException.
+     *
+     * @param now the current time in nanoseconds
+     * @return true when the response has been closed
+     */
+    boolean abortBlockedRead(long now) {
+      long start = readStart;
+      if (readTimeout > 0 && start != 0 && now - start > readTimeout) {
+        timedOut = true;
+        FileUtil.safeClose(inputStream);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return inputStream;
+    }
+
+    @Override
+    public int getResponseCode() {
+      return response.statusCode();
+    }
+
+    @Override
+    public String getHeaderField(String key) {
+      return response.headers().firstValue(key).orElse(null);
+    }
+
+    @Override
+    public Map<String, String> getHeaderFields() {
+      Map<String, String> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      response.headers().map().forEach((k, v) -> map.put(k, v.isEmpty() ? null : v.getFirst()));
+      return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String getResponseMessage() {
+      // HTTP/2 has no reason phrase
+      return StringUtil.EMPTY_STRING;
+    }
+
+    @Override
+    public void close() {
+      FileUtil.safeClose(inputStream);
+      releaseOnce();
+    }
+  }
+}
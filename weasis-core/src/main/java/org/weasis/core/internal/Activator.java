@@ -41,6 +41,8 @@
 import org.weasis.core.api.service.BundlePreferences;
 import org.weasis.core.api.service.BundleTools;
 import org.weasis.core.api.service.WProperties;
+import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.PooledHttpTransport;
 import org.weasis.core.api.util.ResourceUtil;
 import org.weasis.core.ui.editor.FileModel;
 import org.weasis.core.ui.editor.SeriesViewerFactory;
@@ -68,6 +70,7 @@ public void start(BundleContext bundleContext) throws Exception {
     bundleContext.addServiceListener(this, BundleTools.createServiceFilter(Codec.class));
 
     initLoggerAndAudit(properties);
+    NetworkUtil.setHttpTransport(PooledHttpTransport.buildFromPreferences(properties));
 
     // FIXME do not use system property
     File file = ResourceUtil.getResource("presets.xml");
@@ -101,6 +104,7 @@ public void start(BundleContext bundleContext) throws Exception {
   @Override
   public void stop(BundleContext bundleContext) throws Exception {
     GuiUtils.getUICore().saveSystemPreferences();
+    NetworkUtil.setHttpTransport(null);
 
     // Save preferences
     Preferences prefs = BundlePreferences.getDefaultPreferences(bundleContext);
@@ -41,6 +41,7 @@
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.service.UICore;
 import org.weasis.core.api.util.ClosableURLConnection;
+import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.EscapeChars;
@@ -271,12 +272,14 @@ protected PreferencesImpl loadFromService(
         throw new BackingStoreException("Unable to load preferences from Service: " + prefUrl, e);
       }
 
-      try (ClosableURLConnection conn =
-          NetworkUtil.getUrlConnection(serviceURL, getURLParameters(false))) {
+      try (HttpResponse response =
+          NetworkUtil.getHttpResponse(serviceURL, getURLParameters(false), null)) {
 
-        return readRemotePref(new PreferencesImpl(desc, manager), conn);
+        return readRemotePref(new PreferencesImpl(desc, manager), response, serviceURL);
 
-      } catch (IOException e) {
+      } catch (BackingStoreException e) {
+        throw e;
+      } catch (Exception e) {
         throw new BackingStoreException(
             "Unable to load preferences from Service: " + serviceURL, e);
       }
@@ -284,12 +287,13 @@ protected PreferencesImpl loadFromService(
     return null;
   }
 
-  private PreferencesImpl readRemotePref(PreferencesImpl rootPref, ClosableURLConnection conn)
+  private PreferencesImpl readRemotePref(
+      PreferencesImpl rootPref, HttpResponse response, String serviceURL)
       throws BackingStoreException, IOException {
 
     XMLStreamReader xmler = null;
 
-    try (InputStream fileReader = conn.getInputStream()) {
+    try (InputStream fileReader = response.getInputStream()) {
       XMLInputFactory factory = XMLInputFactory.newInstance();
       // Disable external entities for security
       factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
@@ -299,14 +303,9 @@ private PreferencesImpl readRemotePref(PreferencesImpl rootPref, ClosableURLConn
       return readStream(rootPref, xmler);
 
     } catch (XMLStreamException e) {
-      boolean isHttpNoContent = false;
-      if (conn.getUrlConnection() instanceof HttpURLConnection httpURLConnection) {
-        isHttpNoContent = HttpURLConnection.HTTP_NO_CONTENT == httpURLConnection.getResponseCode();
-      }
-      if (!isHttpNoContent)
+      if (HttpURLConnection.HTTP_NO_CONTENT != response.getResponseCode())
         throw new BackingStoreException(
-            "Unable to read remote preferences from Service: " + conn.getUrlConnection().getURL(),
-            e);
+            "Unable to read remote preferences from Service: " + serviceURL, e);
     } finally {
       FileUtil.safeClose(xmler);
     }
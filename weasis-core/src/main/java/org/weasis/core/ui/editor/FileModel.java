@@ -21,7 +21,7 @@
 import org.weasis.core.api.explorer.model.AbstractFileModel;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
-import org.weasis.core.api.util.ClosableURLConnection;
+import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.FileUtil;
@@ -38,12 +38,12 @@ public class FileModel extends AbstractFileModel {
 
   private File getFile(String url) {
     File outFile;
-    try (ClosableURLConnection http = NetworkUtil.getUrlConnection(url, new URLParameters());
+    try (HttpResponse http = NetworkUtil.getHttpResponse(url, new URLParameters(), null);
         InputStream in = http.getInputStream()) {
       outFile = File.createTempFile("img_", FileUtil.getExtension(url), IMAGE_CACHE_DIR);
       LOGGER.debug("Start to download image {} to {}.", url, outFile.getName());
       FileUtil.writeStreamWithIOException(in, outFile);
-    } catch (IOException e) {
+    } catch (Exception e) {
       LOGGER.error("Dowloading image", e);
       return null;
     }
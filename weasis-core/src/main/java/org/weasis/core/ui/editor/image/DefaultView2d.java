@@ -140,6 +140,7 @@ public enum ZoomType {
   protected final RenderedImageLayer<E> imageLayer;
   protected Panner<E> panner;
   protected ZoomWin<E> lens;
+  protected final FrameRenderWorker<E> frameWorker = new FrameRenderWorker<>();
   private final List<ViewButton> viewButtons;
   protected ViewButton synchButton;
 
@@ -373,6 +374,12 @@ public Panner getPanner() {
     return panner;
   }
 
+  // The lens displays the input image of the zoom operation, which must be kept
+  private void setLensSource(boolean keep) {
+    imageLayer.getDisplayOpManager().setLutFusion(!keep);
+    imageLayer.updateDisplayOperations();
+  }
+
   @Override
   public void closeLens() {
     if (lens != null) {
@@ -380,6 +387,7 @@ public void closeLens() {
       this.remove(lens);
       actionsInView.put(ActionW.LENS.cmd(), false);
       lens = null;
+      setLensSource(false);
     }
   }
 
@@ -392,6 +400,9 @@ public void setSeries(MediaSeries<E> series) {
   public void setSeries(MediaSeries<E> newSeries, E selectedMedia) {
     MediaSeries<E> oldSequence = this.series;
     this.series = newSeries;
+    if (oldSequence != newSeries) {
+      frameWorker.cancel();
+    }
 
     if (oldSequence == null && newSeries == null) {
       return;
@@ -498,6 +509,7 @@ protected void setImage(E img) {
     imageLayer.setEnableDispOperations(false);
     if (img == null) {
       eventManager.getAction(ActionW.SCROLL_SERIES).ifPresent(SliderCineListener::stop);
+      frameWorker.cancel();
       actionsInView.put(ActionW.SPATIAL_UNIT.cmd(), Unit.PIXEL);
       if (eventManager.getSelectedViewPane() == this) {
         eventManager
@@ -558,6 +570,10 @@ protected void setImage(E img) {
       }
       // Apply all image processing operation for visualization
       imageLayer.setEnableDispOperations(true);
+      long frameTime = frameWorker.frameDisplayed(img);
+      if (frameTime >= 0 && eventManager.getSelectedViewPane() == this) {
+        eventManager.getAction(ActionW.SCROLL_SERIES).ifPresent(c -> c.frameDisplayed(frameTime));
+      }
 
       updateGraphicManager(img, updateGraphics);
 
@@ -913,6 +929,11 @@ public OpManager getDisplayOpManager() {
     return imageLayer.getDisplayOpManager();
   }
 
+  @Override
+  public FrameRenderWorker<E> getFrameWorker() {
+    return frameWorker;
+  }
+
   public void propertyChange(SynchCineEvent synch) {
     E imgElement = getImage();
     graphicManager.deleteByLayerType(LayerType.CROSSLINES);
@@ -1051,6 +1072,7 @@ private void propertyChange(final SynchEvent synch) {
         actionsInView.put(command, showLens);
         if (showLens) {
           if (lens == null) {
+            setLensSource(true);
             lens = new ZoomWin<>(this);
           }
           // resize if to big
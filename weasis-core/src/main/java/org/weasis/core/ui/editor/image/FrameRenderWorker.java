@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.editor.image;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import javax.swing.SwingUtilities;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Prepares in the background the frames requested by a view (scrolling or cine), so that the event
+ * dispatch thread is not blocked while an image is read.
+ *
+ * <p>A frame available in the cache is displayed immediately. Otherwise, the image is read (see
+ * {@link ImageElement#getImageAsync()}) and displayed on the event dispatch thread when it is
+ * ready. Only one image is read at a time: the frames requested in the meantime replace each other
+ * and only the most recent one is kept. When the reading ends, the most recent frame is displayed
+ * directly if it is already available, otherwise the frame read is displayed while the most recent
+ * one is read.
+ *
+ * <p>The time between the request of a frame and its display is measured, see {@link
+ * #frameDisplayed(ImageElement)}. The methods must be called from the event dispatch thread.
+ *
+ * @param <E> the type of the images
+ */
+public class FrameRenderWorker<E extends ImageElement> {
+
+  private static final ExecutorService EXECUTOR =
+      ThreadUtil.newFixedDaemonThreadPool(2, "Frame Render"); // NON-NLS
+
+  private Request<E> reading;
+  private Request<E> next;
+  private Request<E> displaying;
+  private long frameTime = -1L;
+
+  /**
+   * Requests the display of a frame. The display is run immediately when the image is available, or
+   * later when it has been read and no frame requested after it is available.
+   *
+   * @param image the image of the frame
+   * @param display the display of the frame, run on the event dispatch thread
+   */
+  public void request(E image, Runnable display) {
+    Request<E> request = new Request<>(image, display);
+    if (reading != null && reading.image == image) {
+      // The image is already being read
+      reading.display = display;
+      next = null;
+      return;
+    }
+    if (image == null || isReady(image)) {
+      // The previous requests are no longer necessary
+      cancel();
+      show(request);
+    } else if (reading != null) {
+      // Replace the previous waiting request
+      next = request;
+    } else {
+      read(request);
+    }
+  }
+
+  /** Cancels the frames not yet displayed. */
+  public void cancel() {
+    next = null;
+    if (reading != null) {
+      reading.future.cancel(false);
+      reading = null;
+    }
+  }
+
+  /**
+   * Records the display of an image by the view.
+   *
+   * @param image the image displayed
+   * @return the time in nanoseconds between the request of the image and its display, or -1 when
+   *     the image has not been displayed by this worker
+   */
+  public long frameDisplayed(E image) {
+    Request<E> request = displaying;
+    if (request == null || request.image != image) {
+      return -1L;
+    }
+    displaying = null;
+    frameTime = System.nanoTime() - request.time;
+    return frameTime;
+  }
+
+  /**
+   * @return the time in nanoseconds between the request and the display of the last frame, or -1
+   */
+  public long getFrameTime() {
+    return frameTime;
+  }
+
+  private static boolean isReady(ImageElement image) {
+    return image.isImageInCache() && image.isImageAvailable();
+  }
+
+  private void read(Request<E> request) {
+    reading = request;
+    request.future = request.image.getImageAsync();
+    request.future.whenCompleteAsync(
+        (img, _) -> {
+          if (img != null && !request.image.isImageAvailable()) {
+            // Compute the min and max values outside the event dispatch thread
+            request.image.getImage();
+          }
+          SwingUtilities.invokeLater(() -> imageRead(request));
+        },
+        EXECUTOR);
+  }
+
+  private void imageRead(Request<E> request) {
+    if (reading != request) {
+      // Cancelled
+      return;
+    }
+    reading = null;
+    Request<E> last = next;
+    next = null;
+    if (last != null && isReady(last.image)) {
+      show(last);
+      return;
+    }
+    if (last != null) {
+      read(last);
+    }
+    show(request);
+  }
+
+  private void show(Request<E> request) {
+    displaying = request;
+    try {
+      request.display.run();
+    } finally {
+      displaying = null;
+    }
+  }
+
+  private static final class Request<E> {
+    final E image;
+    final long time;
+    Runnable display;
+    CompletableFuture<PlanarImage> future;
+
+    Request(E image, Runnable display) {
+      this.image = image;
+      this.display = display;
+      this.time = System.nanoTime();
+    }
+  }
+}
@@ -112,13 +112,26 @@ public void stateChanged(BoundedRangeModel model) {
                     (Filter<ImageElement>) view2d.getActionValue(ActionW.FILTERED_SERIES.cmd()),
                     view2d.getCurrentSortComparator());
             mediaEvent = new SynchCineEvent(view2d, image, index);
+            FrameRenderWorker<ImageElement> worker = view2d.getFrameWorker();
+            if (image != null && worker != null) {
+              // Read the image in the background, only the most recent frame is displayed
+              Series<ImageElement> s = series;
+              ImageElement img = image;
+              SynchCineEvent event = mediaEvent;
+              worker.request(image, () -> showImage(s, img, event));
+              return;
+            }
             // Ensure to load image before calling the default preset (requires pixel min and max)
             if (image != null && !image.isImageAvailable()) {
               image.getImage();
             }
           }
         }
+        showImage(series, image, mediaEvent);
+      }
 
+      private void showImage(
+          Series<ImageElement> series, ImageElement image, SynchCineEvent mediaEvent) {
         firePropertyChange(ActionW.SYNCH.cmd(), null, mediaEvent);
         if (image != null) {
           fireSeriesViewerListeners(
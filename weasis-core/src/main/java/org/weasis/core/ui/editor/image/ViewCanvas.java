@@ -330,6 +330,12 @@ default Font getFont() {
 
   OpManager getDisplayOpManager();
 
+  /**
+   * @return the worker preparing the frames displayed when scrolling the series, or null when the
+   *     frames are displayed synchronously
+   */
+  FrameRenderWorker<E> getFrameWorker();
+
   void disableMouseAndKeyListener();
 
   void iniDefaultMouseListener();
@@ -33,6 +33,7 @@
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
 import org.weasis.core.Messages;
+import org.weasis.core.api.gui.Image2DViewer;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.image.util.MeasurableLayer;
 import org.weasis.core.api.media.data.ImageElement;
@@ -78,6 +79,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
   private final List<GraphicSelectionListener> selectedGraphicsListeners = new ArrayList<>();
   private final List<GraphicModelChangeListener> modelListeners = new ArrayList<>();
   private final List<PropertyChangeListener> graphicsListeners = new ArrayList<>();
+  private final GraphicSpatialIndex spatialIndex = new GraphicSpatialIndex();
   private Boolean changeFiringSuspended = Boolean.FALSE;
 
   private final Function<Graphic, GraphicLayer> getLayer = Graphic::getLayer;
@@ -150,6 +152,7 @@ public void setModels(List<Graphic> models) {
     if (models != null) {
       this.models = Collections.synchronizedList(models);
       this.layers = Collections.synchronizedList(getLayerList());
+      spatialIndex.clear();
     }
   }
 
@@ -167,6 +170,7 @@ public void addGraphic(Graphic graphic) {
         layers.add(layer);
       }
       models.add(graphic);
+      spatialIndex.structureChanged();
     }
   }
 
@@ -175,6 +179,7 @@ public void removeGraphic(Graphic graphic) {
     if (graphic != null) {
       models.remove(graphic);
       graphic.removeAllPropertyChangeListener();
+      spatialIndex.graphicRemoved(graphic);
 
       GraphicLayer layer = graphic.getLayer();
       if (layer != null) {
@@ -276,6 +281,7 @@ public void deleteByLayer(GraphicLayer layer) {
             return delete;
           });
       layers.removeIf(l -> Objects.equals(l, layer));
+      spatialIndex.structureChanged();
     }
   }
 
@@ -293,6 +299,7 @@ public void deleteByLayerType(LayerType type) {
       }
       models.removeIf(g -> Objects.equals(g.getLayer().getType(), type));
       layers.removeIf(l -> Objects.equals(l.getType(), type));
+      spatialIndex.structureChanged();
     }
   }
 
@@ -309,6 +316,7 @@ public void deleteNonSerializableGraphics() {
       }
       models.removeIf(g -> !g.getLayer().getSerializable());
       layers.removeIf(l -> !l.getSerializable());
+      spatialIndex.structureChanged();
     }
   }
 
@@ -343,8 +351,9 @@ public List<Graphic> getSelectedAllGraphicsIntersecting(
     ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
     if (rectangle != null) {
       synchronized (models) {
-        for (int i = models.size() - 1; i >= 0; i--) {
-          Graphic graphic = models.get(i);
+        List<Graphic> graphics = getGraphicsInArea(rectangle, transform);
+        for (int i = graphics.size() - 1; i >= 0; i--) {
+          Graphic graphic = graphics.get(i);
           GraphicLayer layer = graphic.getLayer();
           if (layer.getVisible() && layer.getSelectable()) {
 
@@ -382,8 +391,9 @@ public List<Graphic> getSelectedAllGraphicsIntersecting(
     ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
     if (rectangle != null) {
       synchronized (models) {
-        for (int i = models.size() - 1; i >= 0; i--) {
-          Graphic graphic = models.get(i);
+        List<Graphic> graphics = getGraphicsInArea(rectangle, transform);
+        for (int i = graphics.size() - 1; i >= 0; i--) {
+          Graphic graphic = graphics.get(i);
           GraphicLayer layer = graphic.getLayer();
           if (layer.getVisible() && layer.getSelectable()) {
 
@@ -437,9 +447,15 @@ public List<Graphic> getSelectedAllGraphicsIntersecting(
   public Optional<Graphic> getFirstGraphicIntersecting(MouseEventDouble mouseEvent) {
     final Point2D mousePt = mouseEvent.getImageCoordinates();
     Graphic firstSelectedGraph = null;
+    AffineTransform transform =
+        mouseEvent.getSource() instanceof Image2DViewer<?> viewer
+            ? viewer.getAffineTransform()
+            : null;
+    Rectangle2D area = new Rectangle2D.Double(mousePt.getX(), mousePt.getY(), 0, 0);
     synchronized (models) {
-      for (int i = models.size() - 1; i >= 0; i--) {
-        Graphic g = models.get(i);
+      List<Graphic> graphics = getGraphicsInArea(area, transform);
+      for (int i = graphics.size() - 1; i >= 0; i--) {
+        Graphic g = graphics.get(i);
         GraphicLayer l = g.getLayer();
         if (l.getVisible() && l.getSelectable()) {
           if (g.isOnGraphicLabel(mouseEvent)) {
@@ -580,6 +596,7 @@ public void deleteSelectedGraphics(Canvas canvas, Boolean warningMessage) {
   @Override
   public void clear() {
     models.clear();
+    spatialIndex.clear();
   }
 
   @Override
@@ -600,10 +617,25 @@ public void draw(
     Rectangle2D bound = area == null ? null : area.getBounds2D();
 
     g2d.translate(0.5, 0.5);
-    models.forEach(g -> applyPaint(g, g2d, transform, bound));
+    synchronized (models) {
+      for (Graphic g : getGraphicsInArea(bound, transform)) {
+        applyPaint(g, g2d, transform, bound);
+      }
+    }
     g2d.translate(-0.5, -0.5);
   }
 
+  /**
+   * @param area the area in image coordinates, null for all the graphics
+   * @param transform the transformation of the view
+   * @return the graphics which may intersect the area, in the order of the list. Must be called in
+   *     a block synchronized on the list of graphics.
+   */
+  private List<Graphic> getGraphicsInArea(Rectangle2D area, AffineTransform transform) {
+    List<Graphic> graphics = spatialIndex.getCandidates(models, transform, area);
+    return graphics == null ? models : graphics;
+  }
+
   private static void applyPaint(
       Graphic graphic, Graphics2D g2d, AffineTransform transform, Rectangle2D bounds) {
     if (graphic.getLayer().getVisible()) {
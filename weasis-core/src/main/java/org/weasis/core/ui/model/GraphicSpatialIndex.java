@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.weasis.core.ui.model.graphic.Graphic;
+import org.weasis.core.ui.model.graphic.GraphicLabel;
+
+/**
+ * Spatial index of the graphics of a model, for finding the graphics to paint or under the mouse
+ * without testing the bounds of all the graphics.
+ *
+ * <p>The bounds of a graphic depend on the scale and the rotation of the view, because the handles,
+ * the labels and some parts of the shapes keep the same size on the screen. So a tree is built for
+ * each scale and rotation in use (not for the translation, which does not change the bounds in the
+ * image coordinates). A tree is an R-tree packed with the sort-tile-recursive method, containing
+ * the repaint bounds and the label bounds of the graphics.
+ *
+ * <p>The graphics notify their changes to this index (see {@link #propertyChange}). The graphics
+ * modified or added after the building of a tree are always returned as candidates, and the tree is
+ * built again when they are too numerous. The results are the candidates for the exact tests of the
+ * caller, in the order of the list of graphics.
+ */
+final class GraphicSpatialIndex implements PropertyChangeListener {
+  // Below this number of graphics, testing all the graphics is faster
+  static final int MIN_SIZE = 64;
+  private static final int NODE_SIZE = 16;
+  private static final int MAX_TREES = 4;
+
+  private final Map<TransformKey, Tree> trees =
+      new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TransformKey, Tree> eldest) {
+          return size() > MAX_TREES;
+        }
+      };
+  // Position of each graphic in the list of the model
+  private Map<Graphic, Integer> positions = new IdentityHashMap<>();
+  private boolean positionsValid;
+
+  /** Must be called when graphics are added, removed or moved in the list of the model. */
+  synchronized void structureChanged() {
+    positionsValid = false;
+  }
+
+  /** Must be called when a graphic is removed from the model, as its listeners are removed. */
+  synchronized void graphicRemoved(Graphic graphic) {
+    for (Tree tree : trees.values()) {
+      tree.modified.add(graphic);
+    }
+    positionsValid = false;
+  }
+
+  synchronized void clear() {
+    trees.clear();
+    positions = new IdentityHashMap<>();
+    positionsValid = false;
+  }
+
+  @Override
+  public synchronized void propertyChange(PropertyChangeEvent evt) {
+    if (evt.getSource() instanceof Graphic graphic) {
+      for (Tree tree : trees.values()) {
+        tree.modified.add(graphic);
+      }
+      // Changing the order of the graphics does not change the size of the list
+      String name = evt.getPropertyName();
+      if (Graphic.ACTION_TO_FRONT.equals(name) || Graphic.ACTION_TO_BACK.equals(name)) {
+        positionsValid = false;
+      }
+    }
+  }
+
+  /**
+   * @param models the graphics of the model, synchronized by the caller
+   * @param transform the transformation from the image to the view
+   * @param area the area in image coordinates, the bounds on the edges are included
+   * @return the graphics which may intersect the area, in the order of the list, or null when all
+   *     the graphics must be tested
+   */
+  synchronized List<Graphic> getCandidates(
+      List<Graphic> models, AffineTransform transform, Rectangle2D area) {
+    if (transform == null || area == null || models.size() < MIN_SIZE) {
+      return null;
+    }
+    updatePositions(models);
+
+    TransformKey key = new TransformKey(transform);
+    Tree tree = trees.get(key);
+    if (tree == null
+        || tree.modified.size() + Math.abs(tree.count - positions.size())
+            > Math.max(MIN_SIZE, positions.size() / 4)) {
+      tree = new Tree(models, transform);
+      trees.put(key, tree);
+    }
+
+    Set<Graphic> found = Collections.newSetFromMap(new IdentityHashMap<>());
+    if (tree.root != null) {
+      tree.root.search(area, found);
+    }
+    found.removeAll(tree.modified);
+    List<Graphic> candidates = new ArrayList<>(found.size() + tree.modified.size());
+    for (Graphic g : found) {
+      if (positions.containsKey(g)) {
+        candidates.add(g);
+      }
+    }
+    for (Graphic g : tree.modified) {
+      if (positions.containsKey(g)) {
+        candidates.add(g);
+      }
+    }
+    candidates.sort(Comparator.comparingInt(positions::get));
+    return candidates;
+  }
+
+  private void updatePositions(List<Graphic> models) {
+    if (positionsValid && positions.size() == models.size()) {
+      return;
+    }
+    Map<Graphic, Integer> map = new IdentityHashMap<>(models.size() * 2);
+    for (int i = 0; i < models.size(); i++) {
+      Graphic g = models.get(i);
+      map.put(g, i);
+      // Not added twice, and added again when the listeners have been removed
+      g.addPropertyChangeListener(this);
+      if (!positions.containsKey(g)) {
+        // Added without notification, e.g. when deserializing the model
+        for (Tree tree : trees.values()) {
+          tree.modified.add(g);
+        }
+      }
+    }
+    positions = map;
+    positionsValid = true;
+  }
+
+  static Rectangle2D getBounds(Graphic graphic, AffineTransform transform) {
+    Rectangle2D bounds = graphic.getRepaintBounds(transform);
+    GraphicLabel label = graphic.getGraphicLabel();
+    if (label != null && label.getLabels() != null) {
+      Rectangle2D labelBounds = label.getBounds(transform);
+      if (labelBounds != null) {
+        bounds = bounds == null ? labelBounds : bounds.createUnion(labelBounds);
+      }
+    }
+    return bounds;
+  }
+
+  // Scale and rotation of a transformation
+  private record TransformKey(double m00, double m10, double m01, double m11) {
+    TransformKey(AffineTransform t) {
+      this(t.getScaleX(), t.getShearY(), t.getShearX(), t.getScaleY());
+    }
+  }
+
+  private static final class Tree {
+    final Node root;
+    final int count;
+    // Graphics modified or added after the building of the tree
+    final Set<Graphic> modified = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Tree(List<Graphic> models, AffineTransform transform) {
+      List<Node> leaves = new ArrayList<>(models.size());
+      for (Graphic g : models) {
+        Rectangle2D b = getBounds(g, transform);
+        if (b != null) {
+          leaves.add(new Node(g, b));
+        }
+      }
+      this.count = models.size();
+      this.root = leaves.isEmpty() ? null : pack(leaves);
+    }
+
+    // Sort-tile-recursive packing, level by level
+    private static Node pack(List<Node> nodes) {
+      List<Node> level = nodes;
+      while (level.size() > 1) {
+        int groups = (level.size() + NODE_SIZE - 1) / NODE_SIZE;
+        int slices = (int) Math.ceil(Math.sqrt(groups));
+        int sliceSize = slices * NODE_SIZE;
+        level.sort(Comparator.comparingDouble(Node::centerX));
+        List<Node> parents = new ArrayList<>(groups);
+        for (int s = 0; s < level.size(); s += sliceSize) {
+          List<Node> slice = level.subList(s, Math.min(level.size(), s + sliceSize));
+          slice.sort(Comparator.comparingDouble(Node::centerY));
+          for (int i = 0; i < slice.size(); i += NODE_SIZE) {
+            parents.add(new Node(slice.subList(i, Math.min(slice.size(), i + NODE_SIZE))));
+          }
+        }
+        level = parents;
+      }
+      return level.getFirst();
+    }
+  }
+
+  private static final class Node {
+    final double minX;
+    final double minY;
+    final double maxX;
+    final double maxY;
+    final Graphic graphic;
+    final Node[] children;
+
+    Node(Graphic graphic, Rectangle2D bounds) {
+      this.minX = bounds.getMinX();
+      this.minY = bounds.getMinY();
+      this.maxX = bounds.getMaxX();
+      this.maxY = bounds.getMaxY();
+      this.graphic = graphic;
+      this.children = null;
+    }
+
+    Node(List<Node> nodes) {
+      this.children = nodes.toArray(new Node[0]);
+      this.graphic = null;
+      this.minX = Arrays.stream(children).mapToDouble(n -> n.minX).min().orElse(0);
+      this.minY = Arrays.stream(children).mapToDouble(n -> n.minY).min().orElse(0);
+      this.maxX = Arrays.stream(children).mapToDouble(n -> n.maxX).max().orElse(0);
+      this.maxY = Arrays.stream(children).mapToDouble(n -> n.maxY).max().orElse(0);
+    }
+
+    double centerX() {
+      return (minX + maxX) / 2.0;
+    }
+
+    double centerY() {
+      return (minY + maxY) / 2.0;
+    }
+
+    void search(Rectangle2D area, Set<Graphic> found) {
+      if (minX > area.getMaxX()
+          || maxX < area.getMinX()
+          || minY > area.getMaxY()
+          || maxY < area.getMinY()) {
+        return;
+      }
+      if (children == null) {
+        found.add(graphic);
+      } else {
+        for (Node child : children) {
+          child.search(area, found);
+        }
+      }
+    }
+  }
+}
@@ -15,9 +15,15 @@
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import org.opencv.core.CvType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.image.AffineTransformOp;
@@ -60,6 +66,10 @@
   private OpManager preprocessing;
   private E sourceImage;
   private PlanarImage displayImage;
+  // Image drawn on the screen, refreshed at painting only when the display image has changed
+  private BufferedImage displayRaster;
+  private PlanarImage rasterSource;
+  private int rasterType;
   private Boolean visible = true;
   private boolean enableDispOperations = true;
   private Point offset;
@@ -184,6 +194,15 @@ public void setImage(E image, OpManager preprocessing) {
     boolean init =
         (image != null && !image.equals(this.sourceImage))
             || (image == null && sourceImage != null);
+    if (init) {
+      // Do not remove the displayed image from the cache
+      if (sourceImage != null) {
+        sourceImage.unpinImage();
+      }
+      if (image != null) {
+        image.pinImage();
+      }
+    }
     this.sourceImage = image;
     this.preprocessing = preprocessing;
     // Rectify non-square pixel image in the first operation
@@ -234,7 +253,7 @@ public void drawImage(Graphics2D g2d) {
         g2d.setRenderingHint(
             RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
       }
-      g2d.drawImage(ImageConversion.toBufferedImage(displayImage), 0, 0, null);
+      g2d.drawImage(getDisplayRaster(), 0, 0, null);
     } catch (Exception e) {
       LOGGER.error("Cannot draw the image", e);
       if ("java.io.IOException: closed".equals(e.getMessage())) { // NON-NLS
@@ -395,9 +414,53 @@ public void drawImageForPrinter(Graphics2D g2d, double viewScale, Canvas canvas)
     g2d.setClip(clip);
   }
 
+  /**
+   * Returns the display image converted for Java2D. The conversion is done again only when the
+   * display operations have produced a new image, and the pixels are copied into the previous
+   * raster when the size and the type of the image have not changed.
+   */
+  private BufferedImage getDisplayRaster() {
+    PlanarImage img = displayImage;
+    if (img != rasterSource || displayRaster == null) {
+      if (rasterType != img.type() || !copyPixels(img, displayRaster)) {
+        displayRaster = ImageConversion.toBufferedImage(img);
+      }
+      rasterSource = img;
+      rasterType = img.type();
+    }
+    return displayRaster;
+  }
+
+  private static boolean copyPixels(PlanarImage img, BufferedImage raster) {
+    if (raster == null || raster.getWidth() != img.width() || raster.getHeight() != img.height()) {
+      return false;
+    }
+    DataBuffer buffer = raster.getRaster().getDataBuffer();
+    int length = img.width() * img.height() * CvType.channels(img.type());
+    if (buffer.getNumBanks() != 1 || buffer.getSize() != length) {
+      return false;
+    }
+    int depth = CvType.depth(img.type());
+    if (depth == CvType.CV_8U && buffer instanceof DataBufferByte data) {
+      img.get(0, 0, data.getData());
+    } else if (depth == CvType.CV_16U && buffer instanceof DataBufferUShort data) {
+      img.get(0, 0, data.getData());
+    } else if (depth == CvType.CV_16S && buffer instanceof DataBufferShort data) {
+      img.get(0, 0, data.getData());
+    } else {
+      return false;
+    }
+    return true;
+  }
+
   public void dispose() {
+    if (sourceImage != null) {
+      sourceImage.unpinImage();
+    }
     sourceImage = null;
     displayImage = null;
+    displayRaster = null;
+    rasterSource = null;
     listenerList.clear();
     opListeners.clear();
   }
@@ -11,16 +11,21 @@
 
 import java.awt.FlowLayout;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import net.miginfocom.swing.MigLayout;
 import org.weasis.core.Messages;
 import org.weasis.core.api.gui.util.AbstractItemDialogPage;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.service.WProperties;
+import org.weasis.core.api.util.HttpTransport;
+import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.PooledHttpTransport;
 import org.weasis.core.util.StringUtil;
 
 public class ProxyPrefView extends AbstractItemDialogPage {
@@ -63,6 +68,13 @@ public class ProxyPrefView extends AbstractItemDialogPage {
   private final JLabel proxyLabelExceptions =
       new JLabel(Messages.getString("ProxyPrefView.exceptions") + StringUtil.COLON);
 
+  private final JCheckBox httpPoolCheckbox =
+      new JCheckBox(Messages.getString("ProxyPrefView.http.pool"));
+  private final JLabel maxHostLabel =
+      new JLabel(Messages.getString("ProxyPrefView.max.host") + StringUtil.COLON);
+  private final JSpinner maxHostSpinner = new JSpinner();
+  private final JLabel statisticsLabel = new JLabel();
+
   public ProxyPrefView() {
     super(Messages.getString("ProxyPrefView.proxy"), 110);
     initialize();
@@ -79,6 +91,8 @@ private void initialize() {
         GuiUtils.getFlowLayoutPanel(
             FlowLayout.LEADING, 0, ITEM_SEPARATOR_SMALL, proxyConnectionRadio));
     add(GuiUtils.getHorizontalBoxLayoutPanel(buildProxyPanel()));
+    add(GuiUtils.boxVerticalStrut(BLOCK_SEPARATOR));
+    add(buildConnectionPanel());
 
     this.buttonGroup.add(directConnectionRadio);
     this.buttonGroup.add(proxyConnectionRadio);
@@ -115,6 +129,41 @@ private void initState() {
     else directConnectionRadio.doClick();
   }
 
+  private JPanel buildConnectionPanel() {
+    WProperties prefs = GuiUtils.getUICore().getSystemPreferences();
+    GuiUtils.setNumberModel(
+        maxHostSpinner,
+        prefs.getIntProperty(
+            PooledHttpTransport.P_HTTP_POOL_MAX_HOST,
+            PooledHttpTransport.DEFAULT_MAX_HOST_CONNECTIONS),
+        1,
+        64,
+        1);
+    httpPoolCheckbox.setSelected(prefs.getBooleanProperty(PooledHttpTransport.P_HTTP_POOL, true));
+    httpPoolCheckbox.addActionListener(
+        e -> maxHostSpinner.setEnabled(httpPoolCheckbox.isSelected()));
+    maxHostSpinner.setEnabled(httpPoolCheckbox.isSelected());
+
+    if (NetworkUtil.getHttpTransport() instanceof PooledHttpTransport transport) {
+      PooledHttpTransport.Statistics stats = transport.getStatistics();
+      statisticsLabel.setText(
+          String.format(
+              Messages.getString("ProxyPrefView.stats"),
+              stats.requests(),
+              stats.http2Responses(),
+              stats.failures(),
+              stats.peakStreams(),
+              stats.waitingTime()));
+    }
+
+    JPanel panel = GuiUtils.getVerticalBoxLayoutPanel();
+    panel.add(GuiUtils.getFlowLayoutPanel(ITEM_SEPARATOR_SMALL, ITEM_SEPARATOR, httpPoolCheckbox));
+    panel.add(GuiUtils.getFlowLayoutPanel(maxHostLabel, maxHostSpinner));
+    panel.add(GuiUtils.getFlowLayoutPanel(statisticsLabel));
+    panel.setBorder(GuiUtils.getTitledBorder(Messages.getString("ProxyPrefView.connections")));
+    return panel;
+  }
+
   private JPanel buildProxyPanel() {
     JPanel dataPanel = new JPanel();
     dataPanel.setLayout(
@@ -162,6 +211,9 @@ public void proxyConnectionAction(boolean enable) {
   @Override
   public void resetToDefaultValues() {
     directConnectionRadio.doClick();
+    httpPoolCheckbox.setSelected(true);
+    maxHostSpinner.setEnabled(true);
+    maxHostSpinner.setValue(PooledHttpTransport.DEFAULT_MAX_HOST_CONNECTIONS);
   }
 
   @Override
@@ -216,6 +268,23 @@ public void closeAdditionalWindow() {
       p.putIntProperty(PROXY_SOCKS_PORT, port.intValue());
       applyProxyPortProperty("socksProxyPort", port.intValue(), val, mproxy);
     }
+
+    applyConnectionPool();
+  }
+
+  private void applyConnectionPool() {
+    WProperties prefs = GuiUtils.getUICore().getSystemPreferences();
+    boolean pool = httpPoolCheckbox.isSelected();
+    int maxHost = (Integer) maxHostSpinner.getValue();
+    HttpTransport transport = NetworkUtil.getHttpTransport();
+    boolean changed =
+        pool != (transport instanceof PooledHttpTransport)
+            || (transport instanceof PooledHttpTransport t && t.getMaxHostConnections() != maxHost);
+    prefs.putBooleanProperty(PooledHttpTransport.P_HTTP_POOL, pool);
+    prefs.putIntProperty(PooledHttpTransport.P_HTTP_POOL_MAX_HOST, maxHost);
+    if (changed) {
+      NetworkUtil.setHttpTransport(PooledHttpTransport.buildFromPreferences(prefs));
+    }
   }
 
   private static void applyProxyProperty(String key, String value, boolean manual) {
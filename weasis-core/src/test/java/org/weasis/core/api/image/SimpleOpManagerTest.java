@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.weasis.opencv.data.PlanarImage;
+
+class SimpleOpManagerTest {
+
+  private static final String P_VALUE = "value";
+
+  /** Operation producing a new image and counting its processing. */
+  static class CountOp extends AbstractOp {
+    int count;
+
+    CountOp(String name) {
+      setName(name);
+    }
+
+    CountOp(CountOp op) {
+      super(op);
+    }
+
+    @Override
+    public CountOp copy() {
+      return new CountOp(this);
+    }
+
+    @Override
+    public void process() {
+      count++;
+      params.put(Param.OUTPUT_IMG, newImage());
+    }
+  }
+
+  private static PlanarImage newImage() {
+    PlanarImage img = mock(PlanarImage.class);
+    when(img.width()).thenReturn(10);
+    return img;
+  }
+
+  @Test
+  void test_only_downstream_operations_are_processed() {
+    SimpleOpManager manager = new SimpleOpManager("test"); // NON-NLS
+    CountOp op1 = new CountOp("op1"); // NON-NLS
+    CountOp op2 = new CountOp("op2"); // NON-NLS
+    CountOp op3 = new CountOp("op3"); // NON-NLS
+    manager.addImageOperationAction(op1);
+    manager.addImageOperationAction(op2);
+    manager.addImageOperationAction(op3);
+    manager.setFirstNode(newImage());
+
+    PlanarImage result = manager.process();
+    assertNotNull(result);
+    assertEquals(1, op1.count);
+    assertEquals(1, op2.count);
+    assertEquals(1, op3.count);
+    assertTrue(manager.getProcessingTime("op2") >= 0);
+
+    // Nothing has changed
+    assertSame(result, manager.process());
+    assertEquals(1, op3.count);
+
+    manager.setParamValue("op2", P_VALUE, 2.0); // NON-NLS
+    manager.process();
+    assertEquals(1, op1.count);
+    assertEquals(2, op2.count);
+    assertEquals(2, op3.count);
+
+    // Same value
+    manager.setParamValue("op2", P_VALUE, 2.0); // NON-NLS
+    manager.process();
+    assertEquals(2, op2.count);
+
+    // Mutable objects are always considered as changed
+    double[] array = {1.0};
+    manager.setParamValue("op3", P_VALUE, array); // NON-NLS
+    manager.process();
+    manager.setParamValue("op3", P_VALUE, array); // NON-NLS
+    manager.process();
+    assertEquals(2, op2.count);
+    assertEquals(4, op3.count);
+  }
+
+  @Test
+  void test_clear_cache_and_disabled_operation() {
+    SimpleOpManager manager = new SimpleOpManager("test"); // NON-NLS
+    CountOp op1 = new CountOp("op1"); // NON-NLS
+    CountOp op2 = new CountOp("op2"); // NON-NLS
+    manager.addImageOperationAction(op1);
+    manager.addImageOperationAction(op2);
+    PlanarImage source = newImage();
+    manager.setFirstNode(source);
+    manager.process();
+
+    op2.setEnabled(false);
+    assertSame(op1.getParam(ImageOpNode.Param.OUTPUT_IMG), manager.process());
+    assertEquals(1, op1.count);
+    assertEquals(1, op2.count);
+
+    manager.clearNodeIOCache();
+    manager.setFirstNode(source);
+    manager.process();
+    assertEquals(2, op1.count);
+    assertEquals(1, op2.count);
+  }
+
+  @Test
+  void test_operations_are_processed_one_by_one_without_lookup_table() {
+    SimpleOpManager manager = new SimpleOpManager("test"); // NON-NLS
+    WindowOp window = new WindowOp();
+    CountOp op = new CountOp("op"); // NON-NLS
+    AffineTransformOp affine = new AffineTransformOp();
+    manager.addImageOperationAction(window);
+    manager.addImageOperationAction(op);
+    manager.addImageOperationAction(affine);
+    PlanarImage source = newImage();
+    manager.setFirstNode(source);
+
+    // The intermediate operation modifies the image, and the window has no image element
+    assertTrue(manager.isLutFusion());
+    PlanarImage result = manager.process();
+    assertEquals(1, op.count);
+    assertSame(op.getParam(ImageOpNode.Param.OUTPUT_IMG), result);
+    assertSame(result, affine.getParam(ImageOpNode.Param.INPUT_IMG));
+    assertNull(window.getLookupTable(source));
+
+    manager.setLutFusion(false);
+    assertSame(result, manager.process());
+    assertEquals(1, op.count);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.TagW.TagType;
+
+class CompactTagMapTest {
+
+  private static final TagW TAG_STRING = new TagW("CompactTest1", TagType.STRING);
+  private static final TagW TAG_INT = new TagW("CompactTest2", TagType.INTEGER);
+  private static final TagW TAG_DOUBLE = new TagW("CompactTest3", TagType.DOUBLE);
+  private static final TagW TAG_ARRAY = new TagW("CompactTest4", TagType.DOUBLE);
+
+  @Test
+  void test_values() {
+    CompactTagMap map = new CompactTagMap();
+    double[] array = {1.0, 2.0};
+    assertNull(map.put(TAG_STRING, "CT")); // NON-NLS
+    assertNull(map.put(TAG_INT, 512));
+    assertNull(map.put(TAG_DOUBLE, -0.5));
+    assertNull(map.put(TAG_ARRAY, array));
+
+    assertEquals(4, map.size());
+    assertEquals("CT", map.get(TAG_STRING));
+    assertEquals(512, map.get(TAG_INT));
+    assertEquals(-0.5, map.get(TAG_DOUBLE));
+    assertSame(array, map.get(TAG_ARRAY));
+
+    Map<TagW, Object> expected = new HashMap<>();
+    expected.put(TAG_STRING, "CT"); // NON-NLS
+    expected.put(TAG_INT, 512);
+    expected.put(TAG_DOUBLE, -0.5);
+    expected.put(TAG_ARRAY, array);
+    assertEquals(expected, map);
+    assertEquals(expected, new CompactTagMap(expected));
+  }
+
+  @Test
+  void test_replace_and_remove() {
+    CompactTagMap map = new CompactTagMap();
+    map.put(TAG_STRING, "a");
+    map.put(TAG_INT, 1);
+    map.put(TAG_DOUBLE, 2.0);
+
+    assertEquals(1, map.put(TAG_INT, 3));
+    // Another type of value for the same tag
+    assertEquals(2.0, map.put(TAG_DOUBLE, "b"));
+    assertEquals("b", map.get(TAG_DOUBLE));
+    assertEquals(3, map.get(TAG_INT));
+
+    assertEquals("a", map.remove(TAG_STRING));
+    assertNull(map.remove(TAG_STRING));
+    assertFalse(map.containsKey(TAG_STRING));
+    assertEquals(2, map.size());
+    assertEquals(3, map.get(TAG_INT));
+
+    map.put(TAG_STRING, null);
+    assertTrue(map.containsKey(TAG_STRING));
+    assertNull(map.get(TAG_STRING));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(TAG_INT));
+  }
+
+  @Test
+  void test_shared_values() {
+    CompactTagMap map1 = new CompactTagMap();
+    CompactTagMap map2 = new CompactTagMap();
+    map1.put(TAG_STRING, new String("Manufacturer")); // NON-NLS
+    map2.put(TAG_STRING, new String("Manufacturer")); // NON-NLS
+    assertSame(map1.get(TAG_STRING), map2.get(TAG_STRING));
+
+    CompactTagMap copy = new CompactTagMap(map1);
+    copy.put(TAG_STRING, "other"); // NON-NLS
+    assertEquals("Manufacturer", map1.get(TAG_STRING));
+  }
+
+  @Test
+  void test_copy_does_not_share_the_free_slots() {
+    CompactTagMap map = new CompactTagMap();
+    map.put(TAG_STRING, "a");
+    map.put(TAG_INT, 1);
+    CompactTagMap copy = new CompactTagMap(map);
+    map.put(TAG_ARRAY, 2.0);
+    copy.put(TAG_DOUBLE, 3.0);
+    assertEquals(2.0, map.get(TAG_ARRAY));
+    assertFalse(map.containsKey(TAG_DOUBLE));
+    assertEquals(3.0, copy.get(TAG_DOUBLE));
+    assertFalse(copy.containsKey(TAG_ARRAY));
+    assertEquals(1, copy.get(TAG_INT));
+  }
+
+  @Test
+  void test_many_tags_and_bounded_layouts() {
+    List<TagW> tags = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      tags.add(new TagW("CompactTestMany" + i, TagType.INTEGER)); // NON-NLS
+    }
+    Random random = new Random(7);
+    for (int k = 0; k < 200; k++) {
+      // Another order of the tags creates other layouts
+      Collections.shuffle(tags, random);
+      CompactTagMap map = new CompactTagMap();
+      for (int i = 0; i < tags.size(); i++) {
+        map.put(tags.get(i), i);
+      }
+      assertEquals(tags.size(), map.size());
+      for (int i = 0; i < tags.size(); i++) {
+        assertEquals(i, map.get(tags.get(i)));
+      }
+      assertTrue(CompactTagMap.getCachedLayoutCount() <= 4096);
+    }
+  }
+
+  @Test
+  void test_iterator() {
+    CompactTagMap map = new CompactTagMap();
+    map.put(TAG_STRING, "a");
+    map.put(TAG_INT, 1);
+    map.put(TAG_DOUBLE, 2.0);
+    int count = 0;
+    for (Iterator<Map.Entry<TagW, Object>> it = map.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<TagW, Object> entry = it.next();
+      count++;
+      if (entry.getKey() == TAG_INT) {
+        it.remove();
+      } else if (entry.getKey() == TAG_DOUBLE) {
+        entry.setValue(4.0);
+      }
+    }
+    assertEquals(3, count);
+    assertEquals(2, map.size());
+    assertFalse(map.containsKey(TAG_INT));
+    assertEquals(4.0, map.get(TAG_DOUBLE));
+  }
+
+  @Test
+  void test_read_while_modified() throws InterruptedException {
+    CompactTagMap map = new CompactTagMap();
+    TagW[] tags = {TAG_STRING, TAG_INT, TAG_DOUBLE, TAG_ARRAY};
+    AtomicBoolean stop = new AtomicBoolean();
+    Thread writer =
+        new Thread(
+            () -> {
+              int k = 0;
+              while (!stop.get()) {
+                TagW tag = tags[k++ % tags.length];
+                // Change the type of the value to move the keys in the layout
+                if (k % 3 == 0) {
+                  map.put(tag, tag.getKeyword());
+                } else if (k % 3 == 1) {
+                  map.put(tag, k);
+                } else {
+                  map.remove(tag);
+                }
+              }
+            });
+    writer.start();
+    try {
+      for (int i = 0; i < 200_000; i++) {
+        TagW tag = tags[i % tags.length];
+        Object value = map.get(tag);
+        assertTrue(value == null || value instanceof Integer || tag.getKeyword().equals(value));
+      }
+    } finally {
+      stop.set(true);
+      writer.join();
+    }
+  }
+}
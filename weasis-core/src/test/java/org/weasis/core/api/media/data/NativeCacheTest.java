@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.weasis.opencv.data.PlanarImage;
+
+class NativeCacheTest {
+
+  private static final long IMAGE_SIZE = 100;
+
+  private static PlanarImage image() {
+    PlanarImage img = mock(PlanarImage.class);
+    when(img.physicalBytes()).thenReturn(IMAGE_SIZE);
+    return img;
+  }
+
+  private static class TestCache extends NativeCache<String, PlanarImage> {
+    final List<String> removed = new ArrayList<>();
+
+    TestCache(long maxNativeMemory, long maxGroupMemory) {
+      super(maxNativeMemory, maxGroupMemory);
+    }
+
+    @Override
+    protected void afterEntryRemove(String key, PlanarImage val) {
+      removed.add(key);
+    }
+
+    @Override
+    protected Object getGroup(String key) {
+      return key.substring(0, 1);
+    }
+  }
+
+  @Test
+  void test_memory_limit() {
+    TestCache cache = new TestCache(10 * IMAGE_SIZE, 10 * IMAGE_SIZE);
+    for (int i = 0; i < 30; i++) {
+      cache.put("a" + i, image());
+    }
+    NativeCache.Statistics stats = cache.getStatistics();
+    assertTrue(stats.residentBytes() <= 10 * IMAGE_SIZE);
+    assertEquals(cache.size(), stats.size());
+    assertEquals(30 - cache.size(), stats.evictionCount());
+    assertEquals(cache.removed.size(), stats.evictionCount());
+  }
+
+  @Test
+  void test_scan_resistance() {
+    TestCache cache = new TestCache(10 * IMAGE_SIZE, 10 * IMAGE_SIZE);
+    for (int i = 0; i < 5; i++) {
+      cache.put("h" + i, image());
+    }
+    // Images used repeatedly
+    for (int k = 0; k < 5; k++) {
+      for (int i = 0; i < 5; i++) {
+        assertNotNull(cache.get("h" + i));
+      }
+    }
+    // One scroll through a long series
+    for (int i = 0; i < 100; i++) {
+      cache.put("s" + i, image());
+    }
+    for (int i = 0; i < 5; i++) {
+      assertTrue(cache.containsKey("h" + i), "h" + i);
+    }
+    assertEquals(100 - 5, cache.getStatistics().evictionCount());
+  }
+
+  @Test
+  void test_pinned_entries() {
+    TestCache cache = new TestCache(5 * IMAGE_SIZE, 5 * IMAGE_SIZE);
+    cache.pin("p0");
+    cache.put("p0", image());
+    for (int i = 0; i < 20; i++) {
+      cache.put("a" + i, image());
+    }
+    assertTrue(cache.containsKey("p0"));
+    assertFalse(cache.removed.contains("p0"));
+
+    cache.unpin("p0");
+    assertFalse(cache.isPinned("p0"));
+    for (int i = 20; i < 40; i++) {
+      cache.put("a" + i, image());
+    }
+    assertFalse(cache.containsKey("p0"));
+  }
+
+  @Test
+  void test_group_budget() {
+    TestCache cache = new TestCache(10 * IMAGE_SIZE, 5 * IMAGE_SIZE);
+    for (int i = 0; i < 4; i++) {
+      cache.put("b" + i, image());
+    }
+    for (int i = 0; i < 20; i++) {
+      cache.put("a" + i, image());
+    }
+    // The images of the other series are kept
+    for (int i = 0; i < 4; i++) {
+      assertTrue(cache.containsKey("b" + i), "b" + i);
+    }
+  }
+
+  @Test
+  void test_statistics() {
+    TestCache cache = new TestCache(10 * IMAGE_SIZE, 10 * IMAGE_SIZE);
+    cache.put("a0", image());
+    assertNotNull(cache.get("a0"));
+    assertNull(cache.get("a1"));
+    NativeCache.Statistics stats = cache.getStatistics();
+    assertEquals(1, stats.hitCount());
+    assertEquals(1, stats.missCount());
+    assertEquals(0.5, stats.hitRate());
+    assertEquals(IMAGE_SIZE, stats.residentBytes());
+    assertEquals(10 * IMAGE_SIZE, stats.maxBytes());
+
+    assertNotNull(cache.remove("a0"));
+    assertEquals(0, cache.getStatistics().residentBytes());
+    assertEquals(0, cache.getStatistics().evictionCount());
+  }
+
+  @Test
+  void test_entry_set_is_backed_by_the_cache() {
+    TestCache cache = new TestCache(10 * IMAGE_SIZE, 10 * IMAGE_SIZE);
+    PlanarImage a0 = image();
+    cache.put("a0", a0);
+    cache.put("a1", image());
+    cache.put("b0", image());
+    assertEquals(3, cache.entrySet().size());
+    assertTrue(cache.entrySet().contains(Map.entry("a0", a0)));
+
+    assertTrue(cache.entrySet().remove(Map.entry("a0", a0)));
+    assertFalse(cache.containsKey("a0"));
+    assertEquals(List.of("a0"), cache.removed);
+
+    cache.entrySet().removeIf(e -> e.getKey().startsWith("a"));
+    assertEquals(Set.of("b0"), cache.keySet());
+    assertEquals(List.of("a0", "a1"), cache.removed);
+    assertEquals(IMAGE_SIZE, cache.getStatistics().residentBytes());
+
+    cache.values().clear();
+    assertTrue(cache.isEmpty());
+    assertEquals(0, cache.getStatistics().residentBytes());
+  }
+}
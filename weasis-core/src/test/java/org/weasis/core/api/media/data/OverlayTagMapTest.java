@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.TagW.TagType;
+
+class OverlayTagMapTest {
+
+  private static final TagW TAG_1 = new TagW("OverlayTest1", TagType.STRING);
+  private static final TagW TAG_2 = new TagW("OverlayTest2", TagType.INTEGER);
+  private static final TagW TAG_3 = new TagW("OverlayTest3", TagType.DOUBLE);
+
+  private static Map<TagW, Object> buildBase() {
+    Map<TagW, Object> base = new HashMap<>();
+    base.put(TAG_1, "base"); // NON-NLS
+    base.put(TAG_2, 1);
+    return base;
+  }
+
+  @Test
+  void test_read_through() {
+    Map<TagW, Object> base = buildBase();
+    OverlayTagMap map = new OverlayTagMap(base);
+    assertEquals("base", map.get(TAG_1));
+    assertEquals(2, map.size());
+    assertTrue(map.containsKey(TAG_2));
+    assertFalse(map.containsKey(TAG_3));
+    assertEquals(base, map);
+  }
+
+  @Test
+  void test_overlay_does_not_modify_base() {
+    Map<TagW, Object> base = buildBase();
+    OverlayTagMap map = new OverlayTagMap(base);
+    assertEquals(1, map.put(TAG_2, 2));
+    assertNull(map.put(TAG_3, 3.0));
+    assertEquals(2, map.remove(TAG_2));
+    assertEquals("base", map.remove(TAG_1));
+
+    assertFalse(map.containsKey(TAG_1));
+    assertFalse(map.containsKey(TAG_2));
+    assertEquals(3.0, map.get(TAG_3));
+    assertEquals(1, map.size());
+    assertEquals(buildBase(), base);
+
+    map.put(TAG_1, null);
+    assertTrue(map.containsKey(TAG_1));
+    assertNull(map.get(TAG_1));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  void test_iterator_and_clear() {
+    OverlayTagMap map = new OverlayTagMap(buildBase());
+    map.put(TAG_3, 3.0);
+    int count = 0;
+    for (Iterator<Map.Entry<TagW, Object>> it = map.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<TagW, Object> entry = it.next();
+      count++;
+      if (entry.getKey() == TAG_2) {
+        it.remove();
+      } else if (entry.getKey() == TAG_1) {
+        entry.setValue("frame"); // NON-NLS
+      }
+    }
+    assertEquals(3, count);
+    assertFalse(map.containsKey(TAG_2));
+    assertEquals("frame", map.get(TAG_1));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(TAG_1));
+  }
+}
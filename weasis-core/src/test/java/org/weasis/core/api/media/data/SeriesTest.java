@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SeriesTest {
+
+  private final Map<MediaElement, Integer> values = new IdentityHashMap<>();
+  private final Comparator<MediaElement> byValue = Comparator.comparingInt(values::get);
+
+  private static Series<MediaElement> buildSeries() {
+    return buildSeries(null);
+  }
+
+  private static Series<MediaElement> buildSeries(Comparator<MediaElement> mediaOrder) {
+    return new Series<>(
+        TagW.FilePath, "test", new TagView(TagW.FileName), null, mediaOrder) { // NON-NLS
+      @Override
+      public String getMimeType() {
+        return null;
+      }
+
+      @Override
+      public void addMedia(MediaElement media) {
+        add(media);
+      }
+    };
+  }
+
+  private MediaElement media(int value) {
+    MediaElement media = mock(MediaElement.class);
+    values.put(media, value);
+    return media;
+  }
+
+  private List<MediaElement> sortedCopy(Series<MediaElement> series) {
+    List<MediaElement> list = new ArrayList<>(series.getSortedMedias(null));
+    list.sort(byValue);
+    return list;
+  }
+
+  @Test
+  void test_sorted_view_is_updated() {
+    Series<MediaElement> series = buildSeries();
+    series.add(media(5));
+    series.add(media(1));
+    List<MediaElement> before = series.getSortedMedias(byValue);
+    assertEquals(2, before.size());
+
+    series.add(media(3));
+    series.add(0, media(6));
+    series.addAll(List.of(media(0), media(4), media(9)));
+
+    List<MediaElement> sorted = series.getSortedMedias(byValue);
+    assertEquals(7, sorted.size());
+    assertEquals(sortedCopy(series), sorted);
+    // The list returned before is not modified
+    assertNotSame(before, sorted);
+    assertEquals(2, before.size());
+  }
+
+  @Test
+  void test_insertion_gives_the_same_order_as_a_new_sort() {
+    Map<MediaElement, Integer> numbers = new IdentityHashMap<>();
+    Comparator<MediaElement> byNumber = Comparator.comparingInt(numbers::get);
+    Series<MediaElement> series = buildSeries(byNumber);
+    Series<MediaElement> other = buildSeries();
+    series.getSortedMedias(byValue);
+    other.getSortedMedias(byValue);
+
+    Random random = new Random(7);
+    for (int i = 0; i < 200; i++) {
+      // Many equal values, added in random order like parallel downloads
+      MediaElement media = media(random.nextInt(10));
+      numbers.put(media, random.nextInt(1000));
+      // Insert by number like DicomSeries
+      List<MediaElement> list = series.getSortedMedias(null);
+      int index = Collections.binarySearch(list, media, byNumber);
+      series.add(index < 0 ? -(index + 1) : index + 1, media);
+      other.add(random.nextInt(other.getSortedMedias(null).size() + 1), media);
+    }
+    MediaElement last1 = media(3);
+    MediaElement last2 = media(3);
+    numbers.put(last1, 1000);
+    numbers.put(last2, 1000);
+    series.addAll(List.of(last1, last2));
+
+    assertEquals(sortedCopy(series), series.getSortedMedias(byValue));
+    assertEquals(sortedCopy(other), other.getSortedMedias(byValue));
+
+    series.removeAllMedias();
+    assertTrue(series.getSortedMedias(byValue).isEmpty());
+  }
+}
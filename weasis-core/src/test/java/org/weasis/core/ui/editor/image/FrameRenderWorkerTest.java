@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.editor.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.opencv.data.PlanarImage;
+
+class FrameRenderWorkerTest {
+
+  private final List<ImageElement> displayed = new ArrayList<>();
+
+  private static ImageElement image(boolean inCache, CompletableFuture<PlanarImage> reading) {
+    ImageElement img = mock(ImageElement.class);
+    when(img.isImageInCache()).thenReturn(inCache);
+    when(img.isImageAvailable()).thenReturn(inCache);
+    when(img.getImageAsync()).thenReturn(reading);
+    return img;
+  }
+
+  @Test
+  void test_available_frame_is_displayed_immediately() {
+    FrameRenderWorker<ImageElement> worker = new FrameRenderWorker<>();
+    ImageElement img = image(true, null);
+    worker.request(img, () -> displayed.add(img));
+    assertEquals(List.of(img), displayed);
+    // Not displayed by the worker
+    assertEquals(-1L, worker.frameDisplayed(img));
+
+    worker.request(img, () -> assertTrue(worker.frameDisplayed(img) >= 0));
+    assertTrue(worker.getFrameTime() >= 0);
+  }
+
+  @Test
+  void test_reading_is_cancelled_by_an_available_frame() {
+    FrameRenderWorker<ImageElement> worker = new FrameRenderWorker<>();
+    CompletableFuture<PlanarImage> reading = new CompletableFuture<>();
+    ImageElement first = image(false, reading);
+    ImageElement second = image(false, new CompletableFuture<>());
+    ImageElement third = image(true, null);
+
+    worker.request(first, () -> displayed.add(first));
+    worker.request(first, () -> displayed.add(first));
+    verify(first, times(1)).getImageAsync();
+    // Waiting for the end of the first reading
+    worker.request(second, () -> displayed.add(second));
+    verify(second, never()).getImageAsync();
+    assertTrue(displayed.isEmpty());
+
+    worker.request(third, () -> displayed.add(third));
+    assertEquals(List.of(third), displayed);
+    assertTrue(reading.isCancelled());
+  }
+}
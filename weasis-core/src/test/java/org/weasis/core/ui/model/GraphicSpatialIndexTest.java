@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.ui.model.graphic.Graphic;
+
+class GraphicSpatialIndexTest {
+
+  private static Graphic graphic(int x, int y, int size) {
+    Graphic g = mock(Graphic.class);
+    when(g.getRepaintBounds(any(AffineTransform.class)))
+        .thenReturn(new Rectangle(x, y, size, size));
+    return g;
+  }
+
+  private static List<Graphic> grid(int n) {
+    List<Graphic> models = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      models.add(graphic((i % 20) * 50, (i / 20) * 50, 40));
+    }
+    return models;
+  }
+
+  private static List<Graphic> bruteForce(List<Graphic> models, Rectangle2D area) {
+    List<Graphic> list = new ArrayList<>();
+    for (Graphic g : models) {
+      Rectangle b = g.getRepaintBounds(new AffineTransform());
+      if (b.getMinX() <= area.getMaxX()
+          && b.getMaxX() >= area.getMinX()
+          && b.getMinY() <= area.getMaxY()
+          && b.getMaxY() >= area.getMinY()) {
+        list.add(g);
+      }
+    }
+    return list;
+  }
+
+  @Test
+  void test_candidates_are_the_graphics_in_the_area() {
+    GraphicSpatialIndex index = new GraphicSpatialIndex();
+    List<Graphic> models = grid(400);
+    AffineTransform transform = new AffineTransform();
+
+    Rectangle2D area = new Rectangle2D.Double(120, 310, 200, 90);
+    assertEquals(bruteForce(models, area), index.getCandidates(models, transform, area));
+
+    // Point on the edge of a graphic
+    Rectangle2D point = new Rectangle2D.Double(90, 40, 0, 0);
+    assertEquals(bruteForce(models, point), index.getCandidates(models, transform, point));
+
+    Rectangle2D outside = new Rectangle2D.Double(-100, -100, 50, 50);
+    assertTrue(index.getCandidates(models, transform, outside).isEmpty());
+    verify(models.getFirst()).addPropertyChangeListener(index);
+  }
+
+  @Test
+  void test_modified_and_moved_graphics() {
+    GraphicSpatialIndex index = new GraphicSpatialIndex();
+    List<Graphic> models = grid(100);
+    AffineTransform transform = new AffineTransform();
+    Rectangle2D area = new Rectangle2D.Double(0, 0, 10, 10);
+    assertEquals(List.of(models.getFirst()), index.getCandidates(models, transform, area));
+
+    // Moved in the area
+    Graphic last = models.getLast();
+    when(last.getRepaintBounds(any(AffineTransform.class))).thenReturn(new Rectangle(5, 5, 2, 2));
+    index.propertyChange(new PropertyChangeEvent(last, "bounds", null, null)); // NON-NLS
+    assertEquals(List.of(models.getFirst(), last), index.getCandidates(models, transform, area));
+
+    // Brought to the back of the list
+    models.remove(last);
+    models.addFirst(last);
+    index.propertyChange(
+        new PropertyChangeEvent(last, Graphic.ACTION_TO_BACK, null, null)); // NON-NLS
+    assertEquals(List.of(last, models.get(1)), index.getCandidates(models, transform, area));
+
+    // Removed
+    Graphic first = models.get(1);
+    models.remove(first);
+    index.graphicRemoved(first);
+    assertEquals(List.of(last), index.getCandidates(models, transform, area));
+  }
+
+  @Test
+  void test_all_graphics_are_tested_for_small_models() {
+    GraphicSpatialIndex index = new GraphicSpatialIndex();
+    List<Graphic> models = grid(GraphicSpatialIndex.MIN_SIZE - 1);
+    Rectangle2D area = new Rectangle2D.Double(0, 0, 10, 10);
+    assertNull(index.getCandidates(models, new AffineTransform(), area));
+    assertNull(index.getCandidates(grid(100), null, area));
+  }
+}
@@ -65,6 +65,7 @@
 import org.weasis.core.ui.editor.image.DefaultView2d;
 import org.weasis.core.ui.editor.image.DefaultView2d.ZoomType;
 import org.weasis.core.ui.editor.image.FocusHandler;
+import org.weasis.core.ui.editor.image.FrameRenderWorker;
 import org.weasis.core.ui.editor.image.GraphicMouseHandler;
 import org.weasis.core.ui.editor.image.ImageViewerEventManager;
 import org.weasis.core.ui.editor.image.ImageViewerPlugin;
@@ -706,6 +707,11 @@ public OpManager getDisplayOpManager() {
     return null;
   }
 
+  @Override
+  public FrameRenderWorker<DicomImageElement> getFrameWorker() {
+    return null;
+  }
+
   @Override
   public void disableMouseAndKeyListener() {
     ViewCanvas.super.disableMouseAndKeyListener(this);
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.dcm4che3.img.util.DicomUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.FileRawImage;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Disk cache of the decoded frames of compressed DICOM files, in the {@link
+ * DicomMediaIO#CACHE_UNCOMPRESSED_DIR} directory. A frame is identified by its SOP Instance UID,
+ * its frame number and the transfer syntax of the compressed data, and is stored as a raw image
+ * ({@link FileRawImage}). Reading the frame again after its eviction from the memory cache avoids
+ * decoding it.
+ *
+ * <p>The total size of the files is limited by the preference {@link #MAX_SIZE}, the least recently
+ * used frames are removed first.
+ */
+final class DecodedFrameCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DecodedFrameCache.class);
+
+  /** Maximum size (in MB) of the decoded frames on disk, 0 disables the cache. */
+  public static final String MAX_SIZE = "dicom.decoded.cache.size";
+
+  private static final String EXTENSION = ".wcv"; // NON-NLS
+
+  // File name and size of the cached frames, in access order
+  private static final Map<String, Long> ENTRIES = new LinkedHashMap<>(256, 0.75f, true);
+  private static long totalSize;
+  private static long maxSize = -1;
+
+  private DecodedFrameCache() {}
+
+  /**
+   * @param transferSyntaxUID the transfer syntax of the pixel data
+   * @return true when the decoded frames of this transfer syntax are kept on disk
+   */
+  static boolean isCacheable(String transferSyntaxUID) {
+    return transferSyntaxUID != null && !DicomUtils.isNative(transferSyntaxUID) && getMaxSize() > 0;
+  }
+
+  private static synchronized long getMaxSize() {
+    if (maxSize < 0) {
+      maxSize =
+          GuiUtils.getUICore().getSystemPreferences().getIntProperty(MAX_SIZE, 2048)
+              * 1024L
+              * 1024L;
+      loadEntries();
+    }
+    return maxSize;
+  }
+
+  private static void loadEntries() {
+    File[] files = DicomMediaIO.CACHE_UNCOMPRESSED_DIR.listFiles();
+    if (files != null) {
+      // The files of a previous session, the oldest are removed first
+      Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+      for (File f : files) {
+        if (f.getName().endsWith(EXTENSION)) {
+          ENTRIES.put(f.getName(), f.length());
+          totalSize += f.length();
+        }
+      }
+      evict(null);
+    }
+  }
+
+  private static String getFileName(String sopInstanceUID, int frame, String transferSyntaxUID) {
+    String key = sopInstanceUID + "/" + frame + "/" + transferSyntaxUID;
+    return StringUtil.bytesToMD5(key.getBytes(StandardCharsets.UTF_8)) + EXTENSION;
+  }
+
+  /**
+   * @return the decoded frame, or null when the frame is not in the cache
+   */
+  static PlanarImage get(String sopInstanceUID, int frame, String transferSyntaxUID) {
+    String name = getFileName(sopInstanceUID, frame, transferSyntaxUID);
+    synchronized (DecodedFrameCache.class) {
+      if (ENTRIES.get(name) == null) {
+        return null;
+      }
+    }
+    File file = new File(DicomMediaIO.CACHE_UNCOMPRESSED_DIR, name);
+    try {
+      return new FileRawImage(file).read();
+    } catch (Exception e) {
+      LOGGER.warn("Cannot read the decoded frame {}: {}", file, e.getMessage());
+      synchronized (DecodedFrameCache.class) {
+        remove(name);
+      }
+      return null;
+    }
+  }
+
+  /** Writes a decoded frame in the cache and removes the least recently used frames if needed. */
+  static void put(String sopInstanceUID, int frame, String transferSyntaxUID, PlanarImage img) {
+    if (sopInstanceUID == null || img == null || img.width() <= 0) {
+      return;
+    }
+    String name = getFileName(sopInstanceUID, frame, transferSyntaxUID);
+    Path path = DicomMediaIO.CACHE_UNCOMPRESSED_DIR.toPath().resolve(name);
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(path.getParent(), "frame_", EXTENSION); // NON-NLS
+      new FileRawImage(tmp.toFile()).write(img);
+      long size = Files.size(tmp);
+      synchronized (DecodedFrameCache.class) {
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        Long previous = ENTRIES.put(name, size);
+        totalSize += size - (previous == null ? 0 : previous);
+        evict(name);
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Cannot write the decoded frame {}: {}", path, e.getMessage());
+      if (tmp != null) {
+        FileUtil.delete(tmp.toFile());
+      }
+    }
+  }
+
+  private static void evict(String keep) {
+    Iterator<Map.Entry<String, Long>> it = ENTRIES.entrySet().iterator();
+    while (totalSize > maxSize && it.hasNext()) {
+      Map.Entry<String, Long> entry = it.next();
+      if (!entry.getKey().equals(keep)) {
+        it.remove();
+        totalSize -= entry.getValue();
+        FileUtil.delete(new File(DicomMediaIO.CACHE_UNCOMPRESSED_DIR, entry.getKey()));
+      }
+    }
+  }
+
+  private static void remove(String name) {
+    Long size = ENTRIES.remove(name);
+    if (size != null) {
+      totalSize -= size;
+    }
+    FileUtil.delete(new File(DicomMediaIO.CACHE_UNCOMPRESSED_DIR, name));
+  }
+}
@@ -11,6 +11,7 @@
 
 import java.awt.image.RenderedImage;
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -31,6 +32,7 @@
 import org.dcm4che3.img.stream.BytesWithImageDescriptor;
 import org.dcm4che3.img.stream.ImageAdapter;
 import org.dcm4che3.img.stream.ImageAdapter.AdaptTransferSyntax;
+import org.dcm4che3.img.stream.ImageDescriptor;
 import org.dcm4che3.img.util.DicomUtils;
 import org.joml.Vector3d;
 import org.opencv.core.Core.MinMaxLocResult;
@@ -429,36 +431,78 @@ public double getDefaultLevel(WlPresentation wlp) {
     return (defaultPreset != null) ? defaultPreset.getLevel() : super.getDefaultLevel(null);
   }
 
+  private int getReducedScale(int size) {
+    return getMediaReader() instanceof DicomMediaIO io ? io.getReducedScale(this, size) : 1;
+  }
+
+  @Override
+  public PlanarImage getThumbnailImage(int size, OpManager manager) {
+    // The reduced decoding depends only on the file, so a stored thumbnail is always built the same
+    int scale = manager == null ? getReducedScale(size) : 1;
+    if (scale > 1) {
+      DicomMediaIO io = (DicomMediaIO) getMediaReader();
+      PlanarImage img = io.getReducedImage(this, scale);
+      DicomMetaData meta = io.getDicomMetaData();
+      if (img != null && meta != null) {
+        // Render the reduced image without modifying the state of the full resolution image
+        int frameIndex = getKey() instanceof Integer val ? val : 0;
+        DicomImageAdapter reduced =
+            new DicomImageAdapter(img, meta.getImageDescriptor(), frameIndex);
+        return ImageRendering.getVoiLutImage(img, reduced, buildReadParams(null));
+      }
+    }
+    return super.getThumbnailImage(size, manager);
+  }
+
+  @Override
+  public String getThumbnailStoreKey(int size) {
+    String uid = TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
+    // The reduced and the full resolution images are rendered with their own pixel range
+    return uid == null ? null : uid + "/" + getKey() + "/" + getReducedScale(size);
+  }
+
+  @Override
+  public Object getRenderingKey() {
+    if (!isImageInitialized()) {
+      return this;
+    }
+    // The descriptor holds the pixel padding and the modality LUT of each frame
+    ImageDescriptor desc = adapter.getImageDescriptor();
+    int frame = getKey() instanceof Integer val ? val : 0;
+    return Arrays.asList(desc, desc.getModalityLutForFrame(frame));
+  }
+
   @Override
   public PlanarImage getRenderedImage(PlanarImage imageSource, Map<String, Object> params) {
     if (imageSource == null) {
       return null;
     }
     DicomMetaData meta = getMediaReader().getDicomMetaData();
-    if (meta != null) {
-      DicomImageReadParam readParams = new DicomImageReadParam();
-      if (params != null) {
-        readParams.setPresentationState(
-            (PrDicomObject) params.get(WindowAndPresetsOp.P_PR_ELEMENT));
-
-        readParams.setWindowCenter((Double) params.get(ActionW.LEVEL.cmd()));
-        readParams.setWindowWidth((Double) params.get(ActionW.WINDOW.cmd()));
-        readParams.setLevelMin((Double) params.get(ActionW.LEVEL_MIN.cmd()));
-        readParams.setLevelMax((Double) params.get(ActionW.LEVEL_MAX.cmd()));
-        readParams.setVoiLutShape((LutShape) params.get(ActionW.LUT_SHAPE.cmd()));
-
-        readParams.setApplyPixelPadding((Boolean) params.get(ActionW.IMAGE_PIX_PADDING.cmd()));
-        readParams.setApplyWindowLevelToColorImage((Boolean) params.get(WindowOp.P_APPLY_WL_COLOR));
-        readParams.setInverseLut((Boolean) params.get(WindowOp.P_INVERSE_LEVEL));
-        readParams.setFillOutsideLutRange((Boolean) params.get(WindowOp.P_FILL_OUTSIDE_LUT));
-      }
-      if (isImageInitialized()) {
-        return ImageRendering.getVoiLutImage(imageSource, adapter, readParams);
-      }
+    if (meta != null && isImageInitialized()) {
+      return ImageRendering.getVoiLutImage(imageSource, adapter, buildReadParams(params));
     }
     return null;
   }
 
+  private static DicomImageReadParam buildReadParams(Map<String, Object> params) {
+    DicomImageReadParam readParams = new DicomImageReadParam();
+    if (params != null) {
+      readParams.setPresentationState((PrDicomObject) params.get(WindowAndPresetsOp.P_PR_ELEMENT));
+
+      readParams.setWindowCenter((Double) params.get(ActionW.LEVEL.cmd()));
+      readParams.setWindowWidth((Double) params.get(ActionW.WINDOW.cmd()));
+      readParams.setLevelMin((Double) params.get(ActionW.LEVEL_MIN.cmd()));
+      readParams.setLevelMax((Double) params.get(ActionW.LEVEL_MAX.cmd()));
+      readParams.setVoiLutShape((LutShape) params.get(ActionW.LUT_SHAPE.cmd()));
+
+      readParams.setApplyPixelPadding((Boolean) params.get(ActionW.IMAGE_PIX_PADDING.cmd()));
+      readParams.setApplyWindowLevelToColorImage((Boolean) params.get(WindowOp.P_APPLY_WL_COLOR));
+      readParams.setInverseLut((Boolean) params.get(WindowOp.P_INVERSE_LEVEL));
+      readParams.setFillOutsideLutRange((Boolean) params.get(WindowOp.P_FILL_OUTSIDE_LUT));
+    }
+    return readParams;
+  }
+
   public GeometryOfSlice getSliceGeometry() {
     // This geometry is adapted to get square pixel  for display
     return getGeometry(true);
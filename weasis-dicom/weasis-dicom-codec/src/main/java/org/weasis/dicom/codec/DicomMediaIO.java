@@ -16,9 +16,10 @@
 import java.lang.ref.Reference;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +34,7 @@
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.UID;
 import org.dcm4che3.data.VR;
+import org.dcm4che3.image.PhotometricInterpretation;
 import org.dcm4che3.img.DicomImageReadParam;
 import org.dcm4che3.img.DicomImageReader;
 import org.dcm4che3.img.DicomMetaData;
@@ -46,17 +48,22 @@
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.media.data.Codec;
+import org.weasis.core.api.media.data.CompactTagMap;
 import org.weasis.core.api.media.data.FileCache;
 import org.weasis.core.api.media.data.MediaElement;
+import org.weasis.core.api.media.data.OverlayTagMap;
 import org.weasis.core.api.media.data.SimpleTaggable;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.BundleTools;
+import org.weasis.core.util.FileUtil;
 import org.weasis.core.util.SoftHashMap;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.TagD.Level;
@@ -67,6 +74,7 @@
 import org.weasis.dicom.codec.geometry.ImageOrientation;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.codec.utils.PatientComparator;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 
 public class DicomMediaIO implements DcmMediaReader {
@@ -299,16 +307,19 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
   private URI uri;
   private int numberOfFrame;
   private final Map<TagW, Object> tags;
+  private volatile Map<TagW, Object> sharedTags;
   private DicomImageElement[] image = null;
   private String mimeType;
   private boolean hasPixel = false;
+  private volatile FrameIndex frameIndex;
+  private volatile boolean frameIndexUnavailable = false;
 
   private final FileCache fileCache;
 
   public DicomMediaIO(URI uri) {
     this.uri = Objects.requireNonNull(uri);
     this.numberOfFrame = 0;
-    this.tags = new HashMap<>();
+    this.tags = new CompactTagMap();
     this.mimeType = DICOM_MIMETYPE;
     this.fileCache = new FileCache(this);
   }
@@ -321,6 +332,20 @@ public DicomMediaIO(Path path) {
     this(Objects.requireNonNull(path).toUri());
   }
 
+  /**
+   * Builds a reader of a DICOM file whose header has already been read (e.g. while the file was
+   * downloaded). The file is parsed only if the header has been removed from the cache.
+   *
+   * @param source the DICOM file
+   * @param header the attributes of the file, the pixel data value can be a {@link BulkData} or a
+   *     {@link org.dcm4che3.data.Fragments} referencing the file
+   * @param transferSyntaxUID the transfer syntax of the file
+   */
+  public DicomMediaIO(File source, Attributes header, String transferSyntaxUID) {
+    this(source);
+    cacheMetaData(new DicomMetaData(Objects.requireNonNull(header), transferSyntaxUID));
+  }
+
   public DicomMediaIO(Attributes dcmItems) throws URISyntaxException {
     this(
         new URI(
@@ -347,6 +372,7 @@ private static void readTagsInModalityView(TagView[] views) {
   public synchronized void replaceURI(URI uri) {
     if (!Objects.equals(this.uri, Objects.requireNonNull(uri))) {
       this.uri = uri;
+      resetFrameIndex();
     }
   }
 
@@ -448,6 +474,7 @@ public Object getTagValue(TagW tag) {
   @Override
   public void setTag(TagW tag, Object value) {
     DicomMediaUtils.setTag(tags, tag, value);
+    sharedTags = null;
   }
 
   @Override
@@ -657,13 +684,31 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
       FileCache cache = media.getFileCache();
       Optional<File> original = cache.getOriginalFile();
       if (original.isPresent()) {
-        LOGGER.debug(
-            "Start reading dicom image frame: {} sopUID: {}",
-            frame,
-            TagD.getTagValue(this, Tag.SOPInstanceUID));
+        String sopUID = TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
+        LOGGER.debug("Start reading dicom image frame: {} sopUID: {}", frame, sopUID);
+        DicomMetaData md = getDicomMetaData();
+        String tsuid = md == null ? null : md.getTransferSyntaxUID();
+        boolean diskCache = sopUID != null && DecodedFrameCache.isCacheable(tsuid);
+        if (diskCache) {
+          // Avoid decoding again a compressed frame
+          PlanarImage img = DecodedFrameCache.get(sopUID, frame, tsuid);
+          if (img != null) {
+            return noEmbeddedOverlay
+                ? ImageRendering.getImageWithoutEmbeddedOverlay(img, md.getImageDescriptor(), frame)
+                : img;
+          }
+        }
         DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
-        try (DicomFileInputStream inputStream = new DicomFileInputStream(original.get().toPath())) {
-          reader.setInput(inputStream);
+        DicomFileInputStream inputStream = null;
+        try {
+          FrameIndex index = getFrameIndex(original.get());
+          if (index == null) {
+            inputStream = new DicomFileInputStream(original.get().toPath());
+            reader.setInput(inputStream);
+          } else {
+            // Read only the bytes of the frame, without parsing the file
+            reader.setInput(index.newFrameSource(md));
+          }
           ImageDescriptor desc = reader.getImageDescriptor();
           DicomImageReadParam param = new DicomImageReadParam();
           param.setAllowFloatImageConversion(true);
@@ -676,17 +721,124 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
                 desc.getColumns(),
                 desc.getRows());
           }
+          if (diskCache) {
+            DecodedFrameCache.put(sopUID, frame, tsuid, img);
+          }
           return noEmbeddedOverlay
               ? ImageRendering.getImageWithoutEmbeddedOverlay(img, desc, frame)
               : img;
         } finally {
           reader.dispose();
+          FileUtil.safeClose(inputStream);
         }
       }
     }
     return null;
   }
 
+  /**
+   * Returns the scale factor for decoding a frame at a reduced resolution for building a thumbnail.
+   * Only the JPEG baseline frames are decoded with a scale factor (DCT scaling).
+   *
+   * @param media the image
+   * @param size the size of the thumbnail
+   * @return the scale factor (2, 4 or 8), or 1 when the frame cannot be decoded at a reduced
+   *     resolution
+   */
+  int getReducedScale(MediaElement media, int size) {
+    if (!(media.getKey() instanceof Integer frame)
+        || !isReadableDicom()
+        || !hasPixel
+        || frame >= numberOfFrame) {
+      return 1;
+    }
+    DicomMetaData md = getDicomMetaData();
+    if (md == null
+        || media.getFileCache().getOriginalFile().isEmpty()
+        || !UID.JPEGBaseline8Bit.equals(md.getTransferSyntaxUID())) {
+      return 1;
+    }
+    ImageDescriptor desc = md.getImageDescriptor();
+    PhotometricInterpretation pmi = desc.getPhotometricInterpretation();
+    if (!pmi.isMonochrome()
+        && pmi != PhotometricInterpretation.YBR_FULL_422
+        && pmi != PhotometricInterpretation.YBR_FULL) {
+      return 1;
+    }
+    int scale = 1;
+    int length = Math.max(desc.getColumns(), desc.getRows());
+    while (scale < 8 && length / (scale * 2) >= size) {
+      scale *= 2;
+    }
+    return scale;
+  }
+
+  /**
+   * Decodes a frame at a reduced resolution.
+   *
+   * @param media the image
+   * @param scale the scale factor given by {@link #getReducedScale(MediaElement, int)}
+   * @return the reduced image, or null when the frame cannot be decoded
+   */
+  PlanarImage getReducedImage(MediaElement media, int scale) {
+    DicomMetaData md = getDicomMetaData();
+    Optional<File> original = media.getFileCache().getOriginalFile();
+    if (scale <= 1
+        || !(media.getKey() instanceof Integer frame)
+        || md == null
+        || original.isEmpty()) {
+      return null;
+    }
+    boolean gray = md.getImageDescriptor().getPhotometricInterpretation().isMonochrome();
+
+    FrameIndex index =
+        numberOfFrame > 1 ? getFrameIndex(original.get()) : FrameIndex.get(original.get(), md, 1);
+    if (index == null) {
+      return null;
+    }
+    try {
+      ByteBuffer buffer = index.readFrame(frame);
+      MatOfByte data = new MatOfByte(buffer.array());
+      Mat mat = Imgcodecs.imdecode(data, getReducedFlag(scale, gray));
+      data.release();
+      if (mat.empty()) {
+        mat.release();
+        return null;
+      }
+      return ImageCV.toImageCV(mat);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read the reduced frame {} of {}: {}", frame, uri, e.getMessage());
+      return null;
+    } finally {
+      if (numberOfFrame <= 1) {
+        index.close();
+      }
+    }
+  }
+
+  private static int getReducedFlag(int scale, boolean gray) {
+    return switch (scale) {
+      case 2 -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_2 : Imgcodecs.IMREAD_REDUCED_COLOR_2;
+      case 4 -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_4 : Imgcodecs.IMREAD_REDUCED_COLOR_4;
+      default -> gray ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_8 : Imgcodecs.IMREAD_REDUCED_COLOR_8;
+    };
+  }
+
+  private FrameIndex getFrameIndex(File file) {
+    FrameIndex index = frameIndex;
+    if (index == null && numberOfFrame > 1 && !frameIndexUnavailable) {
+      DicomMetaData md = getDicomMetaData();
+      index = md == null ? null : FrameIndex.get(file, md, numberOfFrame);
+      if (index == null) {
+        // Do not try again to index the file
+        frameIndexUnavailable = true;
+      } else {
+        frameIndex = index;
+      }
+    }
+    return index;
+  }
+
   private static Mat getMatBuffer(ExtendSegmentedInputImageStream extParams) throws IOException {
     try (RandomAccessFile raf = new RandomAccessFile(extParams.getFile(), "r")) {
 
@@ -848,8 +1000,8 @@ public String getMediaFragmentMimeType() {
   @Override
   public Map<TagW, Object> getMediaFragmentTags(Object key) {
     if (key instanceof Integer val && val > 0) {
-      // Clone the shared tag
-      Map<TagW, Object> tagList = new HashMap<>(tags);
+      // Each frame stores only its own tags on top of the shared tags
+      Map<TagW, Object> tagList = new OverlayTagMap(getSharedTags());
       SimpleTaggable taggable = new SimpleTaggable(tagList);
       if (DicomMediaUtils.writePerFrameFunctionalGroupsSequence(
           taggable, getDicomMetaData(), val)) {
@@ -860,9 +1012,34 @@ taggable, getDicomMetaData(), val)) {
     return tags;
   }
 
+  /**
+   * @return an immutable copy of the tags, shared by the frames until the tags are modified
+   */
+  private synchronized Map<TagW, Object> getSharedTags() {
+    Map<TagW, Object> shared = sharedTags;
+    if (shared == null) {
+      shared = Collections.unmodifiableMap(new CompactTagMap(tags));
+      sharedTags = shared;
+    }
+    return shared;
+  }
+
   @Override
   public void close() {
     HEADER_CACHE.remove(this);
+    FrameIndex index = frameIndex;
+    if (index != null) {
+      index.close();
+    }
+  }
+
+  private void resetFrameIndex() {
+    FrameIndex index = frameIndex;
+    frameIndex = null;
+    frameIndexUnavailable = false;
+    if (index != null) {
+      index.close();
+    }
   }
 
   @Override
@@ -941,32 +1118,35 @@ private synchronized DicomMetaData readMetaData() throws IOException {
     DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
     try (DicomFileInputStream inputStream = new DicomFileInputStream(path)) {
       reader.setInput(inputStream);
-      DicomMetaData dicomMetaData = reader.getStreamMetadata();
-      Attributes dcm = dicomMetaData.getDicomObject();
-      this.numberOfFrame = dcm.getInt(Tag.NumberOfFrames, 0);
-      VR.Holder pixelatedVR = new VR.Holder();
-      Object pixelData = dcm.getValue(Tag.PixelData, pixelatedVR);
-      if (pixelData == null) {
-        pixelData = dcm.getValue(Tag.FloatPixelData, pixelatedVR);
-      }
-      if (pixelData == null) {
-        pixelData = dcm.getValue(Tag.DoubleFloatPixelData, pixelatedVR);
-      }
-
-      if (pixelData != null) {
-        hasPixel = true;
-      }
-
-      if (numberOfFrame <= 0 && hasPixel) {
-        this.numberOfFrame = 1;
-      }
-      HEADER_CACHE.put(this, dicomMetaData);
-      return dicomMetaData;
+      return cacheMetaData(reader.getStreamMetadata());
     } finally {
       reader.dispose();
     }
   }
 
+  private synchronized DicomMetaData cacheMetaData(DicomMetaData dicomMetaData) {
+    Attributes dcm = dicomMetaData.getDicomObject();
+    this.numberOfFrame = dcm.getInt(Tag.NumberOfFrames, 0);
+    VR.Holder pixelatedVR = new VR.Holder();
+    Object pixelData = dcm.getValue(Tag.PixelData, pixelatedVR);
+    if (pixelData == null) {
+      pixelData = dcm.getValue(Tag.FloatPixelData, pixelatedVR);
+    }
+    if (pixelData == null) {
+      pixelData = dcm.getValue(Tag.DoubleFloatPixelData, pixelatedVR);
+    }
+
+    if (pixelData != null) {
+      hasPixel = true;
+    }
+
+    if (numberOfFrame <= 0 && hasPixel) {
+      this.numberOfFrame = 1;
+    }
+    HEADER_CACHE.put(this, dicomMetaData);
+    return dicomMetaData;
+  }
+
   public static boolean isHiddenModality(String modality) {
     if (modality != null) {
       DicomSpecialElementFactory factory = DCM_ELEMENT_FACTORIES.get(modality);
@@ -10,9 +10,13 @@
 package org.weasis.dicom.codec;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.img.DicomImageReader;
@@ -22,14 +26,12 @@
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiUtils;
-import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.ui.editor.image.DefaultView2d;
 import org.weasis.core.util.FileUtil;
-import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
@@ -40,7 +42,12 @@ public class DicomSeries extends Series<DicomImageElement> {
   static final TagView defaultTagView =
       new TagView(TagD.getTagFromIDs(Tag.SeriesDescription, Tag.SeriesNumber, Tag.SeriesTime));
 
-  private static PreloadingTask preloadingTask;
+  private static SeriesPreloader preloader;
+
+  // Built at the first query, guarded by this
+  private SlicePositionIndex sliceIndex;
+  private final Map<Comparator<DicomImageElement>, Map<DicomImageElement, Integer>> indexes =
+      new HashMap<>(4);
 
   public DicomSeries(String subseriesInstanceUID) {
     this(subseriesInstanceUID, null, defaultTagView);
@@ -205,32 +212,46 @@ public synchronized void dispose() {
     super.dispose();
   }
 
+  @Override
+  protected void resetSortedMediasMap() {
+    super.resetSortedMediasMap();
+    synchronized (this) {
+      sliceIndex = null;
+      indexes.clear();
+    }
+  }
+
+  @Override
+  protected void mediasAdded(Collection<? extends DicomImageElement> added) {
+    synchronized (this) {
+      if (sliceIndex != null) {
+        added.forEach(sliceIndex::add);
+      }
+      indexes.clear();
+    }
+  }
+
   @Override
   public DicomImageElement getNearestImage(
       double location,
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    DicomImageElement nearest = null;
-    int index = 0;
-    int bestIndex = -1;
+    DicomImageElement nearest;
+    int bestIndex;
     synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
-      for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            nearest = dcm;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
+      List<DicomImageElement> list = getNearestImages(location, filter);
+      if (list.size() == 1 && offset <= 0) {
+        return list.getFirst();
+      }
+      nearest = null;
+      bestIndex = -1;
+      for (DicomImageElement dcm : list) {
+        int index = getIndex(dcm, filter, sort);
+        if (index >= 0 && (bestIndex < 0 || index < bestIndex)) {
+          nearest = dcm;
+          bestIndex = index;
         }
-        index++;
       }
     }
     if (offset > 0) {
@@ -245,30 +266,55 @@ public int getNearestImageIndex(
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    int index = 0;
     int bestIndex = -1;
     synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
-      for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
+      for (DicomImageElement dcm : getNearestImages(location, filter)) {
+        int index = getIndex(dcm, filter, sort);
+        if (index >= 0 && (bestIndex < 0 || index < bestIndex)) {
+          bestIndex = index;
         }
-        index++;
       }
     }
 
     return (offset > 0) ? (bestIndex + offset) : bestIndex;
   }
 
+  /**
+   * @return the images at the smallest distance of the location, several images when they have the
+   *     same location (e.g. the phases of a multi-phase series)
+   */
+  private List<DicomImageElement> getNearestImages(
+      double location, Filter<DicomImageElement> filter) {
+    if (sliceIndex == null) {
+      synchronized (medias) {
+        sliceIndex = new SlicePositionIndex(medias);
+      }
+    }
+    return sliceIndex.getNearest(location, filter);
+  }
+
+  private int getIndex(
+      DicomImageElement dcm, Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {
+    if (filter != null) {
+      return getImageIndex(dcm, filter, sort);
+    }
+    Map<DicomImageElement, Integer> map =
+        indexes.computeIfAbsent(
+            sort,
+            k -> {
+              List<DicomImageElement> sortedList = getSortedMedias(k);
+              Map<DicomImageElement, Integer> positions = new IdentityHashMap<>(sortedList.size());
+              synchronized (medias) {
+                for (int i = 0; i < sortedList.size(); i++) {
+                  positions.put(sortedList.get(i), i);
+                }
+              }
+              return positions;
+            });
+    Integer index = map.get(dcm);
+    return index == null ? -1 : index;
+  }
+
   @Override
   public boolean hasMediaContains(TagW tag, Object val) {
     if (val != null) {
@@ -332,132 +378,68 @@ public boolean isSuitableFor3d() {
     return size >= DefaultView2d.MINIMAL_IMAGES_FOR_3D;
   }
 
+  /**
+   * Starts preloading the images of the series around the current image of a view.
+   *
+   * @param series the series
+   * @param filter the filter of the view, or null
+   * @param comparator the sorting of the view, or null
+   * @param currentIndex the index of the current image in the filtered and sorted list
+   */
   public static synchronized void startPreloading(
-      DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-    if (series != null && imageList != null) {
-      if (preloadingTask != null) {
-        if (preloadingTask.getSeries() == series) {
+      DicomSeries series,
+      Filter<DicomImageElement> filter,
+      Comparator<DicomImageElement> comparator,
+      int currentIndex) {
+    if (series != null) {
+      if (preloader != null) {
+        if (preloader.getSeries() == series && preloader.isListOf(filter, comparator)) {
+          preloader.update(currentIndex);
           return;
         }
-        stopPreloading(preloadingTask.getSeries());
+        stopPreloading(preloader.getSeries());
       }
-      preloadingTask = new PreloadingTask(series, imageList, currentIndex);
-      preloadingTask.start();
-    }
-  }
-
-  public static synchronized void stopPreloading(DicomSeries series) {
-    if (preloadingTask != null && preloadingTask.getSeries() == series) {
-      PreloadingTask moribund = preloadingTask;
-      preloadingTask = null;
-      moribund.setPreloading(false);
-      moribund.interrupt();
+      preloader = new SeriesPreloader(series, filter, comparator, currentIndex);
+      preloader.start();
     }
   }
 
-  static class PreloadingTask extends Thread {
-    private volatile boolean preloading = true;
-    private final int index;
-    private final List<DicomImageElement> imageList;
-    private final DicomSeries series;
-
-    public PreloadingTask(DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-      this.series = series;
-      this.imageList = imageList;
-      this.index = currentIndex;
-    }
-
-    public synchronized boolean isPreloading() {
-      return preloading;
-    }
-
-    public DicomSeries getSeries() {
-      return series;
-    }
-
-    public List<DicomImageElement> getImageList() {
-      return imageList;
-    }
-
-    public synchronized void setPreloading(boolean preloading) {
-      this.preloading = preloading;
-    }
-
-    private static long evaluateImageSize(DicomImageElement image) {
-      Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
-      Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
-      Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
-      Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
-      if (allocated != null && sample != null && rows != null && columns != null) {
-        return ((long) rows * columns * sample * allocated) / 8L;
-      }
-      return 0L;
-    }
-
-    private void loadArrays(DicomImageElement img, DataExplorerModel model) {
-      // Do not load an image if another process already loading it
-      if (preloading && !img.isLoading()) {
-        Boolean cache = (Boolean) img.getTagValue(TagW.ImageCache);
-        if (cache == null || !cache) {
-          long start = System.currentTimeMillis();
-          try {
-            img.getImage();
-          } catch (OutOfMemoryError e) {
-            LOGGER.error("Out of memory when loading image: {}", img, e);
-            CvUtil.runGarbageCollectorAndWait(50);
-            return;
-          }
-          long stop = System.currentTimeMillis();
-          LOGGER.debug("Reading time: {} ms of image: {}", stop - start, img);
-          if (model != null) {
-            model.firePropertyChange(
-                new ObservableEvent(
-                    ObservableEvent.BasicAction.ADD,
-                    model,
-                    null,
-                    new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img)));
-          }
+  /**
+   * Notifies the preloader that the current image of the series has changed. The preloader is
+   * rebuilt when the list of the view has changed (filter, sorting or new images).
+   *
+   * @param series the series
+   * @param filter the filter of the view, or null
+   * @param comparator the sorting of the view, or null
+   * @param image the current image
+   * @param currentIndex the index of the current image in the filtered and sorted list
+   */
+  public static synchronized void updatePreloading(
+      DicomSeries series,
+      Filter<DicomImageElement> filter,
+      Comparator<DicomImageElement> comparator,
+      DicomImageElement image,
+      int currentIndex) {
+    if (preloader != null && preloader.getSeries() == series && image != null) {
+      if (preloader.isListOf(filter, comparator) && preloader.isImageAt(image, currentIndex)) {
+        preloader.update(currentIndex);
+      } else if (preloader.isRecentListOf(filter, comparator)) {
+        // The series is receiving images, do not copy the list at each scroll
+        if (preloader.isImageAt(image, currentIndex)) {
+          preloader.update(currentIndex);
         }
+      } else {
+        stopPreloading(series);
+        preloader = new SeriesPreloader(series, filter, comparator, currentIndex);
+        preloader.start();
       }
     }
+  }
 
-    @Override
-    public void run() {
-      if (imageList != null) {
-        DataExplorerModel model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
-        int size = imageList.size();
-        if (model == null || index < 0 || index >= size) {
-          return;
-        }
-        long imgSize = evaluateImageSize(imageList.get(index)) * size + 5000;
-        long heapSize = Runtime.getRuntime().totalMemory();
-        long heapFreeSize = Runtime.getRuntime().freeMemory();
-        if (imgSize > heapSize / 3) {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          double val = (double) heapFreeSize / imgSize;
-          int adjustSize = (int) (size * val) / 2;
-          int start = index - adjustSize;
-          if (start < 0) {
-            adjustSize -= start;
-            start = 0;
-          }
-          if (adjustSize > size) {
-            adjustSize = size;
-          }
-          for (int i = start; i < adjustSize; i++) {
-            loadArrays(imageList.get(i), model);
-          }
-        } else {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          for (DicomImageElement img : imageList) {
-            loadArrays(img, model);
-          }
-        }
-      }
+  public static synchronized void stopPreloading(DicomSeries series) {
+    if (preloader != null && preloader.getSeries() == series) {
+      preloader.stop();
+      preloader = null;
     }
   }
 }
@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomImageReader;
+import org.dcm4che3.img.DicomMetaData;
+import org.dcm4che3.img.stream.BytesWithImageDescriptor;
+import org.dcm4che3.img.stream.ImageDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.util.FileUtil;
+
+/**
+ * Byte positions of each frame of a multiframe DICOM file. A frame is made of one segment for the
+ * native pixel data or of one or several fragments for the encapsulated pixel data.
+ *
+ * <p>The index is built once from the pixel data of the header (and the Basic Offset Table or the
+ * first bytes of the fragments when a frame has several fragments) and saved in the cache
+ * directory. The frames are then read directly from an open channel, without parsing the file
+ * again.
+ */
+final class FrameIndex {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FrameIndex.class);
+
+  static final File CACHE_INDEX_DIR =
+      AppProperties.buildAccessibleTempDirectory(
+          AppProperties.FILE_CACHE_DIR.getName(), "dcm-index"); // NON-NLS
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_OPEN_FILES = 32;
+
+  // Keep open only the channels of the last read files
+  private static final Map<FrameIndex, FileChannel> OPEN_CHANNELS =
+      new LinkedHashMap<>(MAX_OPEN_FILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FrameIndex, FileChannel> eldest) {
+          if (size() > MAX_OPEN_FILES) {
+            FileUtil.safeClose(eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+
+  private final File file;
+  private final long[][] positions;
+  private final int[][] lengths;
+
+  private FrameIndex(File file, long[][] positions, int[][] lengths) {
+    this.file = file;
+    this.positions = positions;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Gets the index of a multiframe file from the cache directory or builds it from the header.
+   *
+   * @param file the DICOM file
+   * @param metaData the header of the file
+   * @param frames the number of frames
+   * @return the index, or null when the frames cannot be indexed
+   */
+  static FrameIndex get(File file, DicomMetaData metaData, int frames) {
+    if (!isIndexable(metaData)) {
+      return null;
+    }
+    File indexFile = getIndexFile(file);
+    FrameIndex index = load(file, indexFile, frames);
+    if (index == null) {
+      try {
+        index = build(file, metaData.getDicomObject(), frames);
+      } catch (IOException e) {
+        LOGGER.warn("Cannot build the frame index of {}: {}", file, e.getMessage());
+        return null;
+      }
+      if (index != null) {
+        index.save(indexFile);
+      }
+    }
+    return index;
+  }
+
+  private static boolean isIndexable(DicomMetaData metaData) {
+    String tsuid = metaData.getTransferSyntaxUID();
+    Attributes dcm = metaData.getDicomObject();
+    return dcm.getInt(Tag.BitsAllocated, 8) >= 8
+        && !metaData.isVideoTransferSyntaxUID()
+        && !UID.DeflatedExplicitVRLittleEndian.equals(tsuid)
+        && !UID.RLELossless.equals(tsuid)
+        && DicomImageReader.isSupportedSyntax(tsuid);
+  }
+
+  private static File getIndexFile(File file) {
+    String key = file.getAbsolutePath();
+    return new File(
+        CACHE_INDEX_DIR,
+        UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".idx"); // NON-NLS
+  }
+
+  private static FrameIndex build(File file, Attributes header, int frames) throws IOException {
+    VR.Holder vr = new VR.Holder();
+    Object pixelData = header.getValue(Tag.PixelData, vr);
+    if (pixelData instanceof BulkData bulkData) {
+      // Native pixel data, the remainder is the padding byte of an odd length
+      long frameLength = (bulkData.length() & 0xFFFFFFFFL) / frames;
+      if (frameLength == 0 || (bulkData.length() & 0xFFFFFFFFL) - frameLength * frames > 1) {
+        return null;
+      }
+      long[][] positions = new long[frames][];
+      int[][] lengths = new int[frames][];
+      for (int i = 0; i < frames; i++) {
+        positions[i] = new long[] {bulkData.offset() + i * frameLength};
+        lengths[i] = new int[] {(int) frameLength};
+      }
+      return new FrameIndex(file, positions, lengths);
+    } else if (pixelData instanceof Fragments fragments) {
+      return buildFromFragments(file, fragments, frames);
+    }
+    return null;
+  }
+
+  private static FrameIndex buildFromFragments(File file, Fragments fragments, int frames)
+      throws IOException {
+    List<BulkData> items = new ArrayList<>(fragments.size());
+    // The first item is the Basic Offset Table
+    for (int i = 1; i < fragments.size(); i++) {
+      Object item = fragments.get(i);
+      if (item instanceof BulkData bulkData) {
+        items.add(bulkData);
+      } else if (!(item instanceof byte[] b && b.length == 0)) {
+        return null;
+      }
+    }
+    if (items.size() < frames) {
+      return null;
+    }
+
+    int[] firstFragments;
+    if (items.size() == frames) {
+      firstFragments = new int[frames];
+      for (int i = 0; i < frames; i++) {
+        firstFragments[i] = i;
+      }
+    } else if (frames == 1) {
+      firstFragments = new int[] {0};
+    } else {
+      firstFragments = getFirstFragmentsFromOffsetTable(file, fragments.get(0), items, frames);
+      if (firstFragments == null) {
+        firstFragments = getFirstFragmentsFromMarkers(file, items, frames);
+      }
+      if (firstFragments == null) {
+        return null;
+      }
+    }
+
+    long[][] positions = new long[frames][];
+    int[][] lengths = new int[frames][];
+    for (int i = 0; i < frames; i++) {
+      int start = firstFragments[i];
+      int end = i + 1 < frames ? firstFragments[i + 1] : items.size();
+      positions[i] = new long[end - start];
+      lengths[i] = new int[end - start];
+      for (int k = start; k < end; k++) {
+        positions[i][k - start] = items.get(k).offset();
+        lengths[i][k - start] = items.get(k).length();
+      }
+    }
+    return new FrameIndex(file, positions, lengths);
+  }
+
+  private static int[] getFirstFragmentsFromOffsetTable(
+      File file, Object offsetTable, List<BulkData> items, int frames) throws IOException {
+    ByteBuffer table;
+    if (offsetTable instanceof BulkData bot && bot.length() == frames * 4) {
+      table = read(file, bot.offset(), bot.length());
+    } else if (offsetTable instanceof byte[] bot && bot.length == frames * 4) {
+      table = ByteBuffer.wrap(bot);
+    } else {
+      return null;
+    }
+    table.order(ByteOrder.LITTLE_ENDIAN);
+    // Offsets are relative to the first byte of the first item (8 bytes of item header)
+    long origin = items.getFirst().offset() - 8;
+    int[] firstFragments = new int[frames];
+    int k = 0;
+    for (int i = 0; i < frames; i++) {
+      long itemOffset = table.getInt(i * 4) & 0xFFFFFFFFL;
+      while (k < items.size() && items.get(k).offset() - 8 - origin < itemOffset) {
+        k++;
+      }
+      if (k == items.size() || items.get(k).offset() - 8 - origin != itemOffset) {
+        return null;
+      }
+      firstFragments[i] = k;
+    }
+    return firstFragments;
+  }
+
+  private static int[] getFirstFragmentsFromMarkers(File file, List<BulkData> items, int frames)
+      throws IOException {
+    // Without offset table, a new frame starts with the JPEG SOI or JPEG 2000 SOC marker
+    int[] firstFragments = new int[frames];
+    int nb = 0;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer marker = ByteBuffer.allocate(2);
+      for (int k = 0; k < items.size(); k++) {
+        if (items.get(k).length() < 2) {
+          continue;
+        }
+        marker.clear();
+        readFully(channel, marker, items.get(k).offset());
+        int value = marker.getShort(0) & 0xFFFF;
+        if (value == 0xFFD8 || value == 0xFF4F) {
+          if (nb == frames) {
+            return null;
+          }
+          firstFragments[nb++] = k;
+        }
+      }
+    }
+    return nb == frames && firstFragments[0] == 0 ? firstFragments : null;
+  }
+
+  private static FrameIndex load(File file, File indexFile, int frames) {
+    if (!indexFile.canRead()) {
+      return null;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+      if (in.readInt() != FORMAT_VERSION
+          || in.readLong() != file.length()
+          || in.readLong() != file.lastModified()
+          || in.readInt() != frames) {
+        return null;
+      }
+      long[][] positions = new long[frames][];
+      int[][] lengths = new int[frames][];
+      for (int i = 0; i < frames; i++) {
+        int nb = in.readInt();
+        positions[i] = new long[nb];
+        lengths[i] = new int[nb];
+        for (int k = 0; k < nb; k++) {
+          positions[i][k] = in.readLong();
+          lengths[i][k] = in.readInt();
+        }
+      }
+      return new FrameIndex(file, positions, lengths);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Cannot read the frame index {}: {}", indexFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private void save(File indexFile) {
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(CACHE_INDEX_DIR.toPath(), "idx_", ".tmp"); // NON-NLS
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(file.length());
+        out.writeLong(file.lastModified());
+        out.writeInt(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+          out.writeInt(positions[i].length);
+          for (int k = 0; k < positions[i].length; k++) {
+            out.writeLong(positions[i][k]);
+            out.writeInt(lengths[i][k]);
+          }
+        }
+      }
+      Files.move(tmp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot write the frame index {}: {}", indexFile, e.getMessage());
+      if (tmp != null) {
+        FileUtil.delete(tmp.toFile());
+      }
+    }
+  }
+
+  /**
+   * Reads the bytes of a frame, the file stays open for reading the next frames.
+   *
+   * @param frame the frame index
+   * @return the native bytes or the compressed bytes of the frame
+   * @throws IOException when the file cannot be read
+   */
+  ByteBuffer readFrame(int frame) throws IOException {
+    long[] pos = positions[frame];
+    int[] len = lengths[frame];
+    int size = 0;
+    for (int l : len) {
+      size += l;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    try {
+      readSegments(getChannel(), buffer, pos, len);
+    } catch (ClosedChannelException e) {
+      // The channel has been closed by another thread, open it again
+      buffer.clear();
+      readSegments(getChannel(), buffer, pos, len);
+    }
+    return buffer.flip();
+  }
+
+  private static void readSegments(FileChannel channel, ByteBuffer buffer, long[] pos, int[] len)
+      throws IOException {
+    for (int k = 0; k < pos.length; k++) {
+      buffer.limit(buffer.position() + len[k]);
+      readFully(channel, buffer, pos[k]);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, offset);
+      if (n < 0) {
+        throw new EOFException();
+      }
+      offset += n;
+    }
+  }
+
+  private static ByteBuffer read(File file, long position, int length) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      readFully(channel, buffer, position);
+      return buffer.flip();
+    }
+  }
+
+  private FileChannel getChannel() throws IOException {
+    synchronized (OPEN_CHANNELS) {
+      FileChannel channel = OPEN_CHANNELS.get(this);
+      if (channel == null || !channel.isOpen()) {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        OPEN_CHANNELS.put(this, channel);
+      }
+      return channel;
+    }
+  }
+
+  /** Closes the file, it is opened again when reading the next frame. */
+  void close() {
+    synchronized (OPEN_CHANNELS) {
+      FileUtil.safeClose(OPEN_CHANNELS.remove(this));
+    }
+  }
+
+  /**
+   * @param metaData the header of the file
+   * @return the frames of the file as input of a {@link DicomImageReader}
+   */
+  BytesWithImageDescriptor newFrameSource(DicomMetaData metaData) {
+    Attributes dcm = metaData.getDicomObject();
+    VR.Holder holder = new VR.Holder();
+    dcm.getValue(Tag.PixelData, holder);
+    String tsuid = metaData.getTransferSyntaxUID();
+    return new BytesWithImageDescriptor() {
+      @Override
+      public ByteBuffer getBytes(int frame) throws IOException {
+        return readFrame(frame);
+      }
+
+      @Override
+      public String getTransferSyntax() {
+        return tsuid;
+      }
+
+      @Override
+      public boolean bigEndian() {
+        return UID.ExplicitVRBigEndian.equals(tsuid);
+      }
+
+      @Override
+      public VR getPixelDataVR() {
+        return holder.vr;
+      }
+
+      @Override
+      public Attributes getPaletteColorLookupTable() {
+        return dcm;
+      }
+
+      @Override
+      public ImageDescriptor getImageDescriptor() {
+        return metaData.getImageDescriptor();
+      }
+    };
+  }
+}
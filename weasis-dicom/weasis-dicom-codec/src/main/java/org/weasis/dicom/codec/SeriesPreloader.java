@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.dcm4che3.data.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.ObservableEvent;
+import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.NativeCache;
+import org.weasis.core.api.media.data.SeriesEvent;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Loads in the cache the images around the current image of a series.
+ *
+ * <p>The images are loaded by a small pool of workers, the nearest images in the scroll direction
+ * first. When the user scrolls quickly, more images are loaded ahead than behind. The number of
+ * images is limited by the free space of the native image cache, so that preloading never removes
+ * the images it has just loaded. When the current image changes, the remaining positions are
+ * computed again from the new image and, after a jump, the readings in progress are cancelled.
+ *
+ * <p>The images are taken from a copy of the list of the view (filter and sorting) made when the
+ * preloader is created. {@link #isListOf(Filter, Comparator)} tells whether the view still displays
+ * this list. While the series is receiving images, the copy is kept for a short time ({@link
+ * #isRecentListOf(Filter, Comparator)}) instead of being made again at each scroll.
+ */
+final class SeriesPreloader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SeriesPreloader.class);
+
+  private static final int WORKERS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+  private static final ExecutorService EXECUTOR =
+      Executors.newFixedThreadPool(
+          WORKERS, ThreadUtil.namedDaemonThreadFactory("Preloader", true)); // NON-NLS
+
+  // Distance from the previous image above which the readings in progress are cancelled
+  private static final int JUMP = 2 * WORKERS + 1;
+
+  // Minimum time between two copies of the list while the series is receiving images
+  private static final long REBUILD_DELAY = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final DicomSeries series;
+  private final Filter<DicomImageElement> filter;
+  private final Comparator<DicomImageElement> comparator;
+  private final int mediaCount;
+  private final List<DicomImageElement> imageList;
+  private final DataExplorerModel model;
+  private final long creationTime = System.nanoTime();
+
+  // Positions and state of the current traversal, guarded by this
+  private final BitSet claimed;
+  private final Set<CompletableFuture<PlanarImage>> inFlight = new HashSet<>();
+  private int center;
+  private int direction;
+  private double speed;
+  private long lastUpdate;
+  // Number of images of the traversal, -1 until computed by a worker
+  private int limit = -1;
+  private boolean computingLimit;
+  private int emitted;
+  private int ahead;
+  private int behind;
+  private int cycle;
+  private int runningWorkers;
+  private boolean stopped;
+
+  SeriesPreloader(
+      DicomSeries series,
+      Filter<DicomImageElement> filter,
+      Comparator<DicomImageElement> comparator,
+      int currentIndex) {
+    this.series = series;
+    this.filter = filter;
+    this.comparator = comparator;
+    this.mediaCount = series.size(null);
+    this.imageList = series.copyOfMedias(filter, comparator);
+    this.model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
+    this.claimed = new BitSet(imageList.size());
+    this.center = currentIndex;
+    this.lastUpdate = System.nanoTime();
+  }
+
+  DicomSeries getSeries() {
+    return series;
+  }
+
+  /**
+   * @return true when the images of the series, the filter and the sorting are the ones used for
+   *     building the list of this preloader
+   */
+  boolean isListOf(Filter<DicomImageElement> filter, Comparator<DicomImageElement> comparator) {
+    return Objects.equals(this.filter, filter)
+        && Objects.equals(this.comparator, comparator)
+        && mediaCount == series.size(null);
+  }
+
+  /**
+   * @return true when the filter and the sorting are the ones of this preloader and its list has
+   *     been built recently, even though the series may have received other images since
+   */
+  boolean isRecentListOf(
+      Filter<DicomImageElement> filter, Comparator<DicomImageElement> comparator) {
+    return Objects.equals(this.filter, filter)
+        && Objects.equals(this.comparator, comparator)
+        && System.nanoTime() - creationTime < REBUILD_DELAY;
+  }
+
+  /**
+   * @return true when the image is at this index in the list of this preloader
+   */
+  boolean isImageAt(DicomImageElement image, int index) {
+    return index >= 0 && index < imageList.size() && imageList.get(index) == image;
+  }
+
+  synchronized void start() {
+    if (model != null && center >= 0 && center < imageList.size()) {
+      recenter();
+    }
+  }
+
+  synchronized void stop() {
+    stopped = true;
+    cancelInFlight();
+    notifyAll();
+  }
+
+  /**
+   * Updates the current image. The scroll direction and speed are computed from the previous
+   * updates, the positions not yet loaded are discarded and computed again from this image.
+   *
+   * @param index the index of the current image in the list
+   */
+  synchronized void update(int index) {
+    if (stopped || model == null || index < 0 || index >= imageList.size() || index == center) {
+      return;
+    }
+    long now = System.nanoTime();
+    int delta = index - center;
+    double elapsed = Math.max(1.0e-3, (now - lastUpdate) / 1.0e9);
+    if (Integer.signum(delta) != direction) {
+      speed = 0;
+    }
+    // Number of images per second, smoothed
+    speed = 0.7 * speed + 0.3 * (Math.abs(delta) / elapsed);
+    direction = Integer.signum(delta);
+    lastUpdate = now;
+    center = index;
+    if (Math.abs(delta) > JUMP) {
+      // The images being read are far from the new position
+      cancelInFlight();
+    }
+    recenter();
+  }
+
+  private void recenter() {
+    claimed.clear();
+    emitted = 0;
+    ahead = 0;
+    behind = 1;
+    cycle = 0;
+    // Computed by a worker, it requires to go through the list
+    limit = -1;
+    while (runningWorkers < WORKERS) {
+      runningWorkers++;
+      EXECUTOR.execute(this::runWorker);
+    }
+  }
+
+  private int computeLimit(int index) {
+    long imageSize = Math.max(1L, evaluateImageSize(imageList.get(index)));
+    NativeCache.Statistics stats = ImageElement.getCacheStatistics();
+    long seriesBytes = 0;
+    for (DicomImageElement img : imageList) {
+      if (img.isImageInCache()) {
+        seriesBytes += imageSize;
+      }
+    }
+    long otherBytes = Math.max(0L, stats.residentBytes() - seriesBytes);
+    // Keep a part of the cache for the other series, but do not evict them for preloading
+    long free = Math.max(stats.maxBytes() - otherBytes, stats.maxGroupBytes() / 4);
+    long budget = Math.min(stats.maxGroupBytes(), free) / 10 * 9;
+    return (int) Math.min(imageList.size(), budget / imageSize);
+  }
+
+  private static long evaluateImageSize(DicomImageElement image) {
+    Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
+    Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
+    Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
+    Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
+    if (allocated != null && sample != null && rows != null && columns != null) {
+      return ((long) rows * columns * sample * allocated) / 8L;
+    }
+    return 0L;
+  }
+
+  /**
+   * @return the next image to load, or null when all the images within the limit are loaded
+   */
+  private DicomImageElement nextImage() {
+    while (true) {
+      int index = claimLimit();
+      if (index >= 0) {
+        int value = 0;
+        try {
+          // Outside the lock, the scroll updates are not blocked
+          value = computeLimit(index);
+        } finally {
+          synchronized (this) {
+            computingLimit = false;
+            // Nothing is preloaded when the limit cannot be computed
+            limit = value;
+            notifyAll();
+          }
+        }
+      } else {
+        synchronized (this) {
+          // Otherwise the traversal has been restarted in the meantime
+          if (stopped || limit >= 0 || Thread.currentThread().isInterrupted()) {
+            return nextImageWithinLimit();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the index of the current image when this worker must compute the limit of the
+   *     traversal, otherwise -1 once the limit is known or the preloader is stopped
+   */
+  private synchronized int claimLimit() {
+    while (!stopped && limit < 0) {
+      if (!computingLimit) {
+        computingLimit = true;
+        return center;
+      }
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private synchronized DicomImageElement nextImageWithinLimit() {
+    while (!stopped && emitted < limit) {
+      int pos = nextPosition();
+      if (pos < 0) {
+        break;
+      }
+      emitted++;
+      if (!claimed.get(pos)) {
+        claimed.set(pos);
+        DicomImageElement img = imageList.get(pos);
+        // Do not load an image if another process is already loading it
+        if (!img.isImageInCache() && !img.isLoading()) {
+          return img;
+        }
+      }
+    }
+    runningWorkers--;
+    return null;
+  }
+
+  // Positions around the center: the center, then several images ahead for one behind
+  private int nextPosition() {
+    if (ahead == 0) {
+      ahead = 1;
+      return center;
+    }
+    int dir = direction == 0 ? 1 : direction;
+    int size = imageList.size();
+    int a = center + dir * ahead;
+    int b = center - dir * behind;
+    boolean hasAhead = a >= 0 && a < size;
+    boolean hasBehind = b >= 0 && b < size;
+    if (!hasAhead && !hasBehind) {
+      return -1;
+    }
+    int ratio = direction == 0 ? 1 : Math.min(8, 2 + (int) (speed / 5.0));
+    if (hasAhead && (!hasBehind || cycle < ratio)) {
+      cycle++;
+      ahead++;
+      return a;
+    }
+    cycle = 0;
+    behind++;
+    return b;
+  }
+
+  private void runWorker() {
+    try {
+      DicomImageElement img;
+      while ((img = nextImage()) != null) {
+        load(img);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Preloading images of {}", series, e);
+      synchronized (this) {
+        runningWorkers--;
+      }
+    }
+  }
+
+  private void load(DicomImageElement img) {
+    long start = System.currentTimeMillis();
+    CompletableFuture<PlanarImage> future = img.getImageAsync();
+    synchronized (this) {
+      if (stopped) {
+        future.cancel(false);
+        return;
+      }
+      inFlight.add(future);
+    }
+    try {
+      if (future.get() != null) {
+        LOGGER.debug("Reading time: {} ms of image: {}", System.currentTimeMillis() - start, img);
+        model.firePropertyChange(
+            new ObservableEvent(
+                ObservableEvent.BasicAction.ADD,
+                model,
+                null,
+                new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img)));
+      }
+    } catch (CancellationException e) {
+      // The image is no longer needed
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof OutOfMemoryError) {
+        LOGGER.error("Out of memory when loading image: {}", img, e.getCause());
+        CvUtil.runGarbageCollectorAndWait(50);
+        stop();
+      }
+    } finally {
+      synchronized (this) {
+        inFlight.remove(future);
+      }
+    }
+  }
+
+  private void cancelInFlight() {
+    for (CompletableFuture<PlanarImage> future : inFlight) {
+      future.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.media.data.TagW;
+
+/**
+ * Images of a series sorted by their location along the normal of the slice (see {@link
+ * TagW#SlicePosition}), for finding the nearest image of a location with a binary search.
+ *
+ * <p>The location is the projection of the image position on the normal of its own plane, so the
+ * images of all the orientations are in the same array. The images without position are not
+ * indexed. This class is not synchronized.
+ */
+final class SlicePositionIndex {
+
+  private double[] locations;
+  private DicomImageElement[] images;
+  private int size;
+
+  SlicePositionIndex(List<DicomImageElement> medias) {
+    int n = medias.size();
+    Integer[] order = new Integer[n];
+    double[] values = new double[n];
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      double location = getLocation(medias.get(i));
+      if (!Double.isNaN(location)) {
+        values[i] = location;
+        order[count++] = i;
+      }
+    }
+    // Stable sort: the images at the same location keep the order of the series
+    Arrays.sort(order, 0, count, (a, b) -> Double.compare(values[a], values[b]));
+    this.locations = new double[Math.max(count, 8)];
+    this.images = new DicomImageElement[locations.length];
+    for (int i = 0; i < count; i++) {
+      locations[i] = values[order[i]];
+      images[i] = medias.get(order[i]);
+    }
+    this.size = count;
+  }
+
+  static double getLocation(DicomImageElement image) {
+    double[] val = (double[]) image.getTagValue(TagW.SlicePosition);
+    return val == null ? Double.NaN : val[0] + val[1] + val[2];
+  }
+
+  /**
+   * Adds an image after the images at the same location.
+   *
+   * @param image the image to add, ignored when it has no position
+   */
+  void add(DicomImageElement image) {
+    double location = getLocation(image);
+    if (Double.isNaN(location)) {
+      return;
+    }
+    if (size == locations.length) {
+      locations = Arrays.copyOf(locations, size * 2);
+      images = Arrays.copyOf(images, size * 2);
+    }
+    int index = upperBound(location);
+    System.arraycopy(locations, index, locations, index + 1, size - index);
+    System.arraycopy(images, index, images, index + 1, size - index);
+    locations[index] = location;
+    images[index] = image;
+    size++;
+  }
+
+  /**
+   * @param location the location along the normal of the slice
+   * @param filter the filter of the images, or null
+   * @return the images passing the filter at the smallest distance of the location, empty when
+   *     there is no image
+   */
+  List<DicomImageElement> getNearest(double location, Filter<DicomImageElement> filter) {
+    int start = upperBound(location);
+    int after = nextPassing(start, 1, filter);
+    int before = nextPassing(start - 1, -1, filter);
+    double diffAfter = after < 0 ? Double.MAX_VALUE : Math.abs(location - locations[after]);
+    double diffBefore = before < 0 ? Double.MAX_VALUE : Math.abs(location - locations[before]);
+    double best = Math.min(diffAfter, diffBefore);
+    List<DicomImageElement> nearest = new ArrayList<>(1);
+    if (best == Double.MAX_VALUE) {
+      return nearest;
+    }
+    // Collect the images at the same distance, on both sides of the location
+    if (diffBefore == best) {
+      int i = before;
+      while (i > 0 && Math.abs(location - locations[i - 1]) == best) {
+        i--;
+      }
+      addPassing(nearest, i, before, filter);
+    }
+    if (diffAfter == best) {
+      int i = after;
+      while (i + 1 < size && Math.abs(location - locations[i + 1]) == best) {
+        i++;
+      }
+      addPassing(nearest, after, i, filter);
+    }
+    return nearest;
+  }
+
+  // Index of the first location greater than the given location
+  private int upperBound(double location) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (locations[mid] <= location) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int nextPassing(int index, int step, Filter<DicomImageElement> filter) {
+    for (int i = index; i >= 0 && i < size; i += step) {
+      if (filter == null || filter.passes(images[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void addPassing(
+      List<DicomImageElement> list, int from, int to, Filter<DicomImageElement> filter) {
+    for (int i = from; i <= to; i++) {
+      if (filter == null || filter.passes(images[i])) {
+        list.add(images[i]);
+      }
+    }
+  }
+}
@@ -23,8 +23,10 @@
 import org.weasis.core.api.image.ImageOpEvent;
 import org.weasis.core.api.image.ImageOpEvent.OpEvent;
 import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.util.LangUtil;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.PRSpecialElement;
+import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.opencv.data.PlanarImage;
 
 public class OverlayOp extends AbstractOp {
@@ -67,6 +69,23 @@ public void handleImageOpEvent(ImageOpEvent event) {
     }
   }
 
+  @Override
+  public boolean isPassThrough() {
+    if (super.isPassThrough() || !LangUtil.getNULLtoFalse((Boolean) params.get(P_SHOW))) {
+      return true;
+    }
+    ImageElement image = (ImageElement) params.get(P_IMAGE_ELEMENT);
+    if (image == null || !(image.getMediaReader() instanceof DicomMediaIO reader)) {
+      return true;
+    }
+    DicomMetaData md = reader.getDicomMetaData();
+    // No overlay in the image and no presentation state
+    return md == null
+        || (params.get(WindowAndPresetsOp.P_PR_ELEMENT) == null
+            && md.getImageDescriptor().getEmbeddedOverlay().isEmpty()
+            && !DicomMediaUtils.hasOverlay(md.getDicomObject()));
+  }
+
   @Override
   public void process() throws Exception {
     PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
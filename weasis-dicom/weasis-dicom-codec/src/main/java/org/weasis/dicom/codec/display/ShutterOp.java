@@ -103,6 +103,14 @@ public void handleImageOpEvent(ImageOpEvent event) {
     }
   }
 
+  @Override
+  public boolean isPassThrough() {
+    boolean shutter = LangUtil.getNULLtoFalse((Boolean) params.get(P_SHOW));
+    return super.isPassThrough()
+        || !shutter
+        || (params.get(P_SHAPE) == null && params.get(WindowAndPresetsOp.P_PR_ELEMENT) == null);
+  }
+
   @Override
   public void process() throws Exception {
     PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
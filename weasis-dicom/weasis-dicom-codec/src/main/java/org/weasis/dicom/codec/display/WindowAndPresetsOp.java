@@ -103,6 +103,19 @@ private void setPreset(PresetWindowLevel preset, ImageElement img, boolean pixel
     setParam(ActionW.LUT_SHAPE.cmd(), p ? preset.getLutShape() : img.getDefaultShape(wlp));
   }
 
+  @Override
+  public byte[] getLookupTable(PlanarImage source) {
+    PrDicomObject pr = (PrDicomObject) params.get(P_PR_ELEMENT);
+    if (pr != null
+        && UID.PseudoColorSoftcopyPresentationStateStorage.equals(
+            pr.getDicomObject().getString(Tag.SOPClassUID))) {
+      // The rendering is in color
+      return null;
+    }
+    return super.getLookupTable(source);
+  }
+
+  @Override
   public void process() throws Exception {
     PlanarImage source = (PlanarImage) params.get(Param.INPUT_IMG);
     PlanarImage result = source;
@@ -14,14 +14,17 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.weasis.dicom.mf.SopInstance;
 
+/** List of the instances of a series, it can be read while the instances are added. */
 public class SeriesInstanceList {
   private final Map<String, SopInstance> dicomInstanceMap = new HashMap<>();
   private final Map<String, SopInstance> dicomUniqueSopInstanceMap = new HashMap<>();
   private boolean containsMultiframes = false;
+  private boolean incomplete = false;
 
-  public void addSopInstance(SopInstance s) {
+  public synchronized void addSopInstance(SopInstance s) {
     if (s != null) {
       SopInstance.addSopInstance(dicomInstanceMap, s);
       SopInstance sop = dicomUniqueSopInstanceMap.get(s.getSopInstanceUID());
@@ -33,29 +36,59 @@ public void addSopInstance(SopInstance s) {
     }
   }
 
-  public SopInstance getSopInstance(String sopUID, Integer instanceNumber) {
+  public synchronized SopInstance getSopInstance(String sopUID, Integer instanceNumber) {
     return SopInstance.getSopInstance(dicomInstanceMap, sopUID, instanceNumber);
   }
 
-  public SopInstance getSopInstance(String sopUID) {
+  public synchronized SopInstance getSopInstance(String sopUID) {
     return dicomUniqueSopInstanceMap.get(sopUID);
   }
 
-  public boolean isContainsMultiframes() {
+  public synchronized boolean isContainsMultiframes() {
     return containsMultiframes;
   }
 
-  public boolean isEmpty() {
+  public synchronized boolean isEmpty() {
     return dicomInstanceMap.isEmpty();
   }
 
-  public int size() {
+  public synchronized int size() {
     return dicomInstanceMap.size();
   }
 
-  public List<SopInstance> getSortedList() {
+  public synchronized List<SopInstance> getSortedList() {
     ArrayList<SopInstance> sopList = new ArrayList<>(dicomInstanceMap.values());
     Collections.sort(sopList);
     return sopList;
   }
+
+  /**
+   * Sets whether other instances can still be added (e.g. the manifest declaring the series is
+   * still read).
+   *
+   * @param incomplete true when other instances can be added
+   */
+  public synchronized void setIncomplete(boolean incomplete) {
+    this.incomplete = incomplete;
+    notifyAll();
+  }
+
+  /**
+   * Waits until other instances are added or the list is complete.
+   *
+   * @param known the instances already handled
+   * @return the sorted instances which are not in the known instances, empty when the list is
+   *     complete
+   */
+  public synchronized List<SopInstance> waitForOtherInstances(Set<SopInstance> known)
+      throws InterruptedException {
+    while (true) {
+      List<SopInstance> list = getSortedList();
+      list.removeIf(known::contains);
+      if (!list.isEmpty() || !incomplete) {
+        return list;
+      }
+      wait();
+    }
+  }
 }
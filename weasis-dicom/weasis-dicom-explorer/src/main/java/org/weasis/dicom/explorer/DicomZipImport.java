@@ -30,7 +30,7 @@
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.FileFormatFilter;
 import org.weasis.core.api.gui.util.GuiUtils;
-import org.weasis.core.api.util.ClosableURLConnection;
+import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.FileUtil;
@@ -157,9 +157,10 @@ public static void loadDicomZip(String uri, DicomModel dicomModel) {
           zipFile = new File(u.getPath());
         } else {
           zipFile = File.createTempFile("dicom_", ".zip", AppProperties.APP_TEMP_DIR); // NON-NLS
-          ClosableURLConnection urlConnection =
-              NetworkUtil.getUrlConnection(u.toURL(), new URLParameters());
-          FileUtil.writeStreamWithIOException(urlConnection.getInputStream(), zipFile);
+          try (HttpResponse response =
+              NetworkUtil.getHttpResponse(uri, new URLParameters(), null)) {
+            FileUtil.writeStreamWithIOException(response.getInputStream(), zipFile);
+          }
         }
       } catch (Exception e) {
         LOGGER.error("Loading DICOM Zip", e);
@@ -155,9 +155,7 @@ protected DicomSeries buildDicomStructure(DicomMediaIO dicomReader) {
 
         Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
         if (splitNb != null) {
-          dicomModel.firePropertyChange(
-              new ObservableEvent(
-                  ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
+          fireUpdateEvent(dicomSeries);
         }
         openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
       } else {
@@ -173,16 +171,14 @@ protected DicomSeries buildDicomStructure(DicomMediaIO dicomReader) {
           // Refresh the number of images on the thumbnail
           Thumbnail t = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
           if (t != null) {
-            GuiExecutor.execute(t::repaint);
+            repaintThumbnail(t);
           }
         }
 
         // If Split series or special DICOM element update the explorer view and View2DContainer
         Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
         if (splitNb != null) {
-          dicomModel.firePropertyChange(
-              new ObservableEvent(
-                  ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
+          fireUpdateEvent(dicomSeries);
         }
         openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
       }
@@ -192,6 +188,20 @@ protected DicomSeries buildDicomStructure(DicomMediaIO dicomReader) {
     return dicomSeries;
   }
 
+  protected void repaintThumbnail(Thumbnail thumbnail) {
+    GuiExecutor.execute(thumbnail::repaint);
+  }
+
+  /**
+   * Notifies the model that a series or a special element has been updated.
+   *
+   * @param source the series or the special element
+   */
+  protected void fireUpdateEvent(Object source) {
+    dicomModel.firePropertyChange(
+        new ObservableEvent(ObservableEvent.BasicAction.UPDATE, dicomModel, null, source));
+  }
+
   private DicomImageElement[] getDicomImageElements(
       DicomMediaIO dicomReader, DicomSeries series, boolean editableDicom) {
     Function<DicomSpecialElementFactory, DicomSpecialElement> buildSpecialElement =
@@ -215,8 +225,7 @@ private DicomImageElement[] getDicomImageElements(
       DicomSpecialElement media = result.getSpecialElement();
       dicomModel.applySplittingRules(series, media);
       series.setFileSize(series.getFileSize() + media.getLength());
-      dicomModel.firePropertyChange(
-          new ObservableEvent(ObservableEvent.BasicAction.UPDATE, dicomModel, null, media));
+      fireUpdateEvent(media);
     }
     return medias;
   }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.media.data.Thumbnail;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.ui.model.GraphicModel;
+import org.weasis.core.ui.serialize.XmlSerializer;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.DicomMediaIO.Reading;
+import org.weasis.dicom.codec.DicomSeries;
+
+/**
+ * Imports the DICOM files while they are received (e.g. by C-GET). The files are added one by one
+ * with {@link #addFile(File)}, their headers are read by a pool of threads, and the parsed files
+ * are added to the model by batches in the order of arrival. The thumbnails and the update events
+ * of the model are fired once by batch.
+ *
+ * <p>The task waits for the files in its own thread, only the batches are added to the model in
+ * {@link DicomModel#LOADING_EXECUTOR}, so the other imports are not blocked until the end of the
+ * transfer. The task must be executed before adding the files, and {@link #finish()} must be called
+ * when no more files will be added.
+ */
+public class LoadIncomingDicom extends LoadDicom {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadIncomingDicom.class);
+
+  public static final String INDEXING_THREADS = "dicom.import.indexing.threads";
+
+  private static final int MAX_BATCH_SIZE = 100;
+  private static final long MAX_BATCH_DELAY = 250; // in ms
+
+  private static final Future<DicomMediaIO> END = CompletableFuture.completedFuture(null);
+
+  private final BlockingQueue<Future<DicomMediaIO>> incoming = new LinkedBlockingQueue<>();
+  private final ExecutorService parsers;
+  private final Set<DicomSeries> updatedSeries = new LinkedHashSet<>();
+  private final Set<Thumbnail> updatedThumbnails = new LinkedHashSet<>();
+  private final Set<Object> updatedElements = new LinkedHashSet<>();
+  private volatile boolean finished = false;
+
+  public LoadIncomingDicom(DataExplorerModel explorerModel, PluginOpeningStrategy openingStrategy) {
+    super(explorerModel, false, openingStrategy);
+    int defaultThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    int threads =
+        GuiUtils.getUICore()
+            .getSystemPreferences()
+            .getIntProperty(INDEXING_THREADS, defaultThreads);
+    this.parsers = ThreadUtil.newFixedThreadPool(Math.max(1, threads), "DICOM Indexer");
+  }
+
+  /**
+   * Adds a received file, its header is read immediately in a parallel thread.
+   *
+   * @param file the DICOM file
+   */
+  public void addFile(File file) {
+    if (file != null && !finished) {
+      try {
+        incoming.add(parsers.submit(() -> parse(file)));
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("The import has been stopped, {} is ignored", file);
+      }
+    }
+  }
+
+  /** Indicates that no more files will be added, the task ends when all the files are imported. */
+  public void finish() {
+    if (!finished) {
+      finished = true;
+      incoming.add(END);
+    }
+  }
+
+  private DicomMediaIO parse(File file) {
+    if (!file.canRead()) {
+      return null;
+    }
+    DicomMediaIO loader = new DicomMediaIO(file);
+    // Read the header in the current thread
+    Reading reading = loader.getReadingStatus();
+    if (reading == Reading.READABLE) {
+      if (file.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
+        loader.getFileCache().setOriginalTempFile(file);
+      }
+      GraphicModel graphicModel =
+          XmlSerializer.readPresentationModel(new File(file.getPath() + ".xml"));
+      if (graphicModel != null) {
+        loader.setTag(TagW.PresentationModel, graphicModel);
+      }
+      return loader;
+    } else if (reading == Reading.ERROR) {
+      errors.incrementAndGet();
+    }
+    return null;
+  }
+
+  /**
+   * Waits until the files added before {@link #finish()} have been imported.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public void waitForImport() throws InterruptedException {
+    try {
+      get();
+    } catch (CancellationException e) {
+      LOGGER.debug("The import has been cancelled");
+    } catch (ExecutionException e) {
+      LOGGER.error("Import DICOM files", e.getCause());
+    }
+  }
+
+  @Override
+  protected Boolean doInBackground() throws Exception {
+    startLoadingEvent();
+    openingStrategy.prepareImport();
+    try {
+      List<DicomMediaIO> batch = new ArrayList<>();
+      long batchStart = System.currentTimeMillis();
+      while (!isCancelled()) {
+        Future<DicomMediaIO> next = incoming.poll(MAX_BATCH_DELAY, TimeUnit.MILLISECONDS);
+        if (next == END) {
+          break;
+        }
+        if (next != null) {
+          DicomMediaIO loader = getParsedFile(next);
+          if (loader != null) {
+            batch.add(loader);
+          }
+        }
+        if (batch.size() >= MAX_BATCH_SIZE
+            || (!batch.isEmpty() && System.currentTimeMillis() - batchStart >= MAX_BATCH_DELAY)) {
+          importBatch(batch);
+          batch = new ArrayList<>();
+          batchStart = System.currentTimeMillis();
+        }
+      }
+      if (!isCancelled()) {
+        importBatch(batch);
+      }
+    } finally {
+      finished = true;
+      parsers.shutdownNow();
+      incoming.clear();
+    }
+    return true;
+  }
+
+  private void importBatch(List<DicomMediaIO> batch)
+      throws InterruptedException, ExecutionException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    LOGGER.debug("Import a batch of {} DICOM files", batch.size());
+    // Built in the loading executor like the other imports, which can run between the batches
+    DicomModel.LOADING_EXECUTOR
+        .submit(
+            () -> {
+              for (DicomMediaIO loader : batch) {
+                DicomSeries series = buildDicomStructure(loader);
+                if (series != null) {
+                  updatedSeries.add(series);
+                }
+              }
+              commitBatch();
+            })
+        .get();
+  }
+
+  private static DicomMediaIO getParsedFile(Future<DicomMediaIO> future)
+      throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      LOGGER.error("Cannot read the DICOM file", e.getCause());
+      return null;
+    }
+  }
+
+  private void commitBatch() {
+    for (Object element : updatedElements) {
+      super.fireUpdateEvent(element);
+    }
+    updatedElements.clear();
+    for (DicomSeries series : updatedSeries) {
+      dicomModel.buildThumbnail(series);
+    }
+    updatedSeries.clear();
+    if (!updatedThumbnails.isEmpty()) {
+      Thumbnail[] thumbnails = updatedThumbnails.toArray(new Thumbnail[0]);
+      updatedThumbnails.clear();
+      GuiExecutor.execute(
+          () -> {
+            for (Thumbnail t : thumbnails) {
+              t.repaint();
+            }
+          });
+    }
+  }
+
+  @Override
+  protected void repaintThumbnail(Thumbnail thumbnail) {
+    // Repainted once at the end of the batch
+    updatedThumbnails.add(thumbnail);
+  }
+
+  @Override
+  protected void fireUpdateEvent(Object source) {
+    // Fired once at the end of the batch
+    updatedElements.add(source);
+  }
+}
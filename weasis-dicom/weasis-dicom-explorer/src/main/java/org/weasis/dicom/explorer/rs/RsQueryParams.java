@@ -12,11 +12,14 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.JOptionPane;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +61,8 @@ public class RsQueryParams extends ExplorerTask<Boolean, String> {
   private final Properties properties;
   private final Map<String, String> queryHeaders;
   private final Map<String, String> retrieveHeaders;
+  private final WadoParameters thumbnailParameters;
+  private final Set<LoadSeries> startedSeries = new HashSet<>();
   protected final Map<String, List<String>> requestMap;
   protected final RsQueryResult arcConfig;
 
@@ -82,9 +87,12 @@ public RsQueryParams(
       throw new IllegalArgumentException("DICOMWeb URL cannot be null");
     }
 
-    this.seriesMap = new HashMap<>();
+    this.seriesMap = new ConcurrentHashMap<>();
     this.queryHeaders = queryHeaders == null ? Collections.emptyMap() : queryHeaders;
     this.retrieveHeaders = retrieveHeaders == null ? Collections.emptyMap() : retrieveHeaders;
+    this.thumbnailParameters = new WadoParameters("", true, true);
+    this.retrieveHeaders.forEach(thumbnailParameters::addHttpTag);
+    thumbnailParameters.addHttpTag("Accept", "image/jpeg"); // NON-NLS
     String uid = properties.getProperty(RsQueryParams.P_AUTH_UID);
     AuthMethod method = null;
     if (StringUtil.hasText(uid)) {
@@ -165,17 +173,9 @@ protected Boolean doInBackground() throws Exception {
     fillPatientList();
 
     if (!seriesMap.isEmpty()) {
-      openingStrategy.prepareImport();
-      WadoParameters wp = new WadoParameters("", true, true);
-      getRetrieveHeaders().forEach(wp::addHttpTag);
-      wp.addHttpTag("Accept", "image/jpeg"); // NON-NLS
-
+      // Most of the series have already been started when their instances have been queried
       for (final LoadSeries loadSeries : seriesMap.values()) {
-        if (!DicomModel.isHiddenModality(loadSeries.getDicomSeries())) {
-          loadSeries.startDownloadImageReference(wp);
-        }
-        loadSeries.setPOpeningStrategy(openingStrategy);
-        DownloadManager.addLoadSeries(loadSeries, dicomModel, loadSeries.isStartDownloading());
+        startLoadSeries(loadSeries);
       }
 
       // Sort tasks from the download priority order (low number has a higher priority), TASKS
@@ -187,6 +187,28 @@ protected Boolean doInBackground() throws Exception {
     return true;
   }
 
+  /**
+   * Adds the series to the download queue. Called by the queries as soon as all the instances of a
+   * series are known, the series already started are ignored.
+   *
+   * @param loadSeries the series to load
+   */
+  void startLoadSeries(LoadSeries loadSeries) {
+    synchronized (startedSeries) {
+      if (!startedSeries.add(loadSeries)) {
+        return;
+      }
+      if (startedSeries.size() == 1) {
+        openingStrategy.prepareImport();
+      }
+    }
+    if (!DicomModel.isHiddenModality(loadSeries.getDicomSeries())) {
+      loadSeries.startDownloadImageReference(thumbnailParameters);
+    }
+    loadSeries.setPOpeningStrategy(openingStrategy);
+    DownloadManager.addLoadSeries(loadSeries, dicomModel, loadSeries.isStartDownloading());
+  }
+
   private void fillPatientList() {
     try {
       String requestType = getRequestType();
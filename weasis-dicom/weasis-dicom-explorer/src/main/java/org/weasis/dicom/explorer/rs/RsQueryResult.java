@@ -15,11 +15,19 @@
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.img.util.DateTimeUtils;
@@ -36,6 +44,7 @@
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.LangUtil;
 import org.weasis.core.util.StringUtil;
@@ -65,11 +74,16 @@ public class RsQueryResult extends AbstractQueryResult {
       multiParams("0008103E,00080060,0020000E,00200011,00081190"); // NON-NLS
   public static final String INSTANCE_QUERY = multiParams("00080018,00200013,00081190");
   public static final String QIDO_REQUEST = "QIDO-RS request: {}"; // NON-NLS
+  public static final String CONCURRENT_QUERIES = "download.concurrent.qido.queries";
 
   private final RsQueryParams rsQueryParams;
   private final WadoParameters wadoParameters;
   private final boolean defaultStartDownloading;
   private final AuthMethod authMethod;
+  private final int concurrentQueries;
+  private final Object modelLock = new Object();
+  private final Queue<Future<?>> pendingQueries = new ConcurrentLinkedQueue<>();
+  private volatile ExecutorService queryExecutor;
 
   public RsQueryResult(RsQueryParams rsQueryParams, AuthMethod authMethod) {
     this.rsQueryParams = rsQueryParams;
@@ -88,6 +102,9 @@ public RsQueryResult(RsQueryParams rsQueryParams, AuthMethod authMethod) {
         GuiUtils.getUICore()
             .getSystemPreferences()
             .getBooleanProperty(DicomExplorerPrefView.DOWNLOAD_IMMEDIATELY, true);
+    concurrentQueries =
+        Math.max(
+            1, GuiUtils.getUICore().getSystemPreferences().getIntProperty(CONCURRENT_QUERIES, 4));
   }
 
   private static String multiParams(String query) {
@@ -99,38 +116,88 @@ public WadoParameters getWadoParameters() {
     return null;
   }
 
-  public void buildFromPatientID(List<String> patientIDs) {
-    for (String patientID : LangUtil.emptyIfNull(patientIDs)) {
-      if (!StringUtil.hasText(patientID)) {
-        continue;
+  /**
+   * Executes the queries submitted by the task with a bounded number of concurrent requests. The
+   * queries can submit other queries (e.g. the instances of each series), the method returns when
+   * all of them are completed.
+   */
+  private void executeQueries(Runnable task) {
+    try (ExecutorService executor =
+        ThreadUtil.newFixedThreadPool(concurrentQueries, "QIDO-RS Query")) {
+      queryExecutor = executor;
+      task.run();
+      // A query is always completed after having submitted its own queries
+      Future<?> future;
+      while ((future = pendingQueries.poll()) != null) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          // Reject the queries submitted by the running ones before cancelling the pending ones
+          executor.shutdownNow();
+          pendingQueries.forEach(f -> f.cancel(true));
+          pendingQueries.clear();
+          break;
+        } catch (CancellationException e) {
+          LOGGER.debug("QIDO-RS query cancelled");
+        } catch (ExecutionException e) {
+          LOGGER.error("QIDO-RS query", e.getCause());
+        }
       }
+    } finally {
+      queryExecutor = null;
+    }
+  }
 
-      // IssuerOfPatientID filter ( syntax like in HL7 with extension^^^root)
-      int beginIndex = patientID.indexOf("^^^");
-
-      StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-      buf.append("/studies?00100020="); // NON-NLS
-      String patientVal = beginIndex <= 0 ? patientID : patientID.substring(0, beginIndex);
+  private void submitQuery(Runnable query) {
+    ExecutorService executor = queryExecutor;
+    if (executor == null) {
+      query.run();
+    } else {
       try {
-        buf.append(URLEncoder.encode(patientVal, StandardCharsets.UTF_8));
-        if (beginIndex > 0) {
-          buf.append("&00100021=");
-          buf.append(patientID.substring(beginIndex + 3));
-        }
-        buf.append(STUDY_QUERY);
-        buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+        pendingQueries.add(executor.submit(query));
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("QIDO-RS queries have been cancelled");
+      }
+    }
+  }
 
-        LOGGER.debug(QIDO_REQUEST, buf);
-        List<Attributes> studies =
-            parseJSON(
-                buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
-        if (!studies.isEmpty()) {
-          studies.sort(getStudyComparator());
-          applyAllFilters(studies);
-        }
-      } catch (Exception e) {
-        LOGGER.error("QIDO-RS with PatientID {}", patientID, e);
+  public void buildFromPatientID(List<String> patientIDs) {
+    executeQueries(
+        () -> {
+          for (String patientID : LangUtil.emptyIfNull(patientIDs)) {
+            if (StringUtil.hasText(patientID)) {
+              submitQuery(() -> queryPatientStudies(patientID));
+            }
+          }
+        });
+  }
+
+  private void queryPatientStudies(String patientID) {
+    // IssuerOfPatientID filter ( syntax like in HL7 with extension^^^root)
+    int beginIndex = patientID.indexOf("^^^");
+
+    StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+    buf.append("/studies?00100020="); // NON-NLS
+    String patientVal = beginIndex <= 0 ? patientID : patientID.substring(0, beginIndex);
+    try {
+      buf.append(URLEncoder.encode(patientVal, StandardCharsets.UTF_8));
+      if (beginIndex > 0) {
+        buf.append("&00100021=");
+        buf.append(patientID.substring(beginIndex + 3));
       }
+      buf.append(STUDY_QUERY);
+      buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+
+      LOGGER.debug(QIDO_REQUEST, buf);
+      List<Attributes> studies =
+          parseJSON(buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
+      if (!studies.isEmpty()) {
+        studies.sort(getStudyComparator());
+        applyAllFilters(studies);
+      }
+    } catch (Exception e) {
+      LOGGER.error("QIDO-RS with PatientID {}", patientID, e);
     }
   }
 
@@ -248,7 +315,7 @@ private void applyAllFilters(List<Attributes> studies) {
     }
 
     for (Attributes studyDataSet : studies) {
-      fillSeries(studyDataSet, defaultStartDownloading);
+      submitQuery(() -> fillSeries(studyDataSet, defaultStartDownloading));
     }
   }
 
@@ -290,52 +357,62 @@ public void buildFromStudyInstanceUID(List<String> studyInstanceUIDs) {
   }
 
   public void buildFromStudyInstanceUID(List<String> studyInstanceUIDs, boolean startDownloading) {
-    for (String studyInstanceUID : LangUtil.emptyIfNull(studyInstanceUIDs)) {
-      if (!StringUtil.hasText(studyInstanceUID)) {
-        continue;
-      }
-      StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-      buf.append("/studies?0020000D="); // NON-NLS
-      buf.append(studyInstanceUID);
-      buf.append(STUDY_QUERY);
-      buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+    executeQueries(
+        () -> {
+          for (String studyInstanceUID : LangUtil.emptyIfNull(studyInstanceUIDs)) {
+            if (StringUtil.hasText(studyInstanceUID)) {
+              submitQuery(() -> queryStudy(studyInstanceUID, startDownloading));
+            }
+          }
+        });
+  }
 
-      try {
-        LOGGER.debug(QIDO_REQUEST, buf);
-        List<Attributes> studies =
-            parseJSON(
-                buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
-        for (Attributes studyDataSet : studies) {
-          fillSeries(studyDataSet, startDownloading);
-        }
-      } catch (Exception e) {
-        LOGGER.error("QIDO-RS with studyUID {}", studyInstanceUID, e);
+  private void queryStudy(String studyInstanceUID, boolean startDownloading) {
+    StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+    buf.append("/studies?0020000D="); // NON-NLS
+    buf.append(studyInstanceUID);
+    buf.append(STUDY_QUERY);
+    buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+
+    try {
+      LOGGER.debug(QIDO_REQUEST, buf);
+      List<Attributes> studies =
+          parseJSON(buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
+      for (Attributes studyDataSet : studies) {
+        submitQuery(() -> fillSeries(studyDataSet, startDownloading));
       }
+    } catch (Exception e) {
+      LOGGER.error("QIDO-RS with studyUID {}", studyInstanceUID, e);
     }
   }
 
   public void buildFromStudyAccessionNumber(List<String> accessionNumbers) {
-    for (String accessionNumber : LangUtil.emptyIfNull(accessionNumbers)) {
-      if (!StringUtil.hasText(accessionNumber)) {
-        continue;
-      }
-      StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-      buf.append("/studies?00080050="); // NON-NLS
-      buf.append(accessionNumber);
-      buf.append(STUDY_QUERY);
-      buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+    executeQueries(
+        () -> {
+          for (String accessionNumber : LangUtil.emptyIfNull(accessionNumbers)) {
+            if (StringUtil.hasText(accessionNumber)) {
+              submitQuery(() -> queryAccessionNumber(accessionNumber));
+            }
+          }
+        });
+  }
 
-      try {
-        LOGGER.debug(QIDO_REQUEST, buf);
-        List<Attributes> studies =
-            parseJSON(
-                buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
-        for (Attributes studyDataSet : studies) {
-          fillSeries(studyDataSet, defaultStartDownloading);
-        }
-      } catch (Exception e) {
-        LOGGER.error("QIDO-RS with AccessionNumber {}", accessionNumber, e);
+  private void queryAccessionNumber(String accessionNumber) {
+    StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+    buf.append("/studies?00080050="); // NON-NLS
+    buf.append(accessionNumber);
+    buf.append(STUDY_QUERY);
+    buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+
+    try {
+      LOGGER.debug(QIDO_REQUEST, buf);
+      List<Attributes> studies =
+          parseJSON(buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
+      for (Attributes studyDataSet : studies) {
+        submitQuery(() -> fillSeries(studyDataSet, defaultStartDownloading));
       }
+    } catch (Exception e) {
+      LOGGER.error("QIDO-RS with AccessionNumber {}", accessionNumber, e);
     }
   }
 
@@ -343,81 +420,89 @@ public void buildFromSeriesInstanceUID(List<String> seriesInstanceUIDs) {
     boolean wholeStudy =
         LangUtil.getEmptytoFalse(
             rsQueryParams.getProperties().getProperty(RsQueryParams.P_SHOW_WHOLE_STUDY));
-    Set<String> studyHashSet = new LinkedHashSet<>();
-
-    for (String seriesInstanceUID : LangUtil.emptyIfNull(seriesInstanceUIDs)) {
-      if (!StringUtil.hasText(seriesInstanceUID)) {
-        continue;
-      }
+    Set<String> studyHashSet = Collections.synchronizedSet(new LinkedHashSet<>());
 
-      StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-      buf.append("/series?0020000E="); // NON-NLS
-      buf.append(seriesInstanceUID);
-      buf.append(STUDY_QUERY);
-      buf.append(",0008103E,00080060,00081190,00200011"); // NON-NLS
-      buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
-
-      try {
-        LOGGER.debug(QIDO_REQUEST, buf);
-        List<Attributes> series =
-            parseJSON(
-                buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
-        if (!series.isEmpty()) {
-          Attributes dataset = series.getFirst();
-          MediaSeriesGroup patient = getPatient(dataset, rsQueryParams.getDicomModel());
-          MediaSeriesGroup study = getStudy(patient, dataset, rsQueryParams.getDicomModel());
-          for (Attributes seriesDataset : series) {
-            Series<?> dicomSeries = getSeries(study, seriesDataset, defaultStartDownloading);
-            fillInstance(seriesDataset, dicomSeries);
+    executeQueries(
+        () -> {
+          for (String seriesInstanceUID : LangUtil.emptyIfNull(seriesInstanceUIDs)) {
+            if (StringUtil.hasText(seriesInstanceUID)) {
+              submitQuery(() -> querySeries(seriesInstanceUID, studyHashSet));
+            }
           }
-          studyHashSet.add(dataset.getString(Tag.StudyInstanceUID));
-        }
-      } catch (Exception e) {
-        LOGGER.error("QIDO-RS with seriesUID {}", seriesInstanceUID, e);
-      }
-    }
+        });
 
     if (wholeStudy) {
       buildFromStudyInstanceUID(new ArrayList<>(studyHashSet), false);
     }
   }
 
-  public void buildFromSopInstanceUID(List<String> sopInstanceUIDs) {
-    for (String sopInstanceUID : LangUtil.emptyIfNull(sopInstanceUIDs)) {
-      if (!StringUtil.hasText(sopInstanceUID)) {
-        continue;
+  private void querySeries(String seriesInstanceUID, Set<String> studyHashSet) {
+    StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+    buf.append("/series?0020000E="); // NON-NLS
+    buf.append(seriesInstanceUID);
+    buf.append(STUDY_QUERY);
+    buf.append(",0008103E,00080060,00081190,00200011"); // NON-NLS
+    buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+
+    try {
+      LOGGER.debug(QIDO_REQUEST, buf);
+      List<Attributes> series =
+          parseJSON(buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
+      if (!series.isEmpty()) {
+        Attributes dataset = series.getFirst();
+        MediaSeriesGroup study = getStudyGroup(dataset);
+        for (Attributes seriesDataset : series) {
+          Series<?> dicomSeries = getSeries(study, seriesDataset, defaultStartDownloading);
+          submitQuery(() -> fillInstance(seriesDataset, dicomSeries));
+        }
+        studyHashSet.add(dataset.getString(Tag.StudyInstanceUID));
       }
+    } catch (Exception e) {
+      LOGGER.error("QIDO-RS with seriesUID {}", seriesInstanceUID, e);
+    }
+  }
 
-      StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-      buf.append("/instances?00080018="); // NON-NLS
-      buf.append(sopInstanceUID);
-      buf.append(STUDY_QUERY);
-      buf.append(",0008103E,00080060,0020000E,00200011"); // NON-NLS
-      buf.append(",00200013,00081190");
-      buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+  public void buildFromSopInstanceUID(List<String> sopInstanceUIDs) {
+    executeQueries(
+        () -> {
+          for (String sopInstanceUID : LangUtil.emptyIfNull(sopInstanceUIDs)) {
+            if (StringUtil.hasText(sopInstanceUID)) {
+              submitQuery(() -> queryInstance(sopInstanceUID));
+            }
+          }
+        });
+  }
 
-      try {
-        LOGGER.debug(QIDO_REQUEST, buf);
-        List<Attributes> instances =
-            parseJSON(
-                buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
-        if (!instances.isEmpty()) {
-          Attributes dataset = instances.get(0);
-          MediaSeriesGroup patient = getPatient(dataset, rsQueryParams.getDicomModel());
-          MediaSeriesGroup study = getStudy(patient, dataset, rsQueryParams.getDicomModel());
-          Series<?> dicomSeries = getSeries(study, dataset, defaultStartDownloading);
-          String seriesRetrieveURL = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
-          SeriesInstanceList seriesInstanceList =
-              (SeriesInstanceList) dicomSeries.getTagValue(TagW.WadoInstanceReferenceList);
-          if (seriesInstanceList != null) {
+  private void queryInstance(String sopInstanceUID) {
+    StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+    buf.append("/instances?00080018="); // NON-NLS
+    buf.append(sopInstanceUID);
+    buf.append(STUDY_QUERY);
+    buf.append(",0008103E,00080060,0020000E,00200011"); // NON-NLS
+    buf.append(",00200013,00081190");
+    buf.append(rsQueryParams.getProperties().getProperty(RsQueryParams.P_QUERY_EXT, ""));
+
+    try {
+      LOGGER.debug(QIDO_REQUEST, buf);
+      List<Attributes> instances =
+          parseJSON(buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
+      if (!instances.isEmpty()) {
+        Attributes dataset = instances.get(0);
+        MediaSeriesGroup study = getStudyGroup(dataset);
+        Series<?> dicomSeries = getSeries(study, dataset, defaultStartDownloading);
+        String seriesRetrieveURL = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
+        SeriesInstanceList seriesInstanceList =
+            (SeriesInstanceList) dicomSeries.getTagValue(TagW.WadoInstanceReferenceList);
+        if (seriesInstanceList != null) {
+          synchronized (seriesInstanceList) {
             for (Attributes instanceDataSet : instances) {
               addSopInstance(instanceDataSet, seriesInstanceList, seriesRetrieveURL);
             }
           }
         }
-      } catch (Exception e) {
-        LOGGER.error("QIDO-RS with sopInstanceUID {}", sopInstanceUID, e);
       }
+    } catch (Exception e) {
+      LOGGER.error("QIDO-RS with sopInstanceUID {}", sopInstanceUID, e);
     }
   }
 
@@ -438,11 +523,10 @@ private void fillSeries(Attributes studyDataSet, boolean startDownloading) {
                 buf.toString(), authMethod, new URLParameters(rsQueryParams.getQueryHeaders()));
         if (!series.isEmpty()) {
           // Get patient from each study in case IssuerOfPatientID is different
-          MediaSeriesGroup patient = getPatient(studyDataSet, rsQueryParams.getDicomModel());
-          MediaSeriesGroup study = getStudy(patient, studyDataSet, rsQueryParams.getDicomModel());
+          MediaSeriesGroup study = getStudyGroup(studyDataSet);
           for (Attributes seriesDataset : series) {
             Series<?> dicomSeries = getSeries(study, seriesDataset, startDownloading);
-            fillInstance(seriesDataset, dicomSeries);
+            submitQuery(() -> fillInstance(seriesDataset, dicomSeries));
           }
         }
       } catch (Exception e) {
@@ -480,8 +564,10 @@ private void fillInstance(Attributes seriesDataset, Series<?> dicomSeries) {
           SeriesInstanceList seriesInstanceList =
               (SeriesInstanceList) dicomSeries.getTagValue(TagW.WadoInstanceReferenceList);
           if (seriesInstanceList != null) {
-            for (Attributes instanceDataSet : instances) {
-              addSopInstance(instanceDataSet, seriesInstanceList, seriesRetrieveURL);
+            synchronized (seriesInstanceList) {
+              for (Attributes instanceDataSet : instances) {
+                addSopInstance(instanceDataSet, seriesInstanceList, seriesRetrieveURL);
+              }
             }
           }
           offset += instances.size();
@@ -492,6 +578,11 @@ private void fillInstance(Attributes seriesDataset, Series<?> dicomSeries) {
       } catch (Exception e) {
         LOGGER.error("QIDO-RS all instances with seriesUID {}", seriesUID, e);
       }
+      // Start loading the series without waiting the other queries
+      LoadSeries loadSeries = rsQueryParams.getSeriesMap().get(seriesUID);
+      if (loadSeries != null) {
+        rsQueryParams.startLoadSeries(loadSeries);
+      }
     }
   }
 
@@ -513,6 +604,15 @@ public static void addSopInstance(
     }
   }
 
+  private MediaSeriesGroup getStudyGroup(Attributes studyDataset) {
+    DicomModel model = rsQueryParams.getDicomModel();
+    // The queries running concurrently must not create the same patient or study twice
+    synchronized (modelLock) {
+      MediaSeriesGroup patient = getPatient(studyDataset, model);
+      return getStudy(patient, studyDataset, model);
+    }
+  }
+
   public static MediaSeriesGroup getPatient(Attributes patientDataset, DicomModel model) {
     if (patientDataset == null) {
       throw new IllegalArgumentException("patientDataset cannot be null");
@@ -575,50 +675,52 @@ private DicomSeries getSeries(
     if (seriesDataset == null) {
       throw new IllegalArgumentException("seriesDataset cannot be null");
     }
-    String seriesUID = seriesDataset.getString(Tag.SeriesInstanceUID);
-    DicomModel model = rsQueryParams.getDicomModel();
-    DicomSeries dicomSeries = (DicomSeries) model.getHierarchyNode(study, seriesUID);
-    if (dicomSeries == null) {
-      dicomSeries = new DicomSeries(seriesUID);
-      dicomSeries.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
-      dicomSeries.setTag(TagW.ExplorerModel, model);
-      dicomSeries.setTag(TagW.WadoParameters, wadoParameters);
-      dicomSeries.setTag(TagW.WadoInstanceReferenceList, new SeriesInstanceList());
+    synchronized (modelLock) {
+      String seriesUID = seriesDataset.getString(Tag.SeriesInstanceUID);
+      DicomModel model = rsQueryParams.getDicomModel();
+      DicomSeries dicomSeries = (DicomSeries) model.getHierarchyNode(study, seriesUID);
+      if (dicomSeries == null) {
+        dicomSeries = new DicomSeries(seriesUID);
+        dicomSeries.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
+        dicomSeries.setTag(TagW.ExplorerModel, model);
+        dicomSeries.setTag(TagW.WadoParameters, wadoParameters);
+        dicomSeries.setTag(TagW.WadoInstanceReferenceList, new SeriesInstanceList());
+
+        TagW[] tags =
+            TagD.getTagFromIDs(
+                Tag.Modality, Tag.SeriesNumber, Tag.SeriesDescription, Tag.RetrieveURL);
+        for (TagW tag : tags) {
+          tag.readValue(seriesDataset, dicomSeries);
+        }
+        if (!StringUtil.hasText(TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class))) {
+          StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
+          buf.append("/studies/"); // NON-NLS
+          buf.append(study.getTagValue(TagD.get(Tag.StudyInstanceUID)));
+          buf.append("/series/"); // NON-NLS
+          buf.append(seriesUID);
+          dicomSeries.setTag(TagD.get(Tag.RetrieveURL), buf.toString());
+        }
 
-      TagW[] tags =
-          TagD.getTagFromIDs(
-              Tag.Modality, Tag.SeriesNumber, Tag.SeriesDescription, Tag.RetrieveURL);
-      for (TagW tag : tags) {
-        tag.readValue(seriesDataset, dicomSeries);
-      }
-      if (!StringUtil.hasText(TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class))) {
-        StringBuilder buf = new StringBuilder(rsQueryParams.getBaseUrl());
-        buf.append("/studies/"); // NON-NLS
-        buf.append(study.getTagValue(TagD.get(Tag.StudyInstanceUID)));
-        buf.append("/series/"); // NON-NLS
-        buf.append(seriesUID);
-        dicomSeries.setTag(TagD.get(Tag.RetrieveURL), buf.toString());
+        model.addHierarchyNode(study, dicomSeries);
+
+        final LoadSeries loadSeries =
+            new LoadSeries(
+                dicomSeries,
+                rsQueryParams.getDicomModel(),
+                authMethod,
+                GuiUtils.getUICore()
+                    .getSystemPreferences()
+                    .getIntProperty(LoadSeries.CONCURRENT_DOWNLOADS_IN_SERIES, 4),
+                true,
+                startDownloading);
+        loadSeries.setPriority(
+            new DownloadPriority(
+                model.getParent(study, DicomModel.patient), study, dicomSeries, true));
+        rsQueryParams
+            .getSeriesMap()
+            .put(TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class), loadSeries);
       }
-
-      model.addHierarchyNode(study, dicomSeries);
-
-      final LoadSeries loadSeries =
-          new LoadSeries(
-              dicomSeries,
-              rsQueryParams.getDicomModel(),
-              authMethod,
-              GuiUtils.getUICore()
-                  .getSystemPreferences()
-                  .getIntProperty(LoadSeries.CONCURRENT_DOWNLOADS_IN_SERIES, 4),
-              true,
-              startDownloading);
-      loadSeries.setPriority(
-          new DownloadPriority(
-              model.getParent(study, DicomModel.patient), study, dicomSeries, true));
-      rsQueryParams
-          .getSeriesMap()
-          .put(TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class), loadSeries);
+      return dicomSeries;
     }
-    return dicomSeries;
   }
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StreamIOException;
+import org.weasis.dicom.codec.DicomMediaIO;
+
+/**
+ * Writes a downloaded DICOM stream in a file and reads its header in the same pass. The attributes
+ * preceding the pixel data are parsed (and can be modified) before being written, then the pixel
+ * data is copied without being decoded. The position of the pixel data in the file is kept, so the
+ * {@link DicomMediaIO} built with {@link #buildReader(File)} does not have to parse the file again.
+ */
+final class DicomDownloadSink {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomDownloadSink.class);
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Consumer<Attributes> tagOverrider;
+
+  private Attributes header;
+  private String transferSyntax;
+  private boolean bigEndian;
+  private VR pixelDataVR;
+  private boolean encapsulated;
+  // Position and length of the pixel data value or of each fragment in the written file
+  private final List<long[]> pixelDataItems = new ArrayList<>();
+  private PartialDownload partial;
+  private CountingOutputStream output;
+
+  /**
+   * @param tagOverrider modifies the attributes before they are written, can be null
+   */
+  DicomDownloadSink(Consumer<Attributes> tagOverrider) {
+    this.tagOverrider = tagOverrider;
+  }
+
+  /**
+   * @param in the DICOM stream, closed at the end
+   * @param file the file to write
+   * @return bytes transferred. O = error, -1 = all bytes has been transferred, other = bytes
+   *     transferred before interruption
+   * @throws StreamIOException reading or writing error
+   */
+  int write(InputStream in, File file) throws StreamIOException {
+    return write(in, file, null);
+  }
+
+  /**
+   * @param in the DICOM stream, closed at the end
+   * @param file the file to write
+   * @param part keeps the received bytes when the transfer is interrupted, can be null
+   * @return bytes transferred. O = error, -1 = all bytes has been transferred, other = bytes
+   *     transferred before interruption
+   * @throws StreamIOException reading or writing error, the download can be resumed with part
+   */
+  int write(InputStream in, File file, PartialDownload part) throws StreamIOException {
+    if (in == null || file == null) {
+      return 0;
+    }
+    header = null;
+    pixelDataVR = null;
+    encapsulated = false;
+    pixelDataItems.clear();
+    partial = part;
+    output = null;
+
+    try (DicomInputStream dis = new DicomInputStream(part == null ? in : part.record(in));
+        CountingOutputStream out =
+            new CountingOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+      output = out;
+      Attributes fmi = dis.getFileMetaInformation();
+      String tsuid = dis.getTransferSyntax();
+      boolean deflated =
+          UID.DeflatedExplicitVRLittleEndian.equals(tsuid)
+              || UID.JPIPReferencedDeflate.equals(tsuid);
+      // The pixel data of a deflated stream cannot be copied without being inflated
+      Attributes dataset = deflated ? dis.readDataset() : dis.readDatasetUntilPixelData();
+      boolean hasPixelData = !deflated && dis.tag() == Tag.PixelData;
+      if (tagOverrider != null) {
+        tagOverrider.accept(dataset);
+      }
+      if (fmi == null) {
+        fmi = dataset.createFileMetaInformation(tsuid);
+      }
+
+      DicomOutputStream dos = new DicomOutputStream(out, UID.ExplicitVRLittleEndian);
+      dos.writeDataset(fmi, dataset);
+      if (hasPixelData) {
+        copyPixelData(dis, dos, out);
+        // Copy the trailing elements (e.g. Data Set Trailing Padding)
+        copy(dis, out, Long.MAX_VALUE);
+      }
+      dos.finish();
+      dos.flush();
+
+      if (!deflated) {
+        this.header = dataset;
+        this.transferSyntax = tsuid;
+        this.bigEndian = dis.bigEndian();
+      }
+      return -1;
+    } catch (InterruptedIOException e) {
+      keepPartial(file);
+      reset(file);
+      LOGGER.error("Interruption when writing file: {}", e.getMessage());
+      return e.bytesTransferred;
+    } catch (IOException e) {
+      keepPartial(file);
+      reset(file);
+      throw new StreamIOException(e);
+    } catch (Exception e) {
+      if (partial != null) {
+        partial.delete();
+      }
+      reset(file);
+      LOGGER.error("Writing DICOM temp file", e);
+      return 0;
+    }
+  }
+
+  private void keepPartial(File file) {
+    if (partial != null) {
+      partial.interrupted(file, output == null ? 0 : output.count);
+    }
+  }
+
+  private void reset(File file) {
+    header = null;
+    FileUtil.delete(file);
+  }
+
+  private void copyPixelData(DicomInputStream dis, DicomOutputStream dos, CountingOutputStream out)
+      throws IOException {
+    pixelDataVR = dis.vr();
+    int length = dis.length();
+    dos.writeHeader(Tag.PixelData, pixelDataVR, length);
+    if (partial != null) {
+      // The following bytes are copied without modification
+      partial.pixelDataStart(dis.getPosition(), out.count);
+    }
+    if (length == -1) {
+      encapsulated = true;
+      while (dis.readHeader()) {
+        int tag = dis.tag();
+        if (tag == Tag.SequenceDelimitationItem) {
+          dos.writeHeader(Tag.SequenceDelimitationItem, null, 0);
+          return;
+        }
+        if (tag != Tag.Item) {
+          throw new IOException("Unexpected tag in the pixel data: " + Integer.toHexString(tag));
+        }
+        int itemLength = dis.length();
+        dos.writeHeader(Tag.Item, null, itemLength);
+        pixelDataItems.add(new long[] {out.count, itemLength});
+        copy(dis, out, itemLength);
+      }
+      throw new EOFException("Missing end of the encapsulated pixel data");
+    } else {
+      pixelDataItems.add(new long[] {out.count, length & 0xFFFFFFFFL});
+      copy(dis, out, length & 0xFFFFFFFFL);
+    }
+  }
+
+  private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+    byte[] buf = new byte[BUFFER_SIZE];
+    long remaining = length;
+    while (remaining > 0) {
+      int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+      if (n < 0) {
+        if (length == Long.MAX_VALUE) {
+          return;
+        }
+        throw new EOFException();
+      }
+      out.write(buf, 0, n);
+      remaining -= n;
+    }
+  }
+
+  /**
+   * Builds the reader of the written file. The file can have been moved after being written.
+   *
+   * @param file the written file
+   * @return the reader with the header read while writing, or a reader parsing the file when the
+   *     header is not available or when the pixel data is too large
+   */
+  DicomMediaIO buildReader(File file) {
+    // BulkData cannot reference a value of 2 GiB or more
+    if (header == null || pixelDataItems.stream().anyMatch(i -> i[1] > Integer.MAX_VALUE)) {
+      return new DicomMediaIO(file);
+    }
+    if (pixelDataVR != null) {
+      String uri = file.toURI().toString();
+      if (encapsulated) {
+        Fragments fragments =
+            header.newFragments(Tag.PixelData, pixelDataVR, pixelDataItems.size());
+        for (long[] item : pixelDataItems) {
+          fragments.add(
+              item[1] == 0 ? new byte[0] : new BulkData(uri, item[0], (int) item[1], bigEndian));
+        }
+      } else if (!pixelDataItems.isEmpty()) {
+        long[] item = pixelDataItems.getFirst();
+        header.setValue(
+            Tag.PixelData, pixelDataVR, new BulkData(uri, item[0], (int) item[1], bigEndian));
+      }
+    }
+    return new DicomMediaIO(file, header, transferSyntax);
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -10,8 +10,8 @@
 package org.weasis.dicom.explorer.wado;
 
 import java.io.BufferedInputStream;
-import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
@@ -28,6 +28,7 @@
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker.StateValue;
@@ -36,29 +37,24 @@
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import javax.xml.transform.Source;
-import javax.xml.transform.stax.StAXSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.auth.AuthMethod;
 import org.weasis.core.api.explorer.ObservableEvent;
-import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.WinUtil;
-import org.weasis.core.api.media.MimeInspector;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.MediaSeriesGroupNode;
 import org.weasis.core.api.media.data.TagUtil;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.util.BiConsumerWithException;
-import org.weasis.core.api.util.ClosableURLConnection;
+import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
@@ -96,7 +92,6 @@
 import org.weasis.dicom.mf.SopInstance;
 import org.weasis.dicom.mf.WadoParameters;
 import org.weasis.dicom.mf.Xml;
-import org.xml.sax.SAXException;
 
 public class DownloadManager {
 
@@ -123,6 +118,10 @@ public class DownloadManager {
           PRIORITY_QUEUE,
           ThreadUtil.namedThreadFactory("SeriesDownloader"));
 
+  // Shared by all the series for downloading the instances
+  public static final DownloadScheduler DOWNLOAD_SCHEDULER =
+      DownloadScheduler.buildFromPreferences();
+
   public static class PriorityTaskComparator implements Comparator<Runnable> {
 
     @Override
@@ -185,6 +184,22 @@ public static void offerSeriesInQueue(final LoadSeries series) {
     }
   }
 
+  /**
+   * Allows one more series to be loaded simultaneously until all the series are downloaded. The
+   * number of instances downloaded simultaneously is still limited by the download scheduler.
+   */
+  static void increaseConcurrentSeries() {
+    synchronized (CONCURRENT_EXECUTOR) {
+      int size = CONCURRENT_EXECUTOR.getCorePoolSize() + 1;
+      if (size <= DOWNLOAD_SCHEDULER.getMaxDownloads()) {
+        if (size > CONCURRENT_EXECUTOR.getMaximumPoolSize()) {
+          CONCURRENT_EXECUTOR.setMaximumPoolSize(size);
+        }
+        CONCURRENT_EXECUTOR.setCorePoolSize(size);
+      }
+    }
+  }
+
   public static synchronized void addLoadSeries(
       final LoadSeries series, DicomModel dicomModel, boolean startLoading) {
     if (series != null) {
@@ -253,6 +268,7 @@ public static void stopDownloading(DicomSeries series, DicomModel dicomModel) {
             }
             // Ensure to stop downloading
             series.setSeriesLoader(null);
+            PartialDownload.discardAll((String) series.getTagValue(series.getTagID()));
             break;
           }
         }
@@ -285,6 +301,23 @@ private interface LoadSeriesHandler {
 
   public static Collection<LoadSeries> buildDicomSeriesFromXml(URI uri, final DicomModel model)
       throws DownloadException {
+    return buildDicomSeriesFromXml(uri, model, null);
+  }
+
+  /**
+   * Reads the manifest in a single pass from the network stream. The XML is validated against the
+   * XSD schema while it is read.
+   *
+   * @param uri the URI of the manifest
+   * @param model the DICOM model
+   * @param seriesHandler called for each series to download as soon as its closing element is read,
+   *     can be null
+   * @return all the series to download
+   * @throws DownloadException if the manifest cannot be downloaded
+   */
+  public static Collection<LoadSeries> buildDicomSeriesFromXml(
+      URI uri, final DicomModel model, Consumer<LoadSeries> seriesHandler)
+      throws DownloadException {
     Map<String, LoadSeries> seriesMap = new HashMap<>();
     XMLStreamReader xmler = null;
     InputStream stream = null;
@@ -295,63 +328,31 @@ public static Collection<LoadSeries> buildDicomSeriesFromXml(URI uri, final Dico
       factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
 
       String path = uri.getPath();
-      URLParameters urlParameters =
-          new URLParameters(
-              null,
-              StringUtil.getInt(System.getProperty("UrlConnectionTimeout"), 7000),
-              StringUtil.getInt(System.getProperty("UrlReadTimeout"), 15000) * 2);
-
-      ClosableURLConnection urlConnection =
-          NetworkUtil.getUrlConnection(uri.toURL(), urlParameters);
-
-      LOGGER.info("Downloading XML manifest: {}", path);
-      InputStream urlInputStream = urlConnection.getInputStream();
-
-      if (path.endsWith(".gz")) {
-        stream = new BufferedInputStream(new GZIPInputStream(urlInputStream));
-      } else if (path.endsWith(".xml")) {
-        stream = urlInputStream;
-      } else {
-        // In case wado file has no extension
-        File outFile = File.createTempFile("wado_", "", AppProperties.APP_TEMP_DIR); // NON-NLS
-        FileUtil.writeStreamWithIOException(urlInputStream, outFile);
-        if (MimeInspector.isMatchingMimeTypeFromMagicNumber(
-            outFile, "application/x-gzip")) { // NON-NLS
-          stream = new BufferedInputStream(new GZIPInputStream(new FileInputStream(outFile)));
-        } else {
-          stream = new FileInputStream(outFile);
-        }
-      }
-
-      File tempFile;
       if (uri.toString().startsWith("file:") && path.endsWith(".xml")) { // NON-NLS
-        tempFile = new File(path);
+        stream = new FileInputStream(path);
       } else {
-        tempFile = File.createTempFile("wado_", ".xml", AppProperties.APP_TEMP_DIR); // NON-NLS
-        FileUtil.writeStreamWithIOException(stream, tempFile);
-      }
-      xmler = factory.createXMLStreamReader(new FileInputStream(tempFile));
+        URLParameters urlParameters =
+            new URLParameters(
+                null,
+                StringUtil.getInt(System.getProperty("UrlConnectionTimeout"), 7000),
+                StringUtil.getInt(System.getProperty("UrlReadTimeout"), 15000) * 2);
 
-      Source xmlFile = new StAXSource(xmler);
-      SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-      try {
-        Schema schema =
-            schemaFactory.newSchema(DownloadManager.class.getResource("/config/manifest.xsd"));
-        Validator validator = schema.newValidator();
-        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, StringUtil.EMPTY_STRING);
-        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, StringUtil.EMPTY_STRING);
-        validator.validate(xmlFile);
-        LOGGER.info("[Validate with XSD schema] the manifest is valid");
-      } catch (SAXException e) {
-        LOGGER.error("[Validate with XSD schema] the manifest is NOT valid", e);
-      } catch (Exception e) {
-        LOGGER.error("Error when validate XSD schema.", e);
+        HttpResponse response = NetworkUtil.getHttpResponse(uri.toString(), urlParameters, null);
+
+        LOGGER.info("Downloading XML manifest: {}", path);
+        stream = new BufferedInputStream(response.getInputStream());
+        // In case wado file has no extension, check the gzip magic number
+        if (path.endsWith(".gz") || (!path.endsWith(".xml") && isGzipStream(stream))) {
+          stream = new BufferedInputStream(new GZIPInputStream(stream));
+        }
       }
 
-      ReaderParams params = new ReaderParams(model, seriesMap);
+      Schema schema = ManifestSchema.INSTANCE;
+      ValidatingXMLStreamReader validatingReader =
+          new ValidatingXMLStreamReader(factory.createXMLStreamReader(stream), schema);
+      xmler = validatingReader;
+      ReaderParams params = new ReaderParams(model, seriesMap, seriesHandler);
       // Try to read the xml even it is not valid.
-      xmler = factory.createXMLStreamReader(new FileInputStream(tempFile));
-
       BiConsumerWithException<XMLStreamReader, ReaderParams, XMLStreamException> method =
           (x, r) -> {
             String key = x.getName().getLocalPart();
@@ -382,7 +383,9 @@ public static Collection<LoadSeries> buildDicomSeriesFromXml(URI uri, final Dico
             }
           };
       readElement(xmler, ArcParameters.TAG_DOCUMENT_ROOT, method, params);
-
+      if (schema != null && validatingReader.endValidation()) {
+        LOGGER.info("[Validate with XSD schema] the manifest is valid");
+      }
     } catch (StreamIOException e) {
       throw new DownloadException(getErrorMessage(uri), e); // rethrow network issue
     } catch (Exception e) {
@@ -410,10 +413,35 @@ public static Collection<LoadSeries> buildDicomSeriesFromXml(URI uri, final Dico
     } finally {
       FileUtil.safeClose(xmler);
       FileUtil.safeClose(stream);
+      // All the instances have been read, the tasks can complete
+      seriesMap.values().forEach(s -> s.setReadingManifest(false));
     }
     return seriesMap.values();
   }
 
+  private static boolean isGzipStream(InputStream stream) throws IOException {
+    stream.mark(2);
+    int b1 = stream.read();
+    int b2 = stream.read();
+    stream.reset();
+    return b1 >= 0 && b2 >= 0 && ((b2 << 8) | b1) == GZIPInputStream.GZIP_MAGIC;
+  }
+
+  private static Schema compileManifestSchema() {
+    try {
+      SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+      return schemaFactory.newSchema(DownloadManager.class.getResource("/config/manifest.xsd"));
+    } catch (Exception e) {
+      LOGGER.error("Error when compiling the XSD schema of the manifest", e);
+      return null;
+    }
+  }
+
+  // Compiled once on first use, a Schema is immutable and thread-safe
+  private static final class ManifestSchema {
+    static final Schema INSTANCE = compileManifestSchema();
+  }
+
   private static String getErrorMessage(URI uri) {
     StringBuilder buf = new StringBuilder(Messages.getString("DownloadManager.error_load_xml"));
     buf.append(StringUtil.COLON_AND_SPACE);
@@ -524,9 +552,11 @@ private static void readQuery(
             }
           });
     }
-    for (LoadSeries loadSeries : params.getSeriesMap().values()) {
-      if (!DicomModel.isHiddenModality(loadSeries.getDicomSeries())) {
-        loadSeries.startDownloadImageReference(wadoParameters);
+    if (params.seriesHandler == null) {
+      for (LoadSeries loadSeries : params.getSeriesMap().values()) {
+        if (!DicomModel.isHiddenModality(loadSeries.getDicomSeries())) {
+          loadSeries.startDownloadImageReference(wadoParameters);
+        }
       }
     }
   }
@@ -691,7 +721,11 @@ private static DicomSeries readSeries(
         xmler, TagD.Level.INSTANCE.getTagName(), TagD.Level.SERIES.getTagName(), method, params);
     dicomSeries.setTag(TagW.WadoInstanceReferenceList, seriesInstanceList);
 
-    if (!seriesInstanceList.isEmpty()) {
+    LoadSeries previous = params.getSeriesMap().get(seriesUID);
+    if (previous != null) {
+      // A series declared again in another block of the manifest is loaded by the same task
+      previous.setReadingManifest(true);
+    } else if (!seriesInstanceList.isEmpty()) {
       AuthMethod authMethod = params.wadoUri == null ? null : params.wadoUri.getAuthMethod();
       final LoadSeries loadSeries =
           new LoadSeries(
@@ -705,6 +739,15 @@ private static DicomSeries readSeries(
               true);
       loadSeries.setPriority(new DownloadPriority(patient, study, dicomSeries, true));
       params.getSeriesMap().put(seriesUID, loadSeries);
+      if (params.seriesHandler != null) {
+        // The task waits for the instances that can be declared later in the manifest
+        loadSeries.setReadingManifest(true);
+        // The http tags are declared before the patients, the thumbnail can be loaded now
+        if (!DicomModel.isHiddenModality(dicomSeries)) {
+          loadSeries.startDownloadImageReference(wadoParameters);
+        }
+        params.seriesHandler.accept(loadSeries);
+      }
     }
     return dicomSeries;
   }
@@ -753,6 +796,10 @@ private static void readPresentation(XMLStreamReader xmler, ReaderParams params)
                 }
               }
             }
+            if (params.seriesHandler != null) {
+              // The series may be downloading since its closing element
+              series.applyPresentationModels();
+            }
           }
         }
       }
@@ -890,11 +937,14 @@ private static void readElement(
   static class ReaderParams {
     private final DicomModel model;
     private final Map<String, LoadSeries> seriesMap;
+    private final Consumer<LoadSeries> seriesHandler;
     private DicomWebNode wadoUri;
 
-    public ReaderParams(DicomModel model, Map<String, LoadSeries> seriesMap) {
+    public ReaderParams(
+        DicomModel model, Map<String, LoadSeries> seriesMap, Consumer<LoadSeries> seriesHandler) {
       this.model = model;
       this.seriesMap = seriesMap;
+      this.seriesHandler = seriesHandler;
     }
 
     public DicomModel getModel() {
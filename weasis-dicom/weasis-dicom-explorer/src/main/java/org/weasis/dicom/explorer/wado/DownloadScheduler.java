@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.WProperties;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.codec.DicomSeries;
+
+/**
+ * Schedules the downloads of the DICOM instances of all the series being loaded. The number of
+ * simultaneous downloads is limited globally, by host and by series.
+ *
+ * <p>The next instance is chosen only when a download slot is released, so the order always follows
+ * the current priority of the series: first the series displayed in a view, then the {@link
+ * DownloadPriority}. Changing the priority of a series reorders its queued instances without
+ * cancelling the series.
+ */
+public final class DownloadScheduler {
+
+  public static final String CONCURRENT_DOWNLOADS = "download.concurrent.images";
+  public static final String CONCURRENT_HOST_DOWNLOADS = "download.concurrent.host.images";
+
+  private static final Comparator<Runnable> PRIORITY_COMPARATOR =
+      new DownloadManager.PriorityTaskComparator();
+
+  private final int maxDownloads;
+  private final int maxHostDownloads;
+  private final ExecutorService executor;
+
+  // Queued instances of each series in the download order of the series
+  private final Map<LoadSeries, ArrayDeque<Job>> pending = new LinkedHashMap<>();
+  private final Map<LoadSeries, Integer> activeBySeries = new HashMap<>();
+  private final Map<String, Integer> activeByHost = new HashMap<>();
+  private int active;
+
+  public DownloadScheduler(int maxDownloads, int maxHostDownloads) {
+    this.maxDownloads = Math.max(1, maxDownloads);
+    this.maxHostDownloads = Math.max(1, maxHostDownloads);
+    // The number of threads is limited by the number of download slots
+    this.executor = ThreadUtil.newCachedThreadPool("Image Downloader");
+  }
+
+  static DownloadScheduler buildFromPreferences() {
+    WProperties preferences = GuiUtils.getUICore().getSystemPreferences();
+    return new DownloadScheduler(
+        preferences.getIntProperty(CONCURRENT_DOWNLOADS, 12),
+        preferences.getIntProperty(CONCURRENT_HOST_DOWNLOADS, 6));
+  }
+
+  public int getMaxDownloads() {
+    return maxDownloads;
+  }
+
+  public int getMaxHostDownloads() {
+    return maxHostDownloads;
+  }
+
+  /**
+   * Queues a task of a series.
+   *
+   * @param series the series owning the task
+   * @param url the URL downloaded by the task, or null when the task does not use the network
+   * @param task the task to execute
+   * @return the future of the task, cancelling it removes the task from the queue
+   */
+  public Future<Boolean> submit(LoadSeries series, String url, Callable<Boolean> task) {
+    Job job = new Job(series, getHost(url), task);
+    synchronized (this) {
+      pending.computeIfAbsent(series, _ -> new ArrayDeque<>()).add(job);
+      dispatch();
+    }
+    return job;
+  }
+
+  /** Reorders the queued instances after a change of the series priorities. */
+  public synchronized void reschedule() {
+    dispatch();
+  }
+
+  public synchronized int getQueuedDownloads() {
+    return pending.values().stream().mapToInt(ArrayDeque::size).sum();
+  }
+
+  public synchronized int getActiveDownloads() {
+    return active;
+  }
+
+  private void dispatch() {
+    while (active < maxDownloads) {
+      Entry<LoadSeries, ArrayDeque<Job>> next = null;
+      for (Entry<LoadSeries, ArrayDeque<Job>> entry : pending.entrySet()) {
+        if (isReady(entry.getKey(), entry.getValue().peek())
+            && (next == null || compareSeries(entry.getKey(), next.getKey()) < 0)) {
+          next = entry;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      Job job = next.getValue().poll();
+      if (next.getValue().isEmpty()) {
+        pending.remove(next.getKey());
+      }
+      active++;
+      activeBySeries.merge(job.series, 1, Integer::sum);
+      if (job.host != null) {
+        activeByHost.merge(job.host, 1, Integer::sum);
+      }
+      executor.execute(job);
+    }
+  }
+
+  private boolean isReady(LoadSeries series, Job job) {
+    if (job == null
+        || activeBySeries.getOrDefault(series, 0) >= Math.max(1, series.getConcurrentDownloads())) {
+      return false;
+    }
+    return job.host == null || activeByHost.getOrDefault(job.host, 0) < maxHostDownloads;
+  }
+
+  private synchronized void release(Job job) {
+    active--;
+    activeBySeries.computeIfPresent(job.series, (_, v) -> v > 1 ? v - 1 : null);
+    if (job.host != null) {
+      activeByHost.computeIfPresent(job.host, (_, v) -> v > 1 ? v - 1 : null);
+    }
+    dispatch();
+  }
+
+  private synchronized void removeQueued(Job job) {
+    ArrayDeque<Job> jobs = pending.get(job.series);
+    if (jobs != null && jobs.remove(job) && jobs.isEmpty()) {
+      pending.remove(job.series);
+    }
+  }
+
+  private static int compareSeries(LoadSeries s1, LoadSeries s2) {
+    int rep = Integer.compare(getViewRank(s1.getDicomSeries()), getViewRank(s2.getDicomSeries()));
+    if (rep != 0) {
+      return rep;
+    }
+    if (s1.getPriority() == null || s2.getPriority() == null) {
+      return Boolean.compare(s1.getPriority() == null, s2.getPriority() == null);
+    }
+    return PRIORITY_COMPARATOR.compare(s1, s2);
+  }
+
+  private static int getViewRank(DicomSeries series) {
+    if (series.isFocused()) {
+      return 0;
+    }
+    if (series.isSelected()) {
+      return 1;
+    }
+    return series.isOpen() ? 2 : 3;
+  }
+
+  private static String getHost(String url) {
+    if (url == null) {
+      return null;
+    }
+    try {
+      URI uri = URI.create(url);
+      return uri.getHost() == null ? null : uri.getHost() + ":" + uri.getPort();
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private final class Job extends FutureTask<Boolean> {
+    private final LoadSeries series;
+    private final String host;
+
+    Job(LoadSeries series, String host, Callable<Boolean> task) {
+      super(task);
+      this.series = series;
+      this.host = host;
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        release(this);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        removeQueued(this);
+      }
+      return cancelled;
+    }
+  }
+}
@@ -18,6 +18,8 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
@@ -45,7 +47,8 @@ public class LoadRemoteDicomManifest extends ExplorerTask<Boolean, String> {
   private final DicomModel dicomModel;
   private final List<String> xmlFiles;
   private final AtomicInteger retryNb = new AtomicInteger(0);
-  private final List<LoadSeries> loadSeriesList = new ArrayList<>();
+  // Updated by the manifest reader and by the listener of the model
+  private final CopyOnWriteArrayList<LoadSeries> loadSeriesList = new CopyOnWriteArrayList<>();
   private final PropertyChangeListener propertyChangeListener =
       evt -> {
         if (evt instanceof ObservableEvent event
@@ -54,9 +57,8 @@ public class LoadRemoteDicomManifest extends ExplorerTask<Boolean, String> {
           if (ObservableEvent.BasicAction.LOADING_STOP.equals(cmd)
               || ObservableEvent.BasicAction.LOADING_CANCEL.equals(cmd)) {
             checkDownloadIssues(series);
-          } else if (ObservableEvent.BasicAction.LOADING_START.equals(cmd)
-              && !loadSeriesList.contains(series)) {
-            loadSeriesList.add(series);
+          } else if (ObservableEvent.BasicAction.LOADING_START.equals(cmd)) {
+            loadSeriesList.addIfAbsent(series);
           }
         }
       };
@@ -170,14 +172,33 @@ protected Boolean doInBackground() throws Exception {
   private void downloadManifest(String path) throws DownloadException {
     try {
       URI uri = NetworkUtil.getURI(path);
-      Collection<LoadSeries> wadoTasks = DownloadManager.buildDicomSeriesFromXml(uri, dicomModel);
-
-      loadSeriesList.addAll(wadoTasks);
       boolean downloadImmediately =
           GuiUtils.getUICore()
               .getSystemPreferences()
               .getBooleanProperty(DicomExplorerPrefView.DOWNLOAD_IMMEDIATELY, true);
-      startDownloadingSeries(wadoTasks, downloadImmediately, false);
+      PluginOpeningStrategy openingStrategy =
+          new PluginOpeningStrategy(DownloadManager.getOpeningViewer());
+      AtomicBoolean importPrepared = new AtomicBoolean(false);
+      // Start downloading each series while the rest of the manifest is parsed
+      Collection<LoadSeries> wadoTasks =
+          DownloadManager.buildDicomSeriesFromXml(
+              uri,
+              dicomModel,
+              loadSeries -> {
+                if (importPrepared.compareAndSet(false, true)) {
+                  openingStrategy.prepareImport();
+                }
+                loadSeriesList.addIfAbsent(loadSeries);
+                loadSeries.setPOpeningStrategy(openingStrategy);
+                DownloadManager.addLoadSeries(loadSeries, dicomModel, downloadImmediately);
+                DownloadManager.CONCURRENT_EXECUTOR.prestartAllCoreThreads();
+              });
+
+      if (!wadoTasks.isEmpty()) {
+        // Sort tasks from the download priority order (low number has a higher priority), TASKS
+        // are sorted from low-to-high priority.
+        DownloadManager.getTasks().sort(Collections.reverseOrder(new PriorityTaskComparator()));
+      }
       if (!downloadImmediately) {
         LoadSeries.notifyDownloadCompletion(dicomModel);
       }
@@ -29,7 +29,9 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -37,7 +39,9 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -46,10 +50,6 @@
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.ElementDictionary;
 import org.dcm4che3.data.Tag;
-import org.dcm4che3.io.DicomInputStream;
-import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
-import org.dcm4che3.io.DicomOutputStream;
-import org.dcm4che3.util.SafeClose;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.auth.AuthMethod;
@@ -68,12 +68,10 @@
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.model.PerformanceModel;
 import org.weasis.core.api.service.AuditLog;
-import org.weasis.core.api.util.AuthResponse;
 import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.ResourceUtil.ResourceIconPath;
-import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.model.ReferencedImage;
@@ -97,6 +95,7 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LoadSeries.class);
   public static final String CONCURRENT_DOWNLOADS_IN_SERIES = "download.concurrent.series.images";
+  public static final String WADO_RS_SERIES_RETRIEVE = "download.wado.rs.series.retrieve";
 
   public static final File DICOM_TMP_DIR =
       AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
@@ -281,7 +280,8 @@ protected void done() {
       LoadLocalDicom.seriesPostProcessing(dicomSeries, dicomModel);
 
       String loadType = getLoadType();
-      String seriesUID = (String) dicomSeries.getTagValue(dicomSeries.getTagID());
+      String seriesUID = getSeriesUID();
+      PartialDownload.discardAll(seriesUID);
       String modality = TagD.getTagValue(dicomSeries, Tag.Modality, String.class);
       int imageNumber = getImageNumber();
       long fileSize = dicomSeries.getFileSize();
@@ -386,6 +386,10 @@ public boolean isStartDownloading() {
     return startDownloading;
   }
 
+  private String getSeriesUID() {
+    return (String) dicomSeries.getTagValue(dicomSeries.getTagID());
+  }
+
   private String getLoadType() {
     final WadoParameters wado = (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
     if (wado == null || !StringUtil.hasText(wado.getBaseURL())) {
@@ -480,82 +484,273 @@ private Boolean startDownload() {
       return false;
     }
 
-    List<SopInstance> sopList = seriesInstanceList.getSortedList();
-
-    try (ExecutorService imageDownloader =
-        ThreadUtil.newFixedThreadPool(concurrentDownloads, "Image Downloader")) {
-      ArrayList<Callable<Boolean>> tasks = new ArrayList<>(sopList.size());
-      int[] dindex = generateDownloadOrder(sopList.size());
+    DownloadScheduler scheduler = DownloadManager.DOWNLOAD_SCHEDULER;
+    List<Future<Boolean>> futures = new ArrayList<>();
+    try {
+      List<SopInstance> sopList = seriesInstanceList.getSortedList();
+      Set<SopInstance> handled = Collections.newSetFromMap(new IdentityHashMap<>());
+      int total = sopList.size();
       GuiExecutor.execute(
           () -> {
-            progressBar.setMaximum(sopList.size());
+            progressBar.setMaximum(total);
             progressBar.setValue(0);
           });
-      for (int k = 0; k < sopList.size(); k++) {
-        SopInstance instance = sopList.get(dindex[k]);
-        if (isCancelled()) {
+      dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
+      boolean firstList = true;
+      while (!sopList.isEmpty()) {
+        handled.addAll(sopList);
+        List<Download> tasks = buildDownloads(sopList, wado, study);
+        if (tasks == null) {
           return true;
         }
+        String seriesURL = firstList ? getSeriesRetrieveURL(wado, tasks.size()) : null;
+        firstList = false;
+        if (seriesURL != null) {
+          downloadWholeSeries(seriesURL, scheduler);
+          if (isCancelled()) {
+            return true;
+          }
+          // Fallback for the instances that were not in the series response
+          tasks.removeIf(t -> isSOPInstanceUIDExist(study, dicomSeries, t.sopInstanceUID));
+        }
+        for (Download task : tasks) {
+          futures.add(scheduler.submit(this, task.url, task));
+        }
+        for (Future<Boolean> future : futures) {
+          waitForDownload(future);
+        }
+        futures.clear();
 
-        if (seriesInstanceList.isContainsMultiframes()
-            && seriesInstanceList.getSopInstance(instance.getSopInstanceUID()) != instance) {
-          // Do not handle wado query for multi-frames
-          continue;
+        // Instances of the series declared again in the manifest which is still read
+        sopList = seriesInstanceList.waitForOtherInstances(handled);
+        int added = sopList.size();
+        if (added > 0) {
+          GuiExecutor.execute(() -> progressBar.setMaximum(progressBar.getMaximum() + added));
         }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // Remove the queued instances when the series is stopped
+      futures.forEach(f -> f.cancel(true));
+    }
+    return true;
+  }
+
+  /**
+   * Builds the download of each instance, the instances already in the series are skipped.
+   *
+   * @return the downloads or null when the task is cancelled
+   */
+  private List<Download> buildDownloads(
+      List<SopInstance> sopList, WadoParameters wado, MediaSeriesGroup study) {
+    List<Download> tasks = new ArrayList<>(sopList.size());
+    int[] dindex = generateDownloadOrder(sopList.size());
+    for (int k = 0; k < sopList.size(); k++) {
+      SopInstance instance = sopList.get(dindex[k]);
+      if (isCancelled()) {
+        return null;
+      }
+
+      if (seriesInstanceList.isContainsMultiframes()
+          && seriesInstanceList.getSopInstance(instance.getSopInstanceUID()) != instance) {
+        // Do not handle wado query for multi-frames
+        continue;
+      }
+
+      // Test if SOPInstanceUID already exists
+      if (isSOPInstanceUIDExist(study, dicomSeries, instance.getSopInstanceUID())) {
+        incrementProgressBarValue();
+        LOGGER.debug("DICOM instance {} already exists, skip.", instance.getSopInstanceUID());
+        continue;
+      }
 
-        // Test if SOPInstanceUID already exists
-        if (isSOPInstanceUIDExist(study, dicomSeries, instance.getSopInstanceUID())) {
-          incrementProgressBarValue();
-          LOGGER.debug("DICOM instance {} already exists, skip.", instance.getSopInstanceUID());
-          continue;
+      String studyUID = "";
+      String seriesUID = "";
+      if (!wado.isRequireOnlySOPInstanceUID()) {
+        studyUID = TagD.getTagValue(study, Tag.StudyInstanceUID, String.class);
+        seriesUID = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+      }
+      StringBuilder request = new StringBuilder(wado.getBaseURL());
+      if (instance.getDirectDownloadFile() == null) {
+        request.append("?requestType=WADO&studyUID="); // NON-NLS
+        request.append(studyUID);
+        request.append("&seriesUID="); // NON-NLS
+        request.append(seriesUID);
+        request.append("&objectUID="); // NON-NLS
+        request.append(instance.getSopInstanceUID());
+        request.append("&contentType=application%2Fdicom"); // NON-NLS
+
+        // for dcm4chee: it gets original DICOM files when no TransferSyntax is specified
+        String wadoTsuid = (String) dicomSeries.getTagValue(TagW.WadoTransferSyntaxUID);
+        if (StringUtil.hasText(wadoTsuid)) {
+          request.append("&transferSyntax="); // NON-NLS
+          request.append(wadoTsuid);
+          Integer rate = (Integer) dicomSeries.getTagValue(TagW.WadoCompressionRate);
+          if (rate != null && rate > 0) {
+            request.append("&imageQuality="); // NON-NLS
+            request.append(rate);
+          }
         }
+      } else {
+        request.append(instance.getDirectDownloadFile());
+      }
+      request.append(wado.getAdditionnalParameters());
+      String url = request.toString();
 
-        String studyUID = "";
-        String seriesUID = "";
-        if (!wado.isRequireOnlySOPInstanceUID()) {
-          studyUID = TagD.getTagValue(study, Tag.StudyInstanceUID, String.class);
-          seriesUID = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+      LOGGER.debug("Download DICOM instance {} index {}.", url, k);
+      tasks.add(new Download(url, instance.getSopInstanceUID()));
+    }
+    return tasks;
+  }
+
+  /**
+   * Sets whether the manifest declaring the series is still read. While it is read, the task waits
+   * for the instances of the series declared again in the manifest.
+   *
+   * @param reading true while the manifest is read, false when the last instance has been read
+   */
+  void setReadingManifest(boolean reading) {
+    seriesInstanceList.setIncomplete(reading);
+  }
+
+  private static void waitForDownload(Future<Boolean> future) throws InterruptedException {
+    try {
+      future.get();
+    } catch (CancellationException e) {
+      LOGGER.debug("Download canceled");
+    } catch (ExecutionException e) {
+      LOGGER.error("Downloading DICOM instance", e.getCause());
+    }
+  }
+
+  private String getSeriesRetrieveURL(WadoParameters wado, int nbInstances) {
+    if (nbInstances < 2
+        || !wado.isWadoRS()
+        || !GuiUtils.getUICore()
+            .getSystemPreferences()
+            .getBooleanProperty(WADO_RS_SERIES_RETRIEVE, false)) {
+      return null;
+    }
+    String url = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
+    return StringUtil.hasText(url) ? url : null;
+  }
+
+  /**
+   * Retrieves all the instances of the series with a single WADO-RS request. Each part of the
+   * multipart/related response is written in the cache as soon as it is received and then imported
+   * through the download scheduler, so that reading the DICOM files overlaps with the transfer. The
+   * instances missing in the response are downloaded afterward individually.
+   *
+   * @param url the WADO-RS URL of the series
+   * @param scheduler the scheduler importing the downloaded files
+   */
+  private void downloadWholeSeries(String url, DownloadScheduler scheduler) {
+    LOGGER.debug("Download DICOM series {}.", url);
+    Download download = new Download(url, null);
+    List<Future<Boolean>> imports = new ArrayList<>();
+    try (HttpResponse response = NetworkUtil.getHttpResponse(url, urlParams, authMethod)) {
+      int code = response.getResponseCode();
+      if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+        if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+          authMethod.resetToken();
+          authMethod.getToken();
         }
-        StringBuilder request = new StringBuilder(wado.getBaseURL());
-        if (instance.getDirectDownloadFile() == null) {
-          request.append("?requestType=WADO&studyUID="); // NON-NLS
-          request.append(studyUID);
-          request.append("&seriesUID="); // NON-NLS
-          request.append(seriesUID);
-          request.append("&objectUID="); // NON-NLS
-          request.append(instance.getSopInstanceUID());
-          request.append("&contentType=application%2Fdicom"); // NON-NLS
-
-          // for dcm4chee: it gets original DICOM files when no TransferSyntax is specified
-          String wadoTsuid = (String) dicomSeries.getTagValue(TagW.WadoTransferSyntaxUID);
-          if (StringUtil.hasText(wadoTsuid)) {
-            request.append("&transferSyntax="); // NON-NLS
-            request.append(wadoTsuid);
-            Integer rate = (Integer) dicomSeries.getTagValue(TagW.WadoCompressionRate);
-            if (rate != null && rate > 0) {
-              request.append("&imageQuality="); // NON-NLS
-              request.append(rate);
+        LOGGER.warn("Cannot retrieve the whole series, response code of server: {}", code);
+        return;
+      }
+      progressBar.setIndeterminate(false);
+      Multipart.Handler handler =
+          (multipartReader, partNumber, headers) -> {
+            if (isCancelled()) {
+              throw new InterruptedIOException("Download of the series has been canceled");
             }
-          }
-        } else {
-          request.append(instance.getDirectDownloadFile());
+            File tempFile = File.createTempFile("image_", ".dcm", download.getDicomTmpDir());
+            DicomDownloadSink sink = newDownloadSink();
+            int bytesTransferred =
+                sink.write(
+                    new SeriesProgressMonitor(dicomSeries, multipartReader.newPartInputStream()),
+                    tempFile);
+            if (bytesTransferred != -1) {
+              FileUtil.delete(tempFile);
+              throw new InterruptedIOException("Cannot write the part " + partNumber);
+            }
+            File renameFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, tempFile.getName());
+            File file = tempFile.renameTo(renameFile) ? renameFile : tempFile;
+            DicomMediaIO dicomReader = sink.buildReader(file);
+            imports.add(
+                scheduler.submit(this, null, () -> importSeriesPart(dicomReader, file, url)));
+          };
+      Multipart.parseMultipartRelated(
+          response.getHeaderField("Content-Type"), // NON-NLS
+          response.getInputStream(),
+          handler);
+    } catch (Exception e) {
+      LOGGER.error("Downloading series {}", url, e);
+    } finally {
+      for (Future<Boolean> f : imports) {
+        try {
+          f.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+          LOGGER.debug("Import of DICOM part canceled");
+        } catch (ExecutionException e) {
+          LOGGER.error("Importing DICOM part of {}", url, e.getCause());
         }
-        request.append(wado.getAdditionnalParameters());
-        String url = request.toString();
+      }
+    }
+  }
 
-        LOGGER.debug("Download DICOM instance {} index {}.", url, k);
-        Download ref = new Download(url);
-        tasks.add(ref);
+  private Boolean importSeriesPart(DicomMediaIO dicomReader, File file, String url) {
+    String sopUID = null;
+    if (dicomReader.isReadableDicom()) {
+      MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+      sopUID = TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class);
+      if (sopUID == null || isSOPInstanceUIDExist(study, dicomSeries, sopUID)) {
+        LOGGER.debug("DICOM instance {} already exists, skip.", sopUID);
+        dicomReader.close();
+        FileUtil.delete(file);
+        return false;
       }
+    }
+    return new Download(url, sopUID).importFile(dicomReader, file, isFirstImage());
+  }
 
-      try {
-        dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
-        imageDownloader.invokeAll(tasks);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+  private boolean isFirstImage() {
+    return dicomSeries.size(null) == 0 && seriesInitialized.compareAndSet(false, true);
+  }
+
+  private DicomDownloadSink newDownloadSink() {
+    int[] overrideList = getOverrideList();
+    return new DicomDownloadSink(
+        overrideList == null ? null : dataset -> overrideTags(dataset, overrideList));
+  }
+
+  /** Replaces the patient and study attributes by the values of the model. */
+  private void overrideTags(Attributes dataset, int[] overrideList) {
+    MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+    MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+    ElementDictionary dic = ElementDictionary.getStandardElementDictionary();
+
+    for (int tag : overrideList) {
+      TagW tagElement = patient.getTagElement(tag);
+      Object value;
+      if (tagElement == null) {
+        tagElement = study.getTagElement(tag);
+        value = study.getTagValue(tagElement);
+      } else {
+        value = patient.getTagValue(tagElement);
       }
+
+      DicomMediaUtils.fillAttributes(dataset, tagElement, value, dic);
     }
-    return true;
+  }
+
+  private int[] getOverrideList() {
+    return Optional.ofNullable((WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters))
+        .map(WadoParameters::getOverrideDicomTagIDList)
+        .orElse(null);
   }
 
   private static Map<String, String> getHttpTags(WadoParameters wadoParams) {
@@ -817,18 +1012,15 @@ private int[] generateDownloadOrder(final int size) {
   class Download implements Callable<Boolean> {
 
     private final String url; // download URL
+    private final String sopInstanceUID;
     private Status status; // current status of download
 
-    public Download(String url) {
+    public Download(String url, String sopInstanceUID) {
       this.url = url;
+      this.sopInstanceUID = sopInstanceUID;
       this.status = Status.DOWNLOADING;
     }
 
-    private void error() {
-      status = Status.ERROR;
-      dicomSeries.setTag(DOWNLOAD_ERRORS, errors.incrementAndGet());
-    }
-
     private HttpResponse replaceToDefaultTSUID() throws IOException {
       StringBuilder buffer = new StringBuilder();
       int start = url.indexOf("&transferSyntax="); // NON-NLS
@@ -863,6 +1055,15 @@ public Boolean call() {
       return Boolean.TRUE;
     }
 
+    private void error() {
+      status = Status.ERROR;
+      dicomSeries.setTag(DOWNLOAD_ERRORS, errors.incrementAndGet());
+      if (dicomSeries.getSeriesLoader() == null) {
+        // The download of the series has been removed while this instance was interrupted
+        PartialDownload.discardAll(getSeriesUID());
+      }
+    }
+
     // Solves missing tmp folder problem (on Windows).
     private File getDicomTmpDir() {
       if (!DICOM_TMP_DIR.exists()) {
@@ -872,23 +1073,45 @@ private File getDicomTmpDir() {
       return DICOM_TMP_DIR;
     }
 
+    /**
+     * Opens the response of the server, which resumes an interrupted download when possible. When
+     * the server rejects the range request (e.g. 416 status or the file has changed), the partial
+     * content is removed and the request is sent once again without range.
+     */
+    private HttpResponse openResponse() throws IOException {
+      URLParameters params = PartialDownload.getRequestParameters(url, urlParams);
+      if (params == urlParams) {
+        return NetworkUtil.getHttpResponse(url, urlParams, authMethod);
+      }
+      HttpResponse response = null;
+      try {
+        response = NetworkUtil.getHttpResponse(url, params, authMethod);
+        if (response.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST) {
+          return response;
+        }
+      } catch (StreamIOException e) {
+        LOGGER.debug("Range request of {}: {}", url, e.getMessage());
+      }
+      FileUtil.safeClose(response);
+      PartialDownload.discard(url);
+      return NetworkUtil.getHttpResponse(url, urlParams, authMethod);
+    }
+
     /** Download file. */
     private boolean process() throws IOException, URISyntaxException {
-      boolean firstImage =
-          dicomSeries != null
-              && dicomSeries.size(null) == 0
-              && seriesInitialized.compareAndSet(false, true);
+      boolean firstImage = dicomSeries != null && isFirstImage();
       boolean cache = true;
       File tempFile = null;
       DicomMediaIO dicomReader = null;
-      HttpResponse urlcon = NetworkUtil.getHttpResponse(url, urlParams, authMethod);
+      HttpResponse urlcon = openResponse();
       int code = urlcon.getResponseCode();
       if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
         if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
           authMethod.resetToken();
           authMethod.getToken();
         }
-        throw new IllegalStateException("Response code of server: " + urlcon.getResponseCode());
+        FileUtil.safeClose(urlcon);
+        throw new IllegalStateException("Response code of server: " + code);
       }
       try (InputStream stream = urlcon.getInputStream()) {
 
@@ -899,14 +1122,16 @@ private boolean process() throws IOException, URISyntaxException {
           tempFile = File.createTempFile("image_", ".dcm", getDicomTmpDir());
         }
 
-        // Cannot resume with WADO because the stream is modified on the fly by the wado server. In
-        // dcm4chee, see https://www.dcm4che.org/jira/browse/DCMEE-421
+        // Only a single part response can be resumed (see PartialDownload), the WADO server can
+        // modify the stream on the fly. In dcm4chee, see
+        // https://www.dcm4che.org/jira/browse/DCMEE-421
         progressBar.setIndeterminate(progressBar.getMaximum() < 3);
 
         if (dicomSeries != null) {
           if (cache) {
             LOGGER.debug("Start to download DICOM instance {} to {}.", url, tempFile.getName());
-            int bytesTransferred = downloadInFileCache(urlcon, tempFile);
+            DicomDownloadSink sink = newDownloadSink();
+            int bytesTransferred = downloadInFileCache(urlcon, tempFile, sink);
             if (bytesTransferred == -1) {
               LOGGER.info("End of downloading {} ", url);
             } else if (bytesTransferred >= 0) {
@@ -917,37 +1142,47 @@ private boolean process() throws IOException, URISyntaxException {
             if (tempFile.renameTo(renameFile)) {
               tempFile = renameFile;
             }
+            // The header has been read while writing the file
+            dicomReader = sink.buildReader(tempFile);
           } else {
             tempFile = new File(NetworkUtil.getURI(url));
+            dicomReader = new DicomMediaIO(tempFile);
           }
           // Ensure the stream is closed if image is not written in cache
           FileUtil.safeClose(stream);
-
-          dicomReader = new DicomMediaIO(tempFile);
-          if (dicomReader.isReadableDicom() && firstImage) {
-            // Override the group (patient, study and series) by the dicom fields except the UID of
-            // the group
-            MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-            dicomReader.writeMetaData(patient);
-            MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-            dicomReader.writeMetaData(study);
-            dicomReader.writeMetaData(dicomSeries);
-            GuiExecutor.invokeAndWait(
-                () -> {
-                  Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-                  if (thumb != null) {
-                    thumb.repaint();
-                  }
-                  dicomModel.firePropertyChange(
-                      new ObservableEvent(
-                          ObservableEvent.BasicAction.UPDATE_PARENT,
-                          dicomModel,
-                          null,
-                          dicomSeries));
-                });
-          }
         }
       }
+      return importFile(dicomReader, tempFile, firstImage);
+    }
+
+    /**
+     * Adds a downloaded DICOM file to the series.
+     *
+     * @param dicomReader the reader of the downloaded file
+     * @param tempFile the downloaded file
+     * @param firstImage true if this is the first image of the series
+     * @return true when the file has been handled
+     */
+    boolean importFile(DicomMediaIO dicomReader, File tempFile, boolean firstImage) {
+      if (dicomReader != null && dicomReader.isReadableDicom() && firstImage) {
+        // Override the group (patient, study and series) by the dicom fields except the UID of
+        // the group
+        MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+        dicomReader.writeMetaData(patient);
+        MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+        dicomReader.writeMetaData(study);
+        dicomReader.writeMetaData(dicomSeries);
+        GuiExecutor.invokeAndWait(
+            () -> {
+              Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+              if (thumb != null) {
+                thumb.repaint();
+              }
+              dicomModel.firePropertyChange(
+                  new ObservableEvent(
+                      ObservableEvent.BasicAction.UPDATE_PARENT, dicomModel, null, dicomSeries));
+            });
+      }
 
       // Change status to complete if this point was reached because downloading has finished.
       if (status == Status.DOWNLOADING) {
@@ -969,152 +1204,55 @@ private boolean process() throws IOException, URISyntaxException {
       return true;
     }
 
-    private int downloadInFileCache(HttpResponse response, File tempFile) throws IOException {
+    private int downloadInFileCache(HttpResponse response, File tempFile, DicomDownloadSink sink)
+        throws IOException {
       final WadoParameters wadoParams =
           (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
-      int[] overrideList =
-          Optional.ofNullable(wadoParams)
-              .map(WadoParameters::getOverrideDicomTagIDList)
-              .orElse(null);
 
       int bytesTransferred;
-      if (overrideList == null) {
-        if (wadoParams != null && wadoParams.isWadoRS()) {
-
-          int[] readBytes = {0};
-          Multipart.Handler handler =
-              (multipartReader, partNumber, headers) -> {
-                // At sop instance level must have only one part
-                try (InputStream in = multipartReader.newPartInputStream()) {
-                  readBytes[0] =
-                      FileUtil.writeStream(
-                          new SeriesProgressMonitor(dicomSeries, in), tempFile, false);
-                }
-              };
-
-          if (response instanceof ClosableURLConnection urlConnection) {
-            Multipart.parseMultipartRelated(
-                urlConnection.getUrlConnection().getContentType(),
-                response.getInputStream(),
-                handler);
-          } else {
-            AuthResponse authResponse = (AuthResponse) response;
-            Multipart.parseMultipartRelated(
-                authResponse.getResponse().getHeader("Content-Type"), // NON-NLS
-                response.getInputStream(),
-                handler);
-          }
-          bytesTransferred = readBytes[0];
+      if (wadoParams != null && wadoParams.isWadoRS()) {
+        int[] readBytes = {0};
+        Multipart.Handler handler =
+            (multipartReader, partNumber, headers) -> {
+              // At sop instance level must have only one part
+              readBytes[0] =
+                  sink.write(
+                      new SeriesProgressMonitor(dicomSeries, multipartReader.newPartInputStream()),
+                      tempFile);
+            };
+
+        Multipart.parseMultipartRelated(
+            response.getHeaderField("Content-Type"), // NON-NLS
+            response.getInputStream(),
+            handler);
+        bytesTransferred = readBytes[0];
+      } else {
+        PartialDownload part =
+            PartialDownload.open(url, getSeriesUID(), response, getDicomTmpDir());
+        InputStream stream =
+            new DicomSeriesProgressMonitor(dicomSeries, response.getInputStream(), false);
+        if (part == null) {
+          bytesTransferred = sink.write(stream, tempFile);
         } else {
-          bytesTransferred =
-              FileUtil.writeStream(
-                  new DicomSeriesProgressMonitor(dicomSeries, response.getInputStream(), false),
-                  tempFile);
+          // The received bytes are kept only when the transfer is interrupted
+          bytesTransferred = sink.write(part.getStream(stream), tempFile, part);
+          if (bytesTransferred == -1) {
+            part.delete();
+          }
         }
-      } else {
-        bytesTransferred =
-            writFile(
-                new DicomSeriesProgressMonitor(dicomSeries, response.getInputStream(), false),
-                tempFile,
-                overrideList);
       }
 
       if (bytesTransferred == Integer.MIN_VALUE) {
         LOGGER.warn("Stop downloading unsupported TSUID, retry to download non compressed TSUID");
-        try (InputStream stream2 = replaceToDefaultTSUID().getInputStream()) {
-          if (overrideList == null) {
-            bytesTransferred =
-                FileUtil.writeStream(
-                    new DicomSeriesProgressMonitor(dicomSeries, stream2, false), tempFile);
-          } else {
-            bytesTransferred =
-                writFile(
-                    new DicomSeriesProgressMonitor(dicomSeries, stream2, false),
-                    tempFile,
-                    overrideList);
-          }
-        }
+        bytesTransferred =
+            sink.write(
+                new DicomSeriesProgressMonitor(
+                    dicomSeries, replaceToDefaultTSUID().getInputStream(), false),
+                tempFile);
       }
       return bytesTransferred;
     }
 
-    /**
-     * @param in the InputStream value
-     * @param tempFile the file path
-     * @param overrideList the list of the DICOM tags to modify when writing
-     * @return bytes transferred. O = error, -1 = all bytes has been transferred, other = bytes
-     *     transferred before interruption
-     * @throws StreamIOException reading or writing error
-     */
-    public int writFile(InputStream in, File tempFile, int[] overrideList)
-        throws StreamIOException {
-      if (in == null || tempFile == null) {
-        return 0;
-      }
-
-      DicomInputStream dis = null;
-      DicomOutputStream dos = null;
-
-      try {
-        String tsuid;
-        Attributes dataset;
-        dis = new DicomInputStream(in);
-        try {
-          dis.setIncludeBulkData(IncludeBulkData.URI);
-          dataset = dis.readDataset();
-          tsuid = dis.getTransferSyntax();
-        } finally {
-          dis.close();
-        }
-
-        dos = new DicomOutputStream(tempFile);
-
-        if (overrideList != null) {
-          MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-          MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-          ElementDictionary dic = ElementDictionary.getStandardElementDictionary();
-
-          for (int tag : overrideList) {
-            TagW tagElement = patient.getTagElement(tag);
-            Object value;
-            if (tagElement == null) {
-              tagElement = study.getTagElement(tag);
-              value = study.getTagValue(tagElement);
-            } else {
-              value = patient.getTagValue(tagElement);
-            }
-
-            DicomMediaUtils.fillAttributes(dataset, tagElement, value, dic);
-          }
-        }
-        dos.writeDataset(dataset.createFileMetaInformation(tsuid), dataset);
-        dos.finish();
-        dos.flush();
-        return -1;
-      } catch (InterruptedIOException e) {
-        FileUtil.delete(tempFile);
-        LOGGER.error("Interruption when writing file: {}", e.getMessage());
-        return e.bytesTransferred;
-      } catch (IOException e) {
-        FileUtil.delete(tempFile);
-        throw new StreamIOException(e);
-      } catch (Exception e) {
-        FileUtil.delete(tempFile);
-        LOGGER.error("Writing DICOM temp file", e);
-        return 0;
-      } finally {
-        SafeClose.close(dos);
-        if (dis != null) {
-          List<File> blkFiles = dis.getBulkDataFiles();
-          if (blkFiles != null) {
-            for (File file : blkFiles) {
-              FileUtil.delete(file);
-            }
-          }
-        }
-      }
-    }
-
     private void updateUI(final DicomMediaIO reader, boolean firstImageToDisplay) {
       Function<DicomSpecialElementFactory, DicomSpecialElement> buildSpecialElement =
           factory -> factory.buildDicomSpecialElement(reader);
@@ -1171,6 +1309,29 @@ private void updateUI(final DicomMediaIO reader, boolean firstImageToDisplay) {
     }
   }
 
+  /**
+   * Applies the presentation models to the images already loaded, when the models are read after
+   * the download has started.
+   */
+  void applyPresentationModels() {
+    String seriesUID = TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class);
+    MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+    Collection<MediaSeriesGroup> seriesList =
+        study == null ? List.of(dicomSeries) : dicomModel.getChildren(study);
+    // Include the series split from the original one
+    for (MediaSeriesGroup group : seriesList) {
+      if (group instanceof DicomSeries series
+          && Objects.equals(
+              seriesUID, TagD.getTagValue(series, Tag.SeriesInstanceUID, String.class))) {
+        for (DicomImageElement media : series.copyOfMedias(null, null)) {
+          if (media.getTagValue(TagW.PresentationModel) == null) {
+            applyPresentationModel(media);
+          }
+        }
+      }
+    }
+  }
+
   private void applyPresentationModel(DicomImageElement media) {
     String sopUID = TagD.getTagValue(media, Tag.SOPInstanceUID, String.class);
 
@@ -1218,21 +1379,34 @@ public synchronized void setPriority(DownloadPriority priority) {
   @Override
   public void setPriority() {
     DownloadPriority p = getPriority();
-    if (p != null && StateValue.PENDING.equals(getState())) {
+    if (p == null) {
+      return;
+    }
+    if (StateValue.PENDING.equals(getState())) {
       boolean change = DownloadManager.removeSeriesInQueue(this);
       if (change) {
-        // Set the priority to the current loadingSeries and stop a task.
+        // Set the priority to the current loadingSeries
         p.setPriority(DownloadPriority.COUNTER.getAndDecrement());
         DownloadManager.offerSeriesInQueue(this);
-        synchronized (DownloadManager.getTasks()) {
-          for (LoadSeries s : DownloadManager.getTasks()) {
-            if (s != this && StateValue.STARTED.equals(s.getState())) {
-              cancelAndReplace(s, true);
-              break;
+        if (p.hasConcurrentDownload()) {
+          // Start the series without stopping another one, the download scheduler gives the
+          // priority to its instances
+          DownloadManager.increaseConcurrentSeries();
+        } else {
+          synchronized (DownloadManager.getTasks()) {
+            for (LoadSeries s : DownloadManager.getTasks()) {
+              if (s != this && StateValue.STARTED.equals(s.getState())) {
+                cancelAndReplace(s, true);
+                break;
+              }
             }
           }
         }
       }
+    } else if (StateValue.STARTED.equals(getState())) {
+      // Download the queued instances of the series first
+      p.setPriority(DownloadPriority.COUNTER.getAndDecrement());
+      DownloadManager.DOWNLOAD_SCHEDULER.reschedule();
     }
   }
 
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.URLParameters;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * Keeps the bytes received by an interrupted download, so the next attempt can request only the
+ * missing bytes with an HTTP range request.
+ *
+ * <p>A download is resumable only when the server accepts byte ranges and provides a strong
+ * validator (ETag or Last-Modified). The validator is sent in the If-Range header: when the
+ * resource has changed, the server returns the whole content and the download restarts from the
+ * beginning.
+ *
+ * <p>The response is written only once, by {@link DicomDownloadSink}. The received bytes are copied
+ * in a partial file only when the transfer is interrupted: the header of the stream is recorded in
+ * memory (see {@link #record(InputStream)}), and the pixel data written by the sink are the same
+ * bytes as in the stream.
+ *
+ * <p>The partial files are removed when the series has been downloaded or its download has been
+ * cancelled (see {@link #discardAll(String)}), and only the last interrupted downloads are kept.
+ */
+final class PartialDownload {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PartialDownload.class);
+
+  /** Minimum size (in MB) of a file to keep its partial content when the download fails. */
+  public static final String MIN_SIZE = "download.resume.min.size";
+
+  // Maximum size of the header recorded before the pixel data
+  private static final int MAX_HEADER_SIZE = 1024 * 1024;
+
+  // Maximum number of interrupted downloads, the oldest one is removed first
+  private static final int MAX_INTERRUPTED = 64;
+
+  private static final Map<String, PartialDownload> INTERRUPTED =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PartialDownload> eldest) {
+              if (size() > MAX_INTERRUPTED) {
+                FileUtil.delete(eldest.getValue().file);
+                return true;
+              }
+              return false;
+            }
+          });
+
+  private final String url;
+  private final String seriesUID;
+  private final File dir;
+  private final long length;
+  private final String validator;
+  // Received bytes of the previous attempts, null when the download has not been interrupted
+  private File file;
+  private Recorder recorder;
+  // Bytes of the stream until the pixel data value, and its position in the written file
+  private byte[] header;
+  private long writtenStart;
+
+  private PartialDownload(String url, String seriesUID, File dir, long length, String validator) {
+    this.url = url;
+    this.seriesUID = seriesUID;
+    this.dir = dir;
+    this.length = length;
+    this.validator = validator;
+  }
+
+  /**
+   * Adds the range headers when a previous download of the URL has been interrupted.
+   *
+   * @param url the URL to download
+   * @param params the parameters of the request
+   * @return the parameters with the range headers, or the same parameters
+   */
+  static URLParameters getRequestParameters(String url, URLParameters params) {
+    PartialDownload part = INTERRUPTED.get(url);
+    if (part == null) {
+      return params;
+    }
+    Map<String, String> headers = new HashMap<>(params.getUnmodifiableHeaders());
+    headers.put("Range", "bytes=" + part.file.length() + "-"); // NON-NLS
+    headers.put("If-Range", part.validator); // NON-NLS
+    return new URLParameters(
+        headers,
+        params.getConnectTimeout(),
+        params.getReadTimeout(),
+        params.isHttpPost(),
+        params.isUseCaches(),
+        params.getIfModifiedSince(),
+        params.isAllowUserInteraction());
+  }
+
+  /**
+   * Removes the partial content of a download that cannot be resumed (e.g. the server has rejected
+   * the range request).
+   *
+   * @param url the downloaded URL
+   * @return true when a partial content has been removed
+   */
+  static boolean discard(String url) {
+    PartialDownload part = INTERRUPTED.remove(url);
+    if (part != null) {
+      LOGGER.debug("Cannot resume {}", url);
+      FileUtil.delete(part.file);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Removes the partial contents of a series, when the series has been downloaded or its download
+   * has been cancelled.
+   *
+   * @param seriesUID the Series Instance UID
+   */
+  static void discardAll(String seriesUID) {
+    synchronized (INTERRUPTED) {
+      INTERRUPTED
+          .values()
+          .removeIf(
+              part -> {
+                if (Objects.equals(part.seriesUID, seriesUID)) {
+                  FileUtil.delete(part.file);
+                  return true;
+                }
+                return false;
+              });
+    }
+  }
+
+  /**
+   * Gets the partial download of a response.
+   *
+   * @param url the downloaded URL
+   * @param seriesUID the Series Instance UID of the downloaded instance
+   * @param response the response of the server
+   * @param dir the directory of the partial files
+   * @return the partial download, or null when the response cannot be resumed later
+   */
+  static PartialDownload open(String url, String seriesUID, HttpResponse response, File dir)
+      throws IOException {
+    int code = response.getResponseCode();
+    PartialDownload part = INTERRUPTED.remove(url);
+    if (part != null) {
+      if (code == HttpURLConnection.HTTP_PARTIAL
+          && getRangeStart(response) == part.file.length()
+          && part.file.length() < part.length) {
+        LOGGER.info("Resume downloading {} from byte {}", url, part.file.length());
+        return part;
+      }
+      // The server has sent the whole content (unsupported range or modified resource)
+      FileUtil.delete(part.file);
+    }
+    if (code != HttpURLConnection.HTTP_OK
+        || !"bytes".equalsIgnoreCase(response.getHeaderField("Accept-Ranges"))) { // NON-NLS
+      return null;
+    }
+    long contentLength = parseLong(response.getHeaderField("Content-Length")); // NON-NLS
+    long minSize =
+        GuiUtils.getUICore().getSystemPreferences().getIntProperty(MIN_SIZE, 10) * 1024L * 1024L;
+    String validator = getValidator(response);
+    if (contentLength <= 0 || contentLength < minSize || validator == null) {
+      return null;
+    }
+    return new PartialDownload(url, seriesUID, dir, contentLength, validator);
+  }
+
+  private static String getValidator(HttpResponse response) {
+    String etag = response.getHeaderField("ETag"); // NON-NLS
+    // A weak entity tag cannot be used in If-Range
+    if (StringUtil.hasText(etag) && !etag.startsWith("W/")) {
+      return etag;
+    }
+    String lastModified = response.getHeaderField("Last-Modified"); // NON-NLS
+    return StringUtil.hasText(lastModified) ? lastModified : null;
+  }
+
+  private static long getRangeStart(HttpResponse response) {
+    // Format: bytes <start>-<end>/<length>
+    String range = response.getHeaderField("Content-Range"); // NON-NLS
+    if (range == null || !range.startsWith("bytes ")) { // NON-NLS
+      return -1;
+    }
+    int end = range.indexOf('-');
+    return end < 0 ? -1 : parseLong(range.substring(6, end).trim());
+  }
+
+  private static long parseLong(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @param in the content of the response
+   * @return the whole stream, starting with the bytes received by the previous attempts
+   * @throws IOException when the partial file cannot be read
+   */
+  InputStream getStream(InputStream in) throws IOException {
+    if (file == null) {
+      return in;
+    }
+    return new SequenceInputStream(new FileInputStream(file), in);
+  }
+
+  /**
+   * Records the beginning of the stream read by the sink, until {@link #pixelDataStart(long,
+   * long)}.
+   *
+   * @param in the whole stream
+   * @return the stream to read
+   */
+  InputStream record(InputStream in) {
+    header = null;
+    recorder = new Recorder(in);
+    return recorder;
+  }
+
+  /**
+   * Called by the sink when the header of the pixel data has been read and written. The following
+   * bytes are written without being modified.
+   *
+   * @param position the position of the pixel data value in the stream
+   * @param writtenPosition the position of the pixel data value in the written file
+   */
+  void pixelDataStart(long position, long writtenPosition) {
+    Recorder r = recorder;
+    recorder = null;
+    if (r == null || r.count < position || position > MAX_HEADER_SIZE) {
+      return;
+    }
+    byte[] bytes = Arrays.copyOf(r.buf, (int) position);
+    if (isPixelDataHeader(bytes)) {
+      this.header = bytes;
+      this.writtenStart = writtenPosition;
+    } else {
+      LOGGER.debug("Cannot resume {}, unexpected position of the pixel data", url);
+    }
+  }
+
+  // Checks the tag (7FE0,0010) at the beginning of the last element header (8 or 12 bytes)
+  private static boolean isPixelDataHeader(byte[] bytes) {
+    for (int size : new int[] {8, 12}) {
+      int i = bytes.length - size;
+      if (i >= 0
+          && ((bytes[i] == (byte) 0xE0
+                  && bytes[i + 1] == 0x7F
+                  && bytes[i + 2] == 0x10
+                  && bytes[i + 3] == 0)
+              || (bytes[i] == 0x7F
+                  && bytes[i + 1] == (byte) 0xE0
+                  && bytes[i + 2] == 0
+                  && bytes[i + 3] == 0x10))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Keeps the received bytes when the transfer has been interrupted, so that the download can be
+   * resumed. Must be called when the stream and the written file are closed.
+   *
+   * @param written the file written by the sink
+   * @param writtenLength the number of bytes written in the file
+   */
+  void interrupted(File written, long writtenLength) {
+    recorder = null;
+    File previous = file;
+    file = null;
+    if (header != null && writtenLength > writtenStart) {
+      File partial = null;
+      try {
+        partial = File.createTempFile("part_", ".dcm", dir); // NON-NLS
+        try (FileOutputStream out = new FileOutputStream(partial);
+            FileChannel in = FileChannel.open(written.toPath())) {
+          out.write(header);
+          long pos = writtenStart;
+          while (pos < writtenLength) {
+            long n = in.transferTo(pos, writtenLength - pos, out.getChannel());
+            if (n <= 0) {
+              throw new EOFException();
+            }
+            pos += n;
+          }
+        }
+        file = partial;
+        INTERRUPTED.put(url, this);
+      } catch (IOException e) {
+        LOGGER.error("Cannot keep the partial content of {}", url, e);
+        FileUtil.delete(partial);
+      }
+    }
+    FileUtil.delete(previous);
+  }
+
+  /** Deletes the partial file when the download has been completed. */
+  void delete() {
+    recorder = null;
+    INTERRUPTED.remove(url, this);
+    FileUtil.delete(file);
+    file = null;
+  }
+
+  /** Records the bytes read. The mark is not supported, so that the bytes are read only once. */
+  private static final class Recorder extends FilterInputStream {
+    private byte[] buf = new byte[8192];
+    private int count;
+
+    Recorder(InputStream in) {
+      super(in);
+    }
+
+    // Records the bytes until the maximum size of the header
+    private void record(byte[] b, int off, int len) {
+      int n = Math.min(len, MAX_HEADER_SIZE - count);
+      if (n > 0) {
+        if (count + n > buf.length) {
+          buf = Arrays.copyOf(buf, Math.min(MAX_HEADER_SIZE, Math.max(count + n, count * 2)));
+        }
+        System.arraycopy(b, off, buf, count, n);
+        count += n;
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        record(new byte[] {(byte) b}, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      record(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      byte[] b = new byte[(int) Math.min(n, 8192)];
+      int r = read(b, 0, b.length);
+      return Math.max(r, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
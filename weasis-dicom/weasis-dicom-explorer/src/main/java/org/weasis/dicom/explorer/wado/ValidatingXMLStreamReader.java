@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.util.StringUtil;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * XML stream reader validating the document against a schema while it is read. The events are
+ * forwarded to a {@link ValidatorHandler}, so the document is parsed only once and can be read
+ * directly from the network stream.
+ *
+ * <p>The validation errors are only logged, the document is read even if it is not valid.
+ */
+class ValidatingXMLStreamReader extends StreamReaderDelegate {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidatingXMLStreamReader.class);
+
+  private final ValidatorHandler validator;
+  private boolean valid = true;
+  private boolean ended = false;
+
+  ValidatingXMLStreamReader(XMLStreamReader reader, Schema schema) {
+    super(reader);
+    this.validator = schema == null ? null : schema.newValidatorHandler();
+    if (validator != null) {
+      try {
+        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, StringUtil.EMPTY_STRING);
+        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, StringUtil.EMPTY_STRING);
+      } catch (SAXException e) {
+        LOGGER.debug("Cannot restrict the external access of the validator", e);
+      }
+      validator.setErrorHandler(
+          new ErrorHandler() {
+            @Override
+            public void warning(SAXParseException exception) {
+              LOGGER.debug("[Validate with XSD schema] {}", exception.getMessage());
+            }
+
+            @Override
+            public void error(SAXParseException exception) {
+              invalidate(exception);
+            }
+
+            @Override
+            public void fatalError(SAXParseException exception) {
+              invalidate(exception);
+            }
+          });
+      try {
+        validator.startDocument();
+      } catch (SAXException e) {
+        invalidate(e);
+      }
+    }
+  }
+
+  private void invalidate(SAXException exception) {
+    // Log only the first error, the next ones are often a consequence of the first one
+    if (valid) {
+      valid = false;
+      LOGGER.error("[Validate with XSD schema] the manifest is NOT valid", exception);
+    }
+  }
+
+  @Override
+  public int next() throws XMLStreamException {
+    int eventType = super.next();
+    if (validator != null && valid && !ended) {
+      try {
+        forward(eventType);
+      } catch (SAXException e) {
+        invalidate(e);
+      }
+    }
+    return eventType;
+  }
+
+  // Read through next() to validate the events consumed by these methods
+
+  @Override
+  public int nextTag() throws XMLStreamException {
+    int eventType = next();
+    while (eventType == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+        || eventType == XMLStreamConstants.CDATA && isWhiteSpace()
+        || eventType == XMLStreamConstants.SPACE
+        || eventType == XMLStreamConstants.PROCESSING_INSTRUCTION
+        || eventType == XMLStreamConstants.COMMENT) {
+      eventType = next();
+    }
+    if (eventType != XMLStreamConstants.START_ELEMENT
+        && eventType != XMLStreamConstants.END_ELEMENT) {
+      throw new XMLStreamException("Expected start or end tag", getLocation());
+    }
+    return eventType;
+  }
+
+  @Override
+  public String getElementText() throws XMLStreamException {
+    if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+      throw new XMLStreamException("Current event is not a start element", getLocation());
+    }
+    StringBuilder buf = new StringBuilder();
+    int eventType = next();
+    while (eventType != XMLStreamConstants.END_ELEMENT) {
+      switch (eventType) {
+        case XMLStreamConstants.CHARACTERS,
+            XMLStreamConstants.CDATA,
+            XMLStreamConstants.SPACE,
+            XMLStreamConstants.ENTITY_REFERENCE ->
+            buf.append(getText());
+        case XMLStreamConstants.PROCESSING_INSTRUCTION, XMLStreamConstants.COMMENT -> {
+          // Ignore
+        }
+        case XMLStreamConstants.START_ELEMENT ->
+            throw new XMLStreamException("Element text cannot contain an element", getLocation());
+        default -> throw new XMLStreamException("Unexpected event: " + eventType, getLocation());
+      }
+      eventType = next();
+    }
+    return buf.toString();
+  }
+
+  private void forward(int eventType) throws SAXException {
+    switch (eventType) {
+      case XMLStreamConstants.START_ELEMENT -> {
+        for (int i = 0; i < getNamespaceCount(); i++) {
+          validator.startPrefixMapping(nullToEmpty(getNamespacePrefix(i)), getNamespaceURI(i));
+        }
+        AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < getAttributeCount(); i++) {
+          String localName = getAttributeLocalName(i);
+          attributes.addAttribute(
+              nullToEmpty(getAttributeNamespace(i)),
+              localName,
+              qualifiedName(getAttributePrefix(i), localName),
+              getAttributeType(i),
+              getAttributeValue(i));
+        }
+        validator.startElement(
+            nullToEmpty(getNamespaceURI()),
+            getLocalName(),
+            qualifiedName(getPrefix(), getLocalName()),
+            attributes);
+      }
+      case XMLStreamConstants.END_ELEMENT -> {
+        validator.endElement(
+            nullToEmpty(getNamespaceURI()),
+            getLocalName(),
+            qualifiedName(getPrefix(), getLocalName()));
+        for (int i = 0; i < getNamespaceCount(); i++) {
+          validator.endPrefixMapping(nullToEmpty(getNamespacePrefix(i)));
+        }
+      }
+      case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+          validator.characters(getTextCharacters(), getTextStart(), getTextLength());
+      case XMLStreamConstants.END_DOCUMENT -> endDocument();
+      default -> {
+        // Not relevant for the validation
+      }
+    }
+  }
+
+  private void endDocument() throws SAXException {
+    if (!ended) {
+      ended = true;
+      validator.endDocument();
+    }
+  }
+
+  /**
+   * Ends the validation, the end of the document may not have been reached when the reading stops
+   * after the root element.
+   *
+   * @return true if the document is valid or when there is no schema
+   */
+  boolean endValidation() {
+    if (validator != null && valid) {
+      try {
+        endDocument();
+      } catch (SAXException e) {
+        invalidate(e);
+      }
+    }
+    return valid;
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? StringUtil.EMPTY_STRING : value;
+  }
+
+  private static String qualifiedName(String prefix, String localName) {
+    return StringUtil.hasText(prefix) ? prefix + ":" + localName : localName;
+  }
+}
@@ -47,7 +47,7 @@
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.explorer.ExplorerTask;
-import org.weasis.dicom.explorer.LoadLocalDicom;
+import org.weasis.dicom.explorer.LoadIncomingDicom;
 import org.weasis.dicom.explorer.PluginOpeningStrategy;
 import org.weasis.dicom.explorer.pref.download.DicomExplorerPrefView;
 import org.weasis.dicom.explorer.pref.node.AbstractDicomNode;
@@ -148,25 +148,30 @@ protected ExplorerTask<Boolean, String> doInBackground() throws Exception {
           }
           tempFolder = DicomQrView.getSessionTempFolder();
           openingStrategy.setFullImportSession(false);
+          // Import the files while they are received
+          LoadIncomingDicom importTask = new LoadIncomingDicom(explorerDcmModel, openingStrategy);
+          importTask.execute();
           progress.addProgressListener(
               p -> {
                 File current = p.getProcessedFile();
                 if (current != null && p.getAttributes() == null) {
-                  LoadLocalDicom task =
-                      new LoadLocalDicom(
-                          new File[] {current}, false, explorerDcmModel, openingStrategy);
-                  DicomModel.LOADING_EXECUTOR.execute(task);
+                  importTask.addFile(current);
                 }
               });
-          state =
-              CGet.process(
-                  params,
-                  callingNode.getDicomNodeWithOnlyAET(),
-                  node.getDicomNode(),
-                  progress,
-                  tempFolder,
-                  url,
-                  dcmParams);
+          try {
+            state =
+                CGet.process(
+                    params,
+                    callingNode.getDicomNodeWithOnlyAET(),
+                    node.getDicomNode(),
+                    progress,
+                    tempFolder,
+                    url,
+                    dcmParams);
+          } finally {
+            importTask.finish();
+          }
+          importTask.waitForImport();
         } else if (RetrieveType.CMOVE == type) {
           DicomListener dicomListener = dicomQrView.getDicomListener();
           try {
@@ -269,7 +274,8 @@ protected ExplorerTask<Boolean, String> doInBackground() throws Exception {
         }
 
         if (tempFolder != null) {
-          explorerDcmModel.allSeriesPostProcessing();
+          // Executed after the import of the received files
+          DicomModel.LOADING_EXECUTOR.execute(explorerDcmModel::allSeriesPostProcessing);
         }
       }
 
@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.send;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
+import org.dcm4che3.net.ApplicationEntity;
+import org.dcm4che3.net.Association;
+import org.dcm4che3.net.Connection;
+import org.dcm4che3.net.DataWriter;
+import org.dcm4che3.net.DataWriterAdapter;
+import org.dcm4che3.net.Device;
+import org.dcm4che3.net.DimseRSPHandler;
+import org.dcm4che3.net.InputStreamDataWriter;
+import org.dcm4che3.net.Status;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.WProperties;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+import org.weasis.dicom.param.AdvancedParams;
+import org.weasis.dicom.param.DicomNode;
+import org.weasis.dicom.param.DicomProgress;
+import org.weasis.dicom.param.DicomState;
+
+/**
+ * C-STORE SCU sending the instances through several associations opened simultaneously with the
+ * same AE. The instances are ordered by transfer syntax and SOP class before being split between
+ * the associations, so each association negotiates only a few presentation contexts.
+ *
+ * <p>Each association sends asynchronously up to the number of operations invoked negotiated with
+ * the SCP, the responses are handled when they arrive.
+ */
+public final class ParallelCStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelCStore.class);
+
+  public static final String ASSOCIATIONS = "dicom.cstore.associations";
+  public static final String MAX_OPS_INVOKED = "dicom.cstore.max.ops.invoked";
+
+  // Transfer syntaxes that can be converted without decoding the pixel data
+  private static final Set<String> NATIVE_TSUIDS =
+      Set.of(UID.ImplicitVRLittleEndian, UID.ExplicitVRLittleEndian, UID.ExplicitVRBigEndian);
+
+  private ParallelCStore() {}
+
+  /**
+   * Sends the files with the number of associations and the asynchronous operations window defined
+   * in the preferences.
+   *
+   * @see #process(AdvancedParams, DicomNode, DicomNode, List, DicomProgress, int, int)
+   */
+  public static DicomState process(
+      AdvancedParams params,
+      DicomNode callingNode,
+      DicomNode calledNode,
+      List<String> files,
+      DicomProgress progress) {
+    WProperties preferences = GuiUtils.getUICore().getSystemPreferences();
+    return process(
+        params,
+        callingNode,
+        calledNode,
+        files,
+        progress,
+        preferences.getIntProperty(ASSOCIATIONS, 3),
+        preferences.getIntProperty(MAX_OPS_INVOKED, 8));
+  }
+
+  /**
+   * @param params optional advanced parameters (proxy, authentication, connection and TLS)
+   * @param callingNode the calling DICOM node configuration
+   * @param calledNode the called DICOM node configuration
+   * @param files the list of file paths or folders
+   * @param progress the progress handler, or null
+   * @param associations the maximum number of associations opened simultaneously
+   * @param maxOpsInvoked the maximum number of operations invoked asynchronously on each
+   *     association, 0 for unlimited
+   * @return the DicomState containing the last DICOM response, the status and a message
+   */
+  public static DicomState process(
+      AdvancedParams params,
+      DicomNode callingNode,
+      DicomNode calledNode,
+      List<String> files,
+      DicomProgress progress,
+      int associations,
+      int maxOpsInvoked) {
+    if (callingNode == null || calledNode == null) {
+      throw new IllegalArgumentException("callingNode or calledNode cannot be null!");
+    }
+    AdvancedParams options = params == null ? new AdvancedParams() : params;
+    DicomState state = new DicomState(progress == null ? new DicomProgress() : progress);
+    List<Instance> instances = scan(files);
+    if (instances.isEmpty()) {
+      return DicomState.buildMessage(state, "No DICOM file to send", null); // NON-NLS
+    }
+
+    List<List<Instance>> slices = split(instances, Math.max(1, associations));
+    Send send = new Send(state.getProgress(), instances.size());
+    ExecutorService deviceExecutor = ThreadUtil.newCachedThreadPool("C-STORE Association");
+    ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+    ExecutorService senders = ThreadUtil.newFixedThreadPool(slices.size(), "C-STORE Sender");
+    Device device = new Device("storescu"); // NON-NLS
+    try {
+      ApplicationEntity ae = new ApplicationEntity(callingNode.getAet());
+      Connection conn = new Connection();
+      device.addApplicationEntity(ae);
+      device.addConnection(conn);
+      ae.addConnection(conn);
+      ae.setAssociationInitiator(true);
+      device.setExecutor(deviceExecutor);
+      device.setScheduledExecutor(scheduledExecutor);
+      options.configureBind(ae, conn, callingNode);
+      options.configure(conn);
+      conn.setMaxOpsInvoked(Math.max(0, maxOpsInvoked));
+      conn.setMaxOpsPerformed(1);
+
+      List<Future<?>> futures = new ArrayList<>(slices.size());
+      for (List<Instance> slice : slices) {
+        futures.add(
+            senders.submit(() -> send.sendAll(ae, conn, options, callingNode, calledNode, slice)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      send.progress.cancel();
+    } catch (ExecutionException | IOException | RuntimeException e) {
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      LOGGER.error("storescu", cause);
+      return DicomState.buildMessage(state, null, new Exception(cause));
+    } finally {
+      senders.shutdownNow();
+      deviceExecutor.shutdown();
+      scheduledExecutor.shutdown();
+    }
+    return send.buildState(state);
+  }
+
+  private static List<Instance> scan(List<String> filesOrFolders) {
+    List<File> files = new ArrayList<>();
+    for (String entry : filesOrFolders) {
+      File file = new File(entry);
+      if (file.isDirectory()) {
+        FileUtil.getAllFilesInDirectory(file, files, true);
+      } else {
+        files.add(file);
+      }
+    }
+    List<Instance> instances = new ArrayList<>(files.size());
+    for (File file : files) {
+      try (DicomInputStream dis = new DicomInputStream(file)) {
+        dis.setIncludeBulkData(IncludeBulkData.NO);
+        Attributes fmi = dis.readFileMetaInformation();
+        long fmiEndPos = dis.getPosition();
+        String cuid;
+        String iuid;
+        String tsuid;
+        if (fmi == null) {
+          Attributes ds = dis.readDatasetUntilPixelData();
+          cuid = ds.getString(Tag.SOPClassUID);
+          iuid = ds.getString(Tag.SOPInstanceUID);
+          tsuid = dis.getTransferSyntax();
+        } else {
+          cuid = fmi.getString(Tag.MediaStorageSOPClassUID);
+          iuid = fmi.getString(Tag.MediaStorageSOPInstanceUID);
+          tsuid = fmi.getString(Tag.TransferSyntaxUID);
+        }
+        if (cuid == null || iuid == null || tsuid == null) {
+          LOGGER.warn("Skip {}: missing SOP Class, SOP Instance or Transfer Syntax UID", file);
+        } else {
+          instances.add(new Instance(file, fmiEndPos, cuid, iuid, tsuid));
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Skip {}: not a DICOM file", file, e);
+      }
+    }
+    return instances;
+  }
+
+  static List<List<Instance>> split(List<Instance> instances, int associations) {
+    instances.sort(
+        Comparator.comparing((Instance i) -> i.tsuid)
+            .thenComparing(i -> i.cuid)
+            .thenComparing(i -> i.file));
+    int nb = Math.min(associations, instances.size());
+    List<List<Instance>> slices = new ArrayList<>(nb);
+    int start = 0;
+    for (int k = 0; k < nb; k++) {
+      int end = (int) ((long) instances.size() * (k + 1) / nb);
+      slices.add(new ArrayList<>(instances.subList(start, end)));
+      start = end;
+    }
+    return slices;
+  }
+
+  static AAssociateRQ buildAssociateRQ(List<Instance> slice) {
+    AAssociateRQ rq = new AAssociateRQ();
+    Map<String, Set<String>> contexts = new LinkedHashMap<>();
+    for (Instance instance : slice) {
+      Set<String> tss = contexts.computeIfAbsent(instance.cuid, _ -> new LinkedHashSet<>());
+      tss.add(instance.tsuid);
+      if (NATIVE_TSUIDS.contains(instance.tsuid)) {
+        tss.add(UID.ExplicitVRLittleEndian);
+        tss.add(UID.ImplicitVRLittleEndian);
+      }
+    }
+    int pcid = 1;
+    for (Map.Entry<String, Set<String>> entry : contexts.entrySet()) {
+      // One presentation context by transfer syntax for accepting the compressed ones separately
+      for (String ts : entry.getValue()) {
+        if (pcid > 255) {
+          LOGGER.warn("Too many presentation contexts, {} is not proposed", entry.getKey());
+          break;
+        }
+        rq.addPresentationContext(new PresentationContext(pcid, entry.getKey(), ts));
+        pcid += 2;
+      }
+    }
+    return rq;
+  }
+
+  static String selectTransferSyntax(Association as, Instance instance) {
+    Set<String> accepted = as.getTransferSyntaxesFor(instance.cuid);
+    if (accepted.contains(instance.tsuid)) {
+      return instance.tsuid;
+    }
+    if (NATIVE_TSUIDS.contains(instance.tsuid)) {
+      if (accepted.contains(UID.ExplicitVRLittleEndian)) {
+        return UID.ExplicitVRLittleEndian;
+      }
+      if (accepted.contains(UID.ImplicitVRLittleEndian)) {
+        return UID.ImplicitVRLittleEndian;
+      }
+    }
+    return null;
+  }
+
+  record Instance(File file, long fmiEndPos, String cuid, String iuid, String tsuid) {}
+
+  /** State of a sending shared by the associations. */
+  static class Send {
+    private final DicomProgress progress;
+    private final int total;
+    private final long start = System.nanoTime();
+    private final List<String> failures = new ArrayList<>();
+    // Instances with a response or a failure, each one is counted only once
+    private final Set<Instance> done = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int completed;
+    private int warnings;
+
+    Send(DicomProgress progress, int total) {
+      this.progress = progress;
+      this.total = total;
+    }
+
+    void sendAll(
+        ApplicationEntity ae,
+        Connection conn,
+        AdvancedParams options,
+        DicomNode callingNode,
+        DicomNode calledNode,
+        List<Instance> slice) {
+      Connection remote = new Connection();
+      AAssociateRQ rq = buildAssociateRQ(slice);
+      Association as;
+      try {
+        options.configureConnect(rq, remote, calledNode);
+        options.configureTLS(conn, remote);
+        rq.setCallingAET(callingNode.getAet());
+        as = ae.connect(conn, remote, rq);
+      } catch (Exception e) {
+        LOGGER.error("Cannot open an association with {}", calledNode, e);
+        slice.forEach(i -> failed(i, e.getMessage()));
+        return;
+      }
+      try {
+        for (int k = 0; k < slice.size() && !progress.isCancel(); k++) {
+          Instance instance = slice.get(k);
+          try {
+            send(as, instance);
+          } catch (IOException e) {
+            if (as.isReadyForDataTransfer()) {
+              failed(instance, e.getMessage());
+            } else {
+              LOGGER.error("C-STORE: association with {} closed", calledNode, e);
+              // The instances waiting for a response are notified when the association is closed
+              slice.subList(k, slice.size()).forEach(i -> failed(i, e.getMessage()));
+              break;
+            }
+          }
+        }
+        as.waitForOutstandingRSP();
+        if (!progress.isCancel()) {
+          // Instances without response (e.g. the request could not be written)
+          slice.forEach(i -> failed(i, "No response")); // NON-NLS
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        try {
+          if (as.isReadyForDataTransfer()) {
+            as.release();
+          }
+          as.waitForSocketClose();
+        } catch (IOException e) {
+          LOGGER.warn("Cannot release the association with {}", calledNode, e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void send(Association as, Instance instance) throws IOException, InterruptedException {
+      String ts = selectTransferSyntax(as, instance);
+      if (ts == null) {
+        failed(instance, "No presentation context accepted for " + instance.cuid); // NON-NLS
+        return;
+      }
+      DimseRSPHandler handler =
+          new DimseRSPHandler(as.nextMessageID()) {
+            @Override
+            public void onDimseRSP(Association as, Attributes cmd, Attributes data) {
+              super.onDimseRSP(as, cmd, data);
+              handleResponse(instance, cmd);
+            }
+
+            @Override
+            public void onClose(Association as) {
+              super.onClose(as);
+              failed(instance, "Association closed before the response"); // NON-NLS
+            }
+          };
+      if (ts.equals(instance.tsuid)) {
+        try (InputStream in = new FileInputStream(instance.file)) {
+          in.skipNBytes(instance.fmiEndPos);
+          DataWriter data = new InputStreamDataWriter(in);
+          // Returns when the data has been written, the response is received asynchronously
+          as.cstore(instance.cuid, instance.iuid, 0, data, ts, handler);
+        }
+      } else {
+        Attributes dataset;
+        try (DicomInputStream dis = new DicomInputStream(instance.file)) {
+          dis.setIncludeBulkData(IncludeBulkData.YES);
+          dataset = dis.readDataset();
+        }
+        as.cstore(instance.cuid, instance.iuid, 0, new DataWriterAdapter(dataset), ts, handler);
+      }
+    }
+
+    void handleResponse(Instance instance, Attributes cmd) {
+      int status = cmd.getInt(Tag.Status, -1);
+      synchronized (this) {
+        if (!done.add(instance)) {
+          return;
+        }
+        switch (status) {
+          case Status.Success -> completed++;
+          case Status.CoercionOfDataElements,
+              Status.ElementsDiscarded,
+              Status.DataSetDoesNotMatchSOPClassWarning -> {
+            completed++;
+            warnings++;
+          }
+          default -> {
+            LOGGER.error(
+                "C-STORE of {} failed with status {}", instance.iuid, Integer.toHexString(status));
+            failures.add(instance.iuid);
+          }
+        }
+        notifyProgress(instance.file);
+      }
+    }
+
+    synchronized void failed(Instance instance, String reason) {
+      if (!done.add(instance)) {
+        return;
+      }
+      LOGGER.error("C-STORE of {} failed: {}", instance.iuid, reason);
+      failures.add(instance.iuid);
+      notifyProgress(instance.file);
+    }
+
+    private void notifyProgress(File processedFile) {
+      int remaining = Math.max(0, total - completed - failures.size());
+      Attributes cmd = Optional.ofNullable(progress.getAttributes()).orElseGet(Attributes::new);
+      cmd.setInt(
+          Tag.Status,
+          VR.US,
+          remaining > 0
+              ? Status.Pending
+              : failures.isEmpty() ? Status.Success : Status.OneOrMoreFailures);
+      cmd.setInt(Tag.NumberOfCompletedSuboperations, VR.US, completed);
+      cmd.setInt(Tag.NumberOfFailedSuboperations, VR.US, failures.size());
+      cmd.setInt(Tag.NumberOfWarningSuboperations, VR.US, warnings);
+      cmd.setInt(Tag.NumberOfRemainingSuboperations, VR.US, remaining);
+      progress.setProcessedFile(processedFile);
+      progress.setAttributes(cmd);
+    }
+
+    synchronized DicomState buildState(DicomState state) {
+      double seconds = (System.nanoTime() - start) / 1.0E9;
+      String rate =
+          String.format(
+              "%d instances in %.1f s (%.1f instances/s)", // NON-NLS
+              completed + failures.size(),
+              seconds,
+              seconds > 0 ? (completed + failures.size()) / seconds : 0);
+      if (progress.isCancel()) {
+        state.setStatus(Status.Cancel);
+        return DicomState.buildMessage(state, "C-STORE cancelled: " + rate, null); // NON-NLS
+      }
+      if (failures.isEmpty()) {
+        state.setStatus(Status.Success);
+        LOGGER.info("C-STORE: {}", rate);
+        return DicomState.buildMessage(state, "all the files has been stored: " + rate, null);
+      }
+      state.setStatus(Status.OneOrMoreFailures);
+      return DicomState.buildMessage(
+          state,
+          null,
+          new RuntimeException(
+              failures.size() + " failed instances: " + String.join(", ", failures)));
+    }
+  }
+}
@@ -34,7 +34,6 @@
 import org.weasis.dicom.explorer.pref.node.AuthenticationPersistence;
 import org.weasis.dicom.explorer.pref.node.DefaultDicomNode;
 import org.weasis.dicom.explorer.pref.node.DicomWebNode;
-import org.weasis.dicom.op.CStore;
 import org.weasis.dicom.param.AdvancedParams;
 import org.weasis.dicom.param.ConnectOptions;
 import org.weasis.dicom.param.DicomNode;
@@ -134,7 +133,7 @@ protected boolean exportAction(List<String> files, DicomProgress dicomProgress)
       connectOptions.setAcceptTimeout(5000);
       params.setConnectOptions(connectOptions);
       final DicomState state =
-          CStore.process(
+          ParallelCStore.process(
               params, new DicomNode(weasisAet), node.getDicomNode(), files, dicomProgress);
       if (state.getStatus() != Status.Success && state.getStatus() != Status.Cancel) {
         showErrorMessage(null, null, state);
@@ -161,7 +160,7 @@ protected boolean exportAction(List<String> files, DicomProgress dicomProgress)
               ContentType.APPLICATION_DICOM,
               AppProperties.WEASIS_NAME,
               node.getHeaders())) {
-        DicomState state = stowRS.uploadDicom(files, true, authMethod);
+        DicomState state = stowRS.uploadDicom(files, true, authMethod, dicomProgress);
         if (state.getStatus() != Status.Success && state.getStatus() != Status.Cancel) {
           showErrorMessage(null, null, state);
           return false;
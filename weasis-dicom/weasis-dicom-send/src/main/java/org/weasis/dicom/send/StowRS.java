@@ -19,15 +19,22 @@
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import javax.xml.parsers.ParserConfigurationException;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
 import org.dcm4che3.io.SAXReader;
 import org.dcm4che3.net.Status;
 import org.slf4j.Logger;
@@ -37,9 +44,12 @@
 import org.weasis.core.api.auth.BodySupplier;
 import org.weasis.core.api.auth.FileBodyPartPayload;
 import org.weasis.core.api.auth.OAuth2ServiceFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.WProperties;
 import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.FileUtil;
 import org.weasis.dicom.param.DicomProgress;
@@ -52,6 +62,16 @@
 public class StowRS extends DicomStowRS {
   private static final Logger LOGGER = LoggerFactory.getLogger(StowRS.class);
 
+  public static final String BATCH_SIZE = "dicom.stow.batch.size";
+  public static final String BATCH_INSTANCES = "dicom.stow.batch.instances";
+  public static final String CONCURRENT_UPLOADS = "dicom.stow.concurrent.uploads";
+
+  private static final int MAX_RETRIES = 2;
+
+  // Private element of the progress attributes holding the upload rate
+  private static final String PRIVATE_CREATOR = "WEASIS STOW-RS"; // NON-NLS
+  private static final int INSTANCES_PER_SECOND = 0x00090001;
+
   /**
    * @param requestURL the URL of the STOW service
    * @param contentType the value of the type in the Content-Type HTTP property
@@ -63,14 +83,13 @@ public StowRS(
     super(requestURL, contentType, agentName, headers);
   }
 
-  private OAuthRequest prepareAuthConnection(List<String> filesOrFolders, boolean recursive) {
+  private OAuthRequest prepareAuthConnection(List<File> files) {
     OAuthRequest authRequest = new OAuthRequest(Verb.POST, getRequestURL());
-    MultipartPayload multipart = getMultipartPayload(filesOrFolders, recursive);
-    authRequest.setMultipartPayload(multipart);
+    authRequest.setMultipartPayload(getMultipartPayload(files));
     return authRequest;
   }
 
-  private MultipartPayload getMultipartPayload(List<String> filesOrFolders, boolean recursive) {
+  private MultipartPayload getMultipartPayload(List<File> files) {
     Map<String, String> headers = new HashMap<>();
     headers.put(
         "Content-Type", // NON-NLS
@@ -81,20 +100,23 @@ private MultipartPayload getMultipartPayload(List<String> filesOrFolders, boolea
     headers.put("Accept", Multipart.ContentType.XML.toString()); // NON-NLS
 
     MultipartPayload multipart = new MultipartPayload(MULTIPART_BOUNDARY, headers);
+    for (File file : files) {
+      addMultipartFile(multipart, file);
+    }
+    return multipart;
+  }
 
+  private static List<File> getFiles(List<String> filesOrFolders, boolean recursive) {
+    List<File> files = new ArrayList<>();
     for (String entry : filesOrFolders) {
       File file = new File(entry);
       if (file.isDirectory()) {
-        List<File> fileList = new ArrayList<>();
-        FileUtil.getAllFilesInDirectory(file, fileList, recursive);
-        for (File f : fileList) {
-          addMultipartFile(multipart, f);
-        }
+        FileUtil.getAllFilesInDirectory(file, files, recursive);
       } else {
-        addMultipartFile(multipart, file);
+        files.add(file);
       }
     }
-    return multipart;
+    return files;
   }
 
   private void addMultipartFile(MultipartPayload multipart, File file) {
@@ -117,83 +139,103 @@ public long length() {
 
   public DicomState uploadDicom(
       List<String> filesOrFolders, boolean recursive, AuthMethod authMethod) {
-    DicomState state = new DicomState(new DicomProgress());
-    Attributes error = null;
-    int nbFile = 0;
-    boolean auth = authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod);
+    return uploadDicom(filesOrFolders, recursive, authMethod, null);
+  }
 
-    String url = getRequestURL();
-    OAuthRequest authRequest = null;
-    if (auth) {
-      authRequest = prepareAuthConnection(filesOrFolders, recursive);
-      nbFile = authRequest.getMultipartPayload().getBodyParts().size();
+  /**
+   * Uploads the DICOM files by batches. The size of a batch is bounded, and the batches are sent
+   * simultaneously through several connections. The instances rejected by the server are sent again
+   * in a new batch, except when the failure reason indicates a permanent error.
+   *
+   * @param filesOrFolders the files or folders to upload
+   * @param recursive true to include the files of the subfolders
+   * @param authMethod the authentication method, or null
+   * @param progress the progress notified after each batch, or null
+   * @return the state of the upload
+   */
+  public DicomState uploadDicom(
+      List<String> filesOrFolders,
+      boolean recursive,
+      AuthMethod authMethod,
+      DicomProgress progress) {
+    DicomState state = new DicomState(progress == null ? new DicomProgress() : progress);
+    List<File> files = getFiles(filesOrFolders, recursive);
+    WProperties preferences = GuiUtils.getUICore().getSystemPreferences();
+    long batchSize = Math.max(1, preferences.getIntProperty(BATCH_SIZE, 64)) * 1024L * 1024L;
+    int batchInstances = Math.max(1, preferences.getIntProperty(BATCH_INSTANCES, 200));
+    int concurrentUploads = Math.max(1, preferences.getIntProperty(CONCURRENT_UPLOADS, 3));
+
+    List<List<File>> batches = buildBatches(files, batchSize, batchInstances);
+    Upload upload = new Upload(state.getProgress(), files.size(), authMethod);
+    ExecutorService executor =
+        ThreadUtil.newFixedThreadPool(
+            Math.min(concurrentUploads, Math.max(1, batches.size())), "STOW-RS Upload");
+    try {
+      List<Future<?>> futures = new ArrayList<>(batches.size());
+      for (List<File> batch : batches) {
+        futures.add(executor.submit(() -> upload.send(batch)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      upload.progress.cancel();
+    } catch (ExecutionException e) {
+      LOGGER.error("STOW-RS: error when posting data", e.getCause());
+      return DicomState.buildMessage(state, e.getCause().getMessage(), null);
+    } finally {
+      executor.shutdownNow();
     }
+    return upload.buildState(state);
+  }
 
+  private static List<List<File>> buildBatches(
+      List<File> files, long batchSize, int batchInstances) {
+    List<List<File>> batches = new ArrayList<>();
+    List<File> batch = new ArrayList<>();
+    long size = 0;
+    for (File file : files) {
+      long length = file.length();
+      if (!batch.isEmpty() && (size + length > batchSize || batch.size() >= batchInstances)) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+        size = 0;
+      }
+      batch.add(file);
+      size += length;
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  /**
+   * Sends one batch in a single request.
+   *
+   * @return the response of the server, or null when all the instances have been stored
+   */
+  private Attributes post(List<File> batch, AuthMethod authMethod) throws Exception {
+    boolean auth = authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod);
+    OAuthRequest authRequest = auth ? prepareAuthConnection(batch) : null;
     try (HttpResponse httpCon =
         NetworkUtil.getHttpResponse(
-            url, new URLParameters(getHeaders(), true), authMethod, authRequest)) {
+            getRequestURL(), new URLParameters(getHeaders(), true), authMethod, authRequest)) {
       if (auth) {
         int code = httpCon.getResponseCode();
-        if (code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_BAD_REQUEST) {
-          error = getResponseOutput(httpCon);
-        } else if (code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+        if (code == HttpURLConnection.HTTP_UNAUTHORIZED) {
           authMethod.resetToken();
           authMethod.getToken();
         }
       } else if (httpCon instanceof ClosableURLConnection urlConnection
           && urlConnection.getUrlConnection() instanceof HttpURLConnection http) {
-        MultipartPayload multipartPayload = getMultipartPayload(filesOrFolders, recursive);
-        nbFile = multipartPayload.getBodyParts().size();
-        BasicHttpClient.addBody(http, multipartPayload, true);
-        int code = httpCon.getResponseCode();
-        if (code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_BAD_REQUEST) {
-          error = getResponseOutput(httpCon);
-        }
+        BasicHttpClient.addBody(http, getMultipartPayload(batch), true);
       } else {
         throw new IllegalStateException("HttpResponse type: not implemented");
       }
-      return buildErrorMessage(error, state, nbFile);
-    } catch (Exception e) {
-      LOGGER.error("STOW-RS: error when posting data", e);
-      return DicomState.buildMessage(state, e.getMessage(), null);
-    }
-  }
-
-  private DicomState buildErrorMessage(Attributes error, DicomState state, int nbFile) {
-    String message;
-    if (error == null) {
-      state.setStatus(Status.Success);
-      message = "all the files has been transferred"; // NON-NLS
-    } else {
-      message = "one or more files has not been transferred"; // NON-NLS
-      state.setStatus(Status.OneOrMoreFailures);
-      DicomProgress p = state.getProgress();
-      if (p != null) {
-        Sequence seq = error.getSequence(Tag.FailedSOPSequence);
-        if (seq != null && !seq.isEmpty()) {
-          Attributes cmd = Optional.ofNullable(p.getAttributes()).orElseGet(Attributes::new);
-          cmd.setInt(Tag.Status, VR.US, Status.OneOrMoreFailures);
-          cmd.setInt(Tag.NumberOfCompletedSuboperations, VR.US, nbFile);
-          cmd.setInt(Tag.NumberOfFailedSuboperations, VR.US, seq.size());
-          cmd.setInt(Tag.NumberOfWarningSuboperations, VR.US, 0);
-          cmd.setInt(Tag.NumberOfRemainingSuboperations, VR.US, 0);
-          p.setAttributes(cmd);
-          message =
-              seq.stream()
-                  .map(
-                      s ->
-                          s.getString(Tag.ReferencedSOPInstanceUID, "Unknown SopUID") // NON-NLS
-                              + " -> "
-                              + s.getString(Tag.FailureReason))
-                  .collect(Collectors.joining(", "));
-          LOGGER.error("STOW-RS error: {}", message);
-          return DicomState.buildMessage(
-              state, null, new RuntimeException("Failed instances: " + message));
-        }
-      }
-      LOGGER.error("STOW-RS error: {}", message);
+      return getResponseOutput(httpCon);
     }
-    return DicomState.buildMessage(state, message, null);
   }
 
   private Attributes getResponseOutput(HttpResponse httpPost)
@@ -218,4 +260,197 @@ private Attributes getResponseOutput(HttpResponse httpPost)
     }
     return null;
   }
+
+  private static boolean isRetryable(int failureReason) {
+    // The instance would be rejected again
+    return failureReason != Status.SOPclassNotSupported
+        && failureReason != Status.DataSetDoesNotMatchSOPClassError
+        && (failureReason & 0xF000) != Status.CannotUnderstand;
+  }
+
+  private static String readSopInstanceUID(File file) {
+    try (DicomInputStream dis = new DicomInputStream(file)) {
+      Attributes fmi = dis.getFileMetaInformation();
+      String uid = fmi == null ? null : fmi.getString(Tag.MediaStorageSOPInstanceUID);
+      if (uid == null) {
+        dis.setIncludeBulkData(IncludeBulkData.NO);
+        uid = dis.readDatasetUntilPixelData().getString(Tag.SOPInstanceUID);
+      }
+      return uid;
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read the SOP Instance UID of {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * @param progress the progress given to {@link #uploadDicom}
+   * @return the number of instances sent by second, or 0 when it is not known yet
+   */
+  public static double getInstancesPerSecond(DicomProgress progress) {
+    Attributes cmd = progress == null ? null : progress.getAttributes();
+    return cmd == null ? 0 : cmd.getDouble(PRIVATE_CREATOR, INSTANCES_PER_SECOND, 0);
+  }
+
+  /** State of an upload shared by the threads sending the batches. */
+  private class Upload {
+    private final DicomProgress progress;
+    private final AuthMethod authMethod;
+    private final int total;
+    private final long start = System.nanoTime();
+    // Failure reasons by SOP Instance UID
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private final Map<File, String> sopInstanceUIDs = new ConcurrentHashMap<>();
+    private int completed;
+    private int warnings;
+
+    Upload(DicomProgress progress, int total, AuthMethod authMethod) {
+      this.progress = progress;
+      this.total = total;
+      this.authMethod = authMethod;
+    }
+
+    void send(List<File> batch) {
+      List<File> toSend = batch;
+      for (int attempt = 0; !toSend.isEmpty() && !progress.isCancel(); attempt++) {
+        boolean lastAttempt = attempt >= MAX_RETRIES;
+        try {
+          toSend = handleResponse(toSend, post(toSend, authMethod), lastAttempt);
+        } catch (Exception e) {
+          if (lastAttempt) {
+            LOGGER.error("STOW-RS: error when posting data", e);
+            String reason = e.getMessage();
+            toSend.forEach(f -> failed(getSopInstanceUID(f), reason));
+            notifyProgress(toSend.getLast());
+            return;
+          }
+          LOGGER.warn(
+              "STOW-RS: cannot send {} instances (attempt {}): {}",
+              toSend.size(),
+              attempt + 1,
+              e.getMessage());
+        }
+      }
+    }
+
+    // Returns the instances to send again
+    private List<File> handleResponse(List<File> batch, Attributes response, boolean lastAttempt) {
+      Sequence failedSeq = response == null ? null : response.getSequence(Tag.FailedSOPSequence);
+      List<File> retry = new ArrayList<>();
+      if (failedSeq == null || failedSeq.isEmpty()) {
+        synchronized (this) {
+          completed += batch.size();
+          warnings += countWarnings(response);
+        }
+      } else {
+        Map<String, Attributes> failedByUid = new HashMap<>();
+        for (Attributes item : failedSeq) {
+          failedByUid.put(item.getString(Tag.ReferencedSOPInstanceUID), item);
+        }
+        int done = 0;
+        for (File file : batch) {
+          Attributes item = failedByUid.remove(getSopInstanceUID(file));
+          if (item == null) {
+            done++;
+          } else if (!lastAttempt && isRetryable(item.getInt(Tag.FailureReason, 0))) {
+            retry.add(file);
+          } else {
+            failed(item);
+          }
+        }
+        // Failed instances that cannot be matched to a file
+        done -= failedByUid.size();
+        failedByUid.values().forEach(this::failed);
+        synchronized (this) {
+          completed += Math.max(0, done);
+          warnings += countWarnings(response);
+        }
+        if (!retry.isEmpty()) {
+          LOGGER.warn("STOW-RS: {} instances rejected, send them again", retry.size());
+        }
+      }
+      notifyProgress(batch.getLast());
+      return retry;
+    }
+
+    private String getSopInstanceUID(File file) {
+      String uid = sopInstanceUIDs.computeIfAbsent(file, StowRS::readSopInstanceUID);
+      // The file cannot be read, the server cannot have stored it
+      return uid == null ? file.getPath() : uid;
+    }
+
+    private static int countWarnings(Attributes response) {
+      Sequence seq = response == null ? null : response.getSequence(Tag.ReferencedSOPSequence);
+      if (seq == null) {
+        return 0;
+      }
+      return (int) seq.stream().filter(a -> a.containsValue(Tag.WarningReason)).count();
+    }
+
+    private void failed(Attributes item) {
+      failed(
+          item.getString(Tag.ReferencedSOPInstanceUID, "Unknown SopUID"), // NON-NLS
+          item.getString(Tag.FailureReason));
+    }
+
+    private synchronized void failed(String instance, String reason) {
+      failures.put(instance, reason);
+    }
+
+    private synchronized void notifyProgress(File processedFile) {
+      int remaining = Math.max(0, total - completed - failures.size());
+      Attributes cmd = Optional.ofNullable(progress.getAttributes()).orElseGet(Attributes::new);
+      cmd.setInt(
+          Tag.Status,
+          VR.US,
+          remaining > 0
+              ? Status.Pending
+              : failures.isEmpty() ? Status.Success : Status.OneOrMoreFailures);
+      cmd.setInt(Tag.NumberOfCompletedSuboperations, VR.US, completed);
+      cmd.setInt(Tag.NumberOfFailedSuboperations, VR.US, failures.size());
+      cmd.setInt(Tag.NumberOfWarningSuboperations, VR.US, warnings);
+      cmd.setInt(Tag.NumberOfRemainingSuboperations, VR.US, remaining);
+      double rate = getInstancesPerSecond();
+      cmd.setDouble(PRIVATE_CREATOR, INSTANCES_PER_SECOND, VR.FD, rate);
+      progress.setProcessedFile(processedFile);
+      progress.setAttributes(cmd);
+      LOGGER.debug(
+          "STOW-RS: {}/{} instances sent ({} instances/s)",
+          completed + failures.size(),
+          total,
+          String.format("%.1f", rate)); // NON-NLS
+    }
+
+    private synchronized double getInstancesPerSecond() {
+      double seconds = (System.nanoTime() - start) / 1.0E9;
+      return seconds > 0 ? (completed + failures.size()) / seconds : 0;
+    }
+
+    synchronized DicomState buildState(DicomState state) {
+      String rate =
+          String.format(
+              "%d instances in %.1f s (%.1f instances/s)", // NON-NLS
+              completed + failures.size(),
+              (System.nanoTime() - start) / 1.0E9,
+              getInstancesPerSecond());
+      if (progress.isCancel()) {
+        state.setStatus(Status.Cancel);
+        return DicomState.buildMessage(state, "STOW-RS cancelled: " + rate, null); // NON-NLS
+      }
+      if (failures.isEmpty()) {
+        state.setStatus(Status.Success);
+        LOGGER.info("STOW-RS: {}", rate);
+        return DicomState.buildMessage(
+            state, "all the files has been transferred: " + rate, null); // NON-NLS
+      }
+      state.setStatus(Status.OneOrMoreFailures);
+      String message =
+          failures.entrySet().stream()
+              .map(e -> e.getKey() + " -> " + e.getValue())
+              .collect(Collectors.joining(", "));
+      LOGGER.error("STOW-RS error: {}", message);
+      return DicomState.buildMessage(
+          state, null, new RuntimeException("Failed instances: " + message));
+    }
+  }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.send;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.net.Association;
+import org.dcm4che3.net.Status;
+import org.dcm4che3.net.pdu.AAssociateRQ;
+import org.dcm4che3.net.pdu.PresentationContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.weasis.dicom.param.DicomNode;
+import org.weasis.dicom.param.DicomProgress;
+import org.weasis.dicom.param.DicomState;
+import org.weasis.dicom.send.ParallelCStore.Instance;
+import org.weasis.dicom.send.ParallelCStore.Send;
+
+class ParallelCStoreTest {
+
+  private static Instance instance(String name, String cuid, String tsuid) {
+    return new Instance(new File(name), 0, cuid, name, tsuid);
+  }
+
+  private static Attributes response(int status) {
+    Attributes cmd = new Attributes();
+    cmd.setInt(Tag.Status, VR.US, status);
+    return cmd;
+  }
+
+  private static int count(DicomProgress progress, int tag) {
+    return progress.getAttributes().getInt(tag, -1);
+  }
+
+  @Test
+  void test_split_by_transfer_syntax_and_sop_class() {
+    Instance ct1 = instance("ct1", UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+    Instance ct2 = instance("ct2", UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+    Instance mr1 = instance("mr1", UID.MRImageStorage, UID.ExplicitVRLittleEndian);
+    Instance ctJpeg = instance("ct3", UID.CTImageStorage, UID.JPEGLosslessSV1);
+    Instance mrJpeg = instance("mr2", UID.MRImageStorage, UID.JPEGLosslessSV1);
+    List<Instance> instances = new ArrayList<>(List.of(mrJpeg, mr1, ct2, ctJpeg, ct1));
+
+    List<List<Instance>> slices = ParallelCStore.split(instances, 2);
+    assertEquals(2, slices.size());
+    // Ordered by transfer syntax, then SOP class, then file
+    assertEquals(List.of(ct1, ct2), slices.get(0));
+    assertEquals(List.of(mr1, ctJpeg, mrJpeg), slices.get(1));
+
+    // No more associations than instances
+    slices = ParallelCStore.split(new ArrayList<>(List.of(mr1, ct1)), 4);
+    assertEquals(List.of(List.of(ct1), List.of(mr1)), slices);
+  }
+
+  @Test
+  void test_split_keeps_all_the_instances() {
+    List<Instance> instances = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      instances.add(instance("f" + i, UID.CTImageStorage, UID.ExplicitVRLittleEndian));
+    }
+    List<List<Instance>> slices = ParallelCStore.split(instances, 3);
+    assertEquals(List.of(3, 3, 4), slices.stream().map(List::size).toList());
+    assertEquals(instances, slices.stream().flatMap(List::stream).toList());
+  }
+
+  @Test
+  void test_presentation_contexts_of_a_slice() {
+    List<Instance> slice =
+        List.of(
+            instance("ct1", UID.CTImageStorage, UID.ImplicitVRLittleEndian),
+            instance("ct2", UID.CTImageStorage, UID.ExplicitVRLittleEndian),
+            instance("mr1", UID.MRImageStorage, UID.JPEGLosslessSV1));
+
+    AAssociateRQ rq = ParallelCStore.buildAssociateRQ(slice);
+    List<String> contexts = new ArrayList<>();
+    for (PresentationContext pc : rq.getPresentationContexts()) {
+      assertEquals(1, pc.getPCID() % 2);
+      contexts.add(pc.getAbstractSyntax() + " " + pc.getTransferSyntax());
+    }
+    // The native transfer syntaxes can be converted, one context by transfer syntax
+    assertEquals(
+        List.of(
+            UID.CTImageStorage + " " + UID.ImplicitVRLittleEndian,
+            UID.CTImageStorage + " " + UID.ExplicitVRLittleEndian,
+            UID.MRImageStorage + " " + UID.JPEGLosslessSV1),
+        contexts);
+  }
+
+  @Test
+  void test_select_transfer_syntax() {
+    Association as = mock(Association.class);
+    when(as.getTransferSyntaxesFor(UID.CTImageStorage))
+        .thenReturn(Set.of(UID.ImplicitVRLittleEndian));
+    when(as.getTransferSyntaxesFor(UID.MRImageStorage)).thenReturn(Set.of());
+
+    assertEquals(
+        UID.ImplicitVRLittleEndian,
+        ParallelCStore.selectTransferSyntax(
+            as, instance("ct1", UID.CTImageStorage, UID.ExplicitVRBigEndian)));
+    // A compressed transfer syntax is never converted
+    assertNull(
+        ParallelCStore.selectTransferSyntax(
+            as, instance("ct2", UID.CTImageStorage, UID.JPEGLosslessSV1)));
+    assertNull(
+        ParallelCStore.selectTransferSyntax(
+            as, instance("mr1", UID.MRImageStorage, UID.ImplicitVRLittleEndian)));
+  }
+
+  @Test
+  void test_completed_warnings_and_failures_are_counted() {
+    DicomProgress progress = new DicomProgress();
+    Send send = new Send(progress, 4);
+
+    send.handleResponse(instance("a", UID.CTImageStorage, UID.ExplicitVRLittleEndian), response(0));
+    send.handleResponse(
+        instance("b", UID.CTImageStorage, UID.ExplicitVRLittleEndian),
+        response(Status.CoercionOfDataElements));
+    send.failed(instance("c", UID.CTImageStorage, UID.ExplicitVRLittleEndian), "closed");
+    assertEquals(Status.Pending, count(progress, Tag.Status));
+    assertEquals(2, count(progress, Tag.NumberOfCompletedSuboperations));
+    assertEquals(1, count(progress, Tag.NumberOfWarningSuboperations));
+    assertEquals(1, count(progress, Tag.NumberOfFailedSuboperations));
+    assertEquals(1, count(progress, Tag.NumberOfRemainingSuboperations));
+
+    send.handleResponse(
+        instance("d", UID.CTImageStorage, UID.ExplicitVRLittleEndian),
+        response(Status.OutOfResources));
+    assertEquals(Status.OneOrMoreFailures, count(progress, Tag.Status));
+    assertEquals(2, count(progress, Tag.NumberOfFailedSuboperations));
+    assertEquals(0, count(progress, Tag.NumberOfRemainingSuboperations));
+    assertEquals(new File("d"), progress.getProcessedFile());
+
+    DicomState state = send.buildState(new DicomState(progress));
+    assertNotEquals(Status.Success, state.getStatus());
+    assertTrue(state.getMessage().contains("2 failed instances: c, d"));
+  }
+
+  @Test
+  void test_each_instance_is_counted_once() {
+    DicomProgress progress = new DicomProgress();
+    Send send = new Send(progress, 3);
+    Instance a = instance("a", UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+    Instance b = instance("b", UID.CTImageStorage, UID.ExplicitVRLittleEndian);
+
+    send.handleResponse(a, response(0));
+    // Association closed after the response
+    send.failed(a, "closed");
+    // Write error, then the association is closed
+    send.failed(b, "write error");
+    send.failed(b, "closed");
+    send.handleResponse(b, response(0));
+
+    assertEquals(1, count(progress, Tag.NumberOfCompletedSuboperations));
+    assertEquals(1, count(progress, Tag.NumberOfFailedSuboperations));
+    assertEquals(1, count(progress, Tag.NumberOfRemainingSuboperations));
+    assertEquals(Status.Pending, count(progress, Tag.Status));
+  }
+
+  @Test
+  void test_all_completed() {
+    DicomProgress progress = new DicomProgress();
+    Send send = new Send(progress, 2);
+    send.handleResponse(instance("a", UID.CTImageStorage, UID.ExplicitVRLittleEndian), response(0));
+    assertEquals(Status.Pending, count(progress, Tag.Status));
+    send.handleResponse(instance("b", UID.CTImageStorage, UID.ExplicitVRLittleEndian), response(0));
+    assertEquals(Status.Success, count(progress, Tag.Status));
+    assertEquals(0, count(progress, Tag.NumberOfRemainingSuboperations));
+
+    assertEquals(Status.Success, send.buildState(new DicomState(progress)).getStatus());
+  }
+
+  @Test
+  void test_cancelled() {
+    DicomProgress progress = new DicomProgress();
+    Send send = new Send(progress, 2);
+    send.handleResponse(instance("a", UID.CTImageStorage, UID.ExplicitVRLittleEndian), response(0));
+    progress.cancel();
+    assertEquals(Status.Cancel, send.buildState(new DicomState(progress)).getStatus());
+  }
+
+  @Test
+  void test_no_dicom_file(@TempDir Path dir) throws IOException {
+    Files.writeString(dir.resolve("readme.txt"), "not a DICOM file"); // NON-NLS
+    DicomState state =
+        ParallelCStore.process(
+            null,
+            new DicomNode("WEASIS"), // NON-NLS
+            new DicomNode("STORESCP", "localhost", 11112), // NON-NLS
+            List.of(dir.toString()),
+            null,
+            2,
+            8);
+    assertTrue(state.getMessage().contains("No DICOM file to send"));
+  }
+}
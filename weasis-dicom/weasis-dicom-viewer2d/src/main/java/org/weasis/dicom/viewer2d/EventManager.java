@@ -20,6 +20,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -81,6 +82,7 @@
 import org.weasis.core.api.util.ResourceUtil.ActionIcon;
 import org.weasis.core.ui.editor.SeriesViewerEvent;
 import org.weasis.core.ui.editor.SeriesViewerEvent.EVENT;
+import org.weasis.core.ui.editor.image.FrameRenderWorker;
 import org.weasis.core.ui.editor.image.ImageViewerEventManager;
 import org.weasis.core.ui.editor.image.ImageViewerPlugin;
 import org.weasis.core.ui.editor.image.MeasureToolBar;
@@ -290,19 +292,39 @@ public void stateChanged(BoundedRangeModel model) {
           if (series != null) {
             // Model contains display value, value-1 is the index value of a sequence
             int index = model.getValue() - 1;
-            image =
-                series.getMedia(
-                    index,
-                    (Filter<DicomImageElement>)
-                        view2d.getActionValue(ActionW.FILTERED_SERIES.cmd()),
-                    view2d.getCurrentSortComparator());
+            Filter<DicomImageElement> filter =
+                (Filter<DicomImageElement>) view2d.getActionValue(ActionW.FILTERED_SERIES.cmd());
+            Comparator<DicomImageElement> comparator = view2d.getCurrentSortComparator();
+            image = series.getMedia(index, filter, comparator);
             mediaEvent = new SynchCineEvent(view2d, image, index);
+            if (series instanceof DicomSeries dicomSeries) {
+              DicomSeries.updatePreloading(dicomSeries, filter, comparator, image, index);
+            }
+            FrameRenderWorker<DicomImageElement> worker = view2d.getFrameWorker();
+            if (image != null && worker != null) {
+              // Read the image in the background, only the most recent frame is displayed
+              ViewCanvas<DicomImageElement> view = view2d;
+              Series<DicomImageElement> s = series;
+              DicomImageElement img = image;
+              SynchCineEvent event = mediaEvent;
+              worker.request(image, () -> showImage(view, s, img, event, isDefaultPresetSelected));
+              return;
+            }
             // Ensure to load image before calling the default preset (requires pixel min and max)
             if (image != null && !image.isImageAvailable()) {
               image.getImage();
             }
           }
         }
+        showImage(view2d, series, image, mediaEvent, isDefaultPresetSelected);
+      }
+
+      private void showImage(
+          ViewCanvas<DicomImageElement> view2d,
+          Series<DicomImageElement> series,
+          DicomImageElement image,
+          SynchCineEvent mediaEvent,
+          boolean isDefaultPresetSelected) {
         if (image != null) {
           double[] frameTimes = (double[]) image.getTagValue(TagD.get(Tag.FrameTimeVector));
           if (frameTimes != null && frameTimes.length > 1) {
@@ -385,9 +385,8 @@ public void setSelectedImagePaneFromFocus(ViewCanvas<DicomImageElement> viewCanv
     if (viewCanvas != null && viewCanvas.getSeries() instanceof DicomSeries series) {
       DicomSeries.startPreloading(
           series,
-          series.copyOfMedias(
-              (Filter<DicomImageElement>) viewCanvas.getActionValue(ActionW.FILTERED_SERIES.cmd()),
-              viewCanvas.getCurrentSortComparator()),
+          (Filter<DicomImageElement>) viewCanvas.getActionValue(ActionW.FILTERED_SERIES.cmd()),
+          viewCanvas.getCurrentSortComparator(),
           viewCanvas.getFrameIndex());
     }
   }